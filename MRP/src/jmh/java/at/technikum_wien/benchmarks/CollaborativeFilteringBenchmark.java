@@ -0,0 +1,71 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.models.entities.Interaction;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.services.CollaborativeFilteringEngine;
+import at.technikum_wien.services.ItemSimilarityModel;
+import at.technikum_wien.services.MediaStatisticsStore;
+import at.technikum_wien.services.RecommendationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//serving from the prebuilt item-item model vs. building it; 50 interactions per user, popular media picked more often
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class CollaborativeFilteringBenchmark {
+    private static final int ACTIVE_USER = 1;
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"50000"})
+    public int userCount;
+
+    private List<Interaction> interactions;
+    private CollaborativeFilteringEngine engine;
+    private RecommendationService recommendationService;
+    private MediaStatisticsStore statisticsStore;
+
+    @Setup
+    public void setUp() {
+        interactions = SyntheticCatalog.interactions(userCount, 50, catalogSize, 42);
+        engine = new CollaborativeFilteringEngine(() -> interactions, null);
+        engine.rebuild();
+
+        statisticsStore = new MediaStatisticsStore(Map::of, null);
+        List<Media> media = SyntheticCatalog.media(catalogSize, 42);
+        recommendationService = new RecommendationService(new SyntheticCatalog.InMemoryMediaRepository(media),
+                new SyntheticCatalog.InMemoryRatingRepository(Map.of()), statisticsStore, engine);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        statisticsStore.close();
+    }
+
+    @Benchmark
+    public List<Integer> recommend() {
+        return engine.recommend(ACTIVE_USER, 10);
+    }
+
+    //including the hand-off to Media
+    @Benchmark
+    public List<Media> collaborativeRecommendations() {
+        return recommendationService.getCollaborativeRecommendations(ACTIVE_USER, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ItemSimilarityModel build() {
+        return ItemSimilarityModel.build(interactions, CollaborativeFilteringEngine.DEFAULT_NEIGHBORS, 1_000);
+    }
+}
@@ -0,0 +1,46 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int listSize;
+
+    private List<Media> media;
+    private List<Rating> ratings;
+
+    @Setup
+    public void setUp() {
+        media = SyntheticCatalog.media(listSize, 42);
+        ratings = SyntheticCatalog.ratings(1, listSize, listSize, 42);
+    }
+
+    @Benchmark
+    public String mediaListToJson() throws IOException {
+        return JsonUtil.mediaListToJson(media);
+    }
+
+    @Benchmark
+    public String ratingListToJson() {
+        return JsonUtil.ratingListToJson(ratings);
+    }
+
+    @Benchmark
+    public byte[] mediaListToJsonBytes() throws IOException {
+        return JsonUtil.objectToJsonBytes(media);
+    }
+}
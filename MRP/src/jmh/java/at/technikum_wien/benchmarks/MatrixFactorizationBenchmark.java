@@ -0,0 +1,75 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.models.entities.RatingMatrix;
+import at.technikum_wien.services.LatentFactorModel;
+import at.technikum_wien.services.MatrixFactorizationTrainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//ALS training time and quality on synthetic low-rank ratings, 100 ratings per user over a 20k catalog
+//RMSE on the training ratings and on the held-out tenth is printed once per trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class MatrixFactorizationBenchmark {
+    private static final int PER_USER = 100;
+    private static final int CATALOG_SIZE = 20_000;
+
+    @Param({"1000000", "10000000"})
+    public int ratings;
+
+    @Param({"32"})
+    public int factors;
+
+    @Param({"0.1"})
+    public float lambda;
+
+    //0 -> all cores
+    @Param({"0"})
+    public int threads;
+
+    private RatingMatrix training;
+    private RatingMatrix heldOut;
+    private MatrixFactorizationTrainer trainer;
+    private MatrixFactorizationTrainer.Settings settings;
+    private LatentFactorModel model;
+    private int[] noExclusions;
+
+    @Setup
+    public void setUp() {
+        training = new RatingMatrix(ratings);
+        heldOut = new RatingMatrix(ratings / 10);
+        SyntheticCatalog.latentRatings(ratings / PER_USER, PER_USER, CATALOG_SIZE, 42, training, heldOut);
+        trainer = new MatrixFactorizationTrainer(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        settings = new MatrixFactorizationTrainer.Settings(factors, 10, lambda, 42);
+        model = trainer.train(training, settings);
+        noExclusions = new int[0];
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%d ratings, %d factors, lambda %.2f, %d threads: training RMSE %.4f, held-out RMSE %.4f%n",
+                training.size(), factors, lambda, trainer.getParallelism(), model.getTrainingRmse(), model.rmse(heldOut));
+        trainer.close();
+    }
+
+    @Benchmark
+    public LatentFactorModel train() {
+        model = trainer.train(training, settings);
+        return model;
+    }
+
+    //dot product against every media + top-k, what one request costs
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int[] recommend() {
+        return model.recommend(1, noExclusions, 10);
+    }
+}
@@ -0,0 +1,56 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.services.MediaSearchIndex;
+import at.technikum_wien.services.MediaService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//service side of GET /api/media?title=...: criteria validation, the index query with filters and sorting,
+//paging and serializing the returned page -> the same path a request takes, only without HTTP and auth
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaSearchBenchmark {
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private MediaSearchIndex index;
+    private MediaService mediaService;
+    private String title;
+
+    @Setup
+    public void setUp() {
+        List<Media> media = SyntheticCatalog.searchableMedia(catalogSize, 42);
+        index = new MediaSearchIndex(() -> media, null);
+        index.reload();
+        mediaService = new MediaService(new SyntheticCatalog.InMemoryMediaRepository(media), index);
+        title = SyntheticCatalog.WORDS[10]; //common enough to fill a page after the genre/type filters
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.close();
+    }
+
+    @Benchmark
+    public List<Media> searchMedia() {
+        return mediaService.searchMedia(title, "drama", "movie", null, 18, "title", pageSize, 0);
+    }
+
+    @Benchmark
+    public String searchMediaAndSerialize() throws IOException {
+        return JsonUtil.mediaListToJson(mediaService.searchMedia(title, "drama", "movie", null, 18, "title", pageSize, 0));
+    }
+}
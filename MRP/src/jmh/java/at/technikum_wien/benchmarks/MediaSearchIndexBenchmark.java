@@ -0,0 +1,60 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import at.technikum_wien.services.MediaSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//GET /api/media?title=... / ?q=... answered by the in-memory index
+//cost follows the number of candidates of the rarest term, commonWord is the worst case (~1% of the catalog)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class MediaSearchIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    private MediaSearchIndex index;
+    private String rareTitle;
+
+    @Setup
+    public void setUp() {
+        List<Media> media = SyntheticCatalog.searchableMedia(catalogSize, 42);
+        index = new MediaSearchIndex(() -> media, null);
+        index.reload();
+        rareTitle = Integer.toString(catalogSize / 2, 36);
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.close();
+    }
+
+    @Benchmark
+    public List<Media> rareTitleWord() {
+        return index.search(new MediaSearchCriteria(rareTitle, null, null, null, null, null, null, 20, 0));
+    }
+
+    @Benchmark
+    public List<Media> twoWordQueryWithFilters() {
+        return index.search(new MediaSearchCriteria(SyntheticCatalog.WORDS[10], SyntheticCatalog.WORDS[3_000], "drama", "movie", null, 12, null, 20, 0));
+    }
+
+    @Benchmark
+    public List<Media> partialWordQuery() {
+        String word = SyntheticCatalog.WORDS[2_500];
+        return index.search(new MediaSearchCriteria(null, word.substring(0, word.length() - 1), null, null, 1990, null, null, 20, 0));
+    }
+
+    @Benchmark
+    public List<Media> commonWord() {
+        return index.search(new MediaSearchCriteria(null, SyntheticCatalog.WORDS[0], null, null, null, null, null, 20, 0));
+    }
+}
@@ -0,0 +1,32 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.handlers.util.QueryParams;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryStringBenchmark {
+
+    @Param({"limit=20", "title=inception&genre=sci-fi&mediaType=movie&releaseYear=2010&ageRestriction=16&sortBy=title&limit=50&offset=100"})
+    public String query;
+
+    @Benchmark
+    public Map<String, String> queryParams() {
+        return QueryParams.parse(query);
+    }
+
+    //what every handler did before QueryParams, kept as a baseline
+    @Benchmark
+    public Map<String, String> streamSplitBaseline() {
+        return Arrays.stream(query.split("&")).map(param -> param.split("=")).collect(Collectors.toMap(pair -> pair[0], pair -> pair.length > 1 ? pair[1] : ""));
+    }
+}
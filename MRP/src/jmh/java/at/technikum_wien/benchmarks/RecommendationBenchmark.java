@@ -0,0 +1,66 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaStatistics;
+import at.technikum_wien.services.MediaStatisticsStore;
+import at.technikum_wien.services.RecommendationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//scoring paths over synthetic catalogs; the 1M catalog needs a few GB of heap
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecommendationBenchmark {
+    private static final int ACTIVE_USER = 1;
+    private static final int NEW_USER = 2;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"50"})
+    public int ratingsPerUser;
+
+    private RecommendationService recommendationService;
+    private MediaStatisticsStore statisticsStore;
+
+    @Setup
+    public void setUp() {
+        List<Media> media = SyntheticCatalog.media(catalogSize, 42);
+        Map<Integer, MediaStatistics> statistics = SyntheticCatalog.statistics(catalogSize, 42);
+        statisticsStore = new MediaStatisticsStore(() -> statistics, null);
+        statisticsStore.reload();
+
+        recommendationService = new RecommendationService(
+                new SyntheticCatalog.InMemoryMediaRepository(media),
+                new SyntheticCatalog.InMemoryRatingRepository(Map.of(ACTIVE_USER, SyntheticCatalog.ratings(ACTIVE_USER, ratingsPerUser, catalogSize, 7))),
+                statisticsStore);
+    }
+
+    @TearDown
+    public void tearDown() {
+        statisticsStore.close();
+    }
+
+    @Benchmark
+    public List<Media> genreBased() {
+        return recommendationService.getGenreBasedRecommendations(ACTIVE_USER, 10);
+    }
+
+    @Benchmark
+    public List<Media> contentBased() {
+        return recommendationService.getContentBasedRecommendations(ACTIVE_USER, 10);
+    }
+
+    //no ratings -> popularity fallback
+    @Benchmark
+    public List<Media> coldStart() {
+        return recommendationService.getGenreBasedRecommendations(NEW_USER, 10);
+    }
+}
@@ -0,0 +1,51 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.handlers.util.Router;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @Param({"/api/media/42", "/api/media/42/favorite", "/api/media/unknown"})
+    public String path;
+
+    private Router router;
+
+    @Setup
+    public void setUp() {
+        Router.Route noop = (exchange, params) -> {
+        };
+        router = new Router()
+                .add("GET", "/api/media", noop)
+                .add("GET", "/api/media/{id:int}", noop)
+                .add("GET", "/api/media/{id:int}/rate", noop)
+                .add("GET", "/api/media/{id:int}/favorite", noop);
+    }
+
+    @Benchmark
+    public Router.Match router() {
+        return router.resolve("GET", path);
+    }
+
+    //the String.matches chain MediaHandler used before the router, kept as a baseline
+    @Benchmark
+    public int regexChainBaseline() {
+        if (path.equals("/api/media")) {
+            return 0;
+        } else if (path.matches("/api/media/\\d+")) {
+            return 1;
+        } else if (path.matches("/api/media/\\d+/rate")) {
+            return 2;
+        } else if (path.matches("/api/media/\\d+/favorite")) {
+            return 3;
+        }
+        return -1;
+    }
+}
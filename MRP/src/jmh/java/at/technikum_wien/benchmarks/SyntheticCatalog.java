@@ -0,0 +1,181 @@
+package at.technikum_wien.benchmarks;
+
+import at.technikum_wien.database.repositories.MediaRepository;
+import at.technikum_wien.database.repositories.RatingRepository;
+import at.technikum_wien.models.entities.Interaction;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaStatistics;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.RatingMatrix;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+//deterministic fake data + in-memory repositories, so benchmarks measure our code and not the database
+final class SyntheticCatalog {
+    static final String[] GENRES = {"action", "adventure", "animation", "comedy", "crime", "documentary", "drama", "fantasy", "horror", "mystery", "romance", "sci-fi", "thriller", "western"};
+    static final String[] TYPES = {"movie", "series", "game"};
+    static final String[] WORDS = vocabulary(5_000);
+
+    private SyntheticCatalog() {
+    }
+
+    static List<Media> media(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Media> media = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            List<String> genres = new ArrayList<>(3);
+            int genreCount = 1 + random.nextInt(3);
+            for (int g = 0; g < genreCount; g++) {
+                String genre = GENRES[random.nextInt(GENRES.length)];
+                if (!genres.contains(genre)) {
+                    genres.add(genre);
+                }
+            }
+            media.add(new Media(id, TYPES[random.nextInt(TYPES.length)], "Title " + id, "Synthetic description for media " + id, 1950 + random.nextInt(75), random.nextInt(5) * 4, 1 + random.nextInt(1_000), genres));
+        }
+        return media;
+    }
+
+    //titles & descriptions drawn from a skewed vocabulary (low indexes are common words) plus a unique title word
+    static List<Media> searchableMedia(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Media> media = media(count, seed);
+        for (Media entry : media) {
+            entry.setTitle(words(random, 2) + " " + Integer.toString(entry.getId(), 36));
+            entry.setDescription(words(random, 12));
+        }
+        return media;
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(1 + random.nextInt(WORDS.length))]);
+        }
+        return text.toString();
+    }
+
+    //pronounceable fake words: "bakor", "tilenu", ...
+    private static String[] vocabulary(int size) {
+        String[] syllables = {"ba", "ko", "ri", "te", "lu", "ma", "ne", "so", "vi", "da", "gu", "pe", "zo", "hi", "fa", "ly"};
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int rest = i;
+            do {
+                word.append(syllables[rest % syllables.length]);
+                rest /= syllables.length;
+            } while (rest > 0);
+            words[i] = word.append(i % 2 == 0 ? "r" : "n").toString();
+        }
+        return words;
+    }
+
+    static List<Rating> ratings(int userId, int count, int catalogSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Rating> ratings = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            ratings.add(new Rating(i, 1 + random.nextInt(catalogSize), userId, 1 + random.nextInt(5), "Comment " + i, true, createdAt.plusMinutes(i)));
+        }
+        return ratings;
+    }
+
+    //popular media are picked far more often (same skew as the vocabulary), no (user, media) pair twice
+    static List<Interaction> interactions(int userCount, int perUser, int catalogSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Interaction> interactions = new ArrayList<>(userCount * perUser);
+        Set<Integer> seen = new HashSet<>();
+        for (int userId = 1; userId <= userCount; userId++) {
+            seen.clear();
+            while (seen.size() < Math.min(perUser, catalogSize)) {
+                int mediaId = 1 + random.nextInt(1 + random.nextInt(catalogSize));
+                if (seen.add(mediaId)) {
+                    interactions.add(new Interaction(userId, mediaId, 1 + random.nextInt(5), random.nextInt(10) == 0));
+                }
+            }
+        }
+        return interactions;
+    }
+
+    //stars from hidden rank-8 tastes + noise, so a factorization has something to find; every tenth rating goes to heldOut
+    static void latentRatings(int userCount, int perUser, int catalogSize, long seed, RatingMatrix training, RatingMatrix heldOut) {
+        int rank = 8;
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] mediaTastes = new double[catalogSize * rank];
+        for (int i = 0; i < mediaTastes.length; i++) {
+            mediaTastes[i] = random.nextGaussian() / Math.sqrt(rank);
+        }
+        double[] userTaste = new double[rank];
+        Set<Integer> seen = new HashSet<>();
+        for (int userId = 1; userId <= userCount; userId++) {
+            for (int f = 0; f < rank; f++) {
+                userTaste[f] = random.nextGaussian();
+            }
+            seen.clear();
+            while (seen.size() < Math.min(perUser, catalogSize)) {
+                int mediaId = 1 + random.nextInt(1 + random.nextInt(catalogSize));
+                if (seen.add(mediaId)) {
+                    double affinity = 0;
+                    for (int f = 0; f < rank; f++) {
+                        affinity += userTaste[f] * mediaTastes[(mediaId - 1) * rank + f];
+                    }
+                    int stars = (int) Math.max(1, Math.min(5, Math.round(3 + 1.2 * affinity + 0.5 * random.nextGaussian())));
+                    (random.nextInt(10) == 0 ? heldOut : training).add(userId, mediaId, stars);
+                }
+            }
+        }
+    }
+
+    static Map<Integer, MediaStatistics> statistics(int catalogSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<Integer, MediaStatistics> statistics = new HashMap<>(catalogSize * 2);
+        for (int id = 1; id <= catalogSize; id++) {
+            int ratingCount = random.nextInt(50);
+            statistics.put(id, new MediaStatistics(id, ratingCount, (long) ratingCount * (1 + random.nextInt(5)), random.nextInt(20), random.nextInt(30)));
+        }
+        return statistics;
+    }
+
+    static class InMemoryMediaRepository extends MediaRepository {
+        private final List<Media> media;
+
+        InMemoryMediaRepository(List<Media> media) {
+            this.media = media;
+        }
+
+        @Override
+        public List<Media> getAllMedia() {
+            return media;
+        }
+
+        //ids are 1..n in order, stands in for the entity cache
+        @Override
+        public Media getById(int id) {
+            return id >= 1 && id <= media.size() ? media.get(id - 1) : null;
+        }
+    }
+
+    static class InMemoryRatingRepository extends RatingRepository {
+        private final Map<Integer, List<Rating>> ratingsByUser;
+
+        InMemoryRatingRepository(Map<Integer, List<Rating>> ratingsByUser) {
+            this.ratingsByUser = ratingsByUser;
+        }
+
+        @Override
+        public List<Rating> getAllRatingsByUser(int userId) {
+            return ratingsByUser.getOrDefault(userId, List.of());
+        }
+    }
+}
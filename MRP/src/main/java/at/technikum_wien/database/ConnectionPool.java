@@ -0,0 +1,397 @@
+package at.technikum_wien.database;
+
+import at.technikum_wien.metrics.LatencyHistogram;
+import at.technikum_wien.models.execeptions.DataAccessException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//bounded JDBC connection pool
+//connections handed out are proxies -> close() gives the physical connection back instead of closing it
+public class ConnectionPool implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final PoolConfig config;
+
+    private static final String REPOSITORY_PACKAGE = "at.technikum_wien.database.repositories.";
+    private static final StackWalker CALLER_WALKER = StackWalker.getInstance();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private int total = 0;
+    private int waiters = 0;
+    private boolean closed = false;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final ScheduledExecutorService maintenance;
+    private volatile ConnectionUsageListener usageListener;
+
+    public ConnectionPool(ConnectionFactory factory, PoolConfig config) {
+        this.factory = factory;
+        this.config = config;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mrp-db-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.maintenanceInterval().toMillis();
+        maintenance.scheduleWithFixedDelay(this::runMaintenance, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() {
+        long start = System.nanoTime();
+        long deadline = start + config.acquireTimeout().toNanos();
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean createNew = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new DataAccessException("Connection pool is closed", null);
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst(); //LIFO keeps the hot connections hot
+                        break;
+                    }
+                    if (total < config.maxSize()) {
+                        total++;
+                        createNew = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        acquireTimeouts.incrementAndGet();
+                        throw new DataAccessException("Timed out after " + config.acquireTimeout().toMillis() + "ms waiting for a database connection", null);
+                    }
+                    waiters++;
+                    try {
+                        connectionAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DataAccessException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (createNew) {
+                candidate = openConnection();
+            } else if (!validate(candidate)) {
+                destroy(candidate);
+                continue;
+            }
+
+            acquireLatency.recordNanos(System.nanoTime() - start);
+            return checkOut(candidate);
+        }
+    }
+
+    //caller lookup walks the stack once per borrow, so it only happens while somebody listens
+    public void setUsageListener(ConnectionUsageListener usageListener) {
+        this.usageListener = usageListener;
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(borrowed.size(), idle.size(), waiters, total, created.get(), destroyed.get(), acquireTimeouts.get(), leaksDetected.get(), acquireLatency.snapshot());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        lock.lock();
+        try {
+            closed = true;
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pollFirst());
+                total--;
+            }
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        //borrowed connections get closed when they are handed back
+    }
+
+    //HELPERS
+    private PooledConnection openConnection() {
+        try {
+            PooledConnection connection = new PooledConnection(factory.create());
+            created.incrementAndGet();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw new DataAccessException("Database connection failed!", e);
+        }
+    }
+
+    //only ping connections that have been sitting around, everything else was fine a moment ago
+    private boolean validate(PooledConnection connection) {
+        long idleFor = System.nanoTime() - connection.lastValidatedNanos;
+        if (idleFor < config.validationInterval().toNanos()) {
+            return true;
+        }
+        try {
+            if (connection.physical.isValid(2)) {
+                connection.lastValidatedNanos = System.nanoTime();
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Pooled connection failed validation: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private Connection checkOut(PooledConnection connection) {
+        connection.borrowedAtNanos = System.nanoTime();
+        connection.borrowTrace = config.leakTraces() ? new Throwable("Connection borrowed here") : null;
+        connection.borrowThread = Thread.currentThread().getName();
+        connection.leakReported = false;
+        connection.caller = usageListener != null ? findCaller() : null;
+        borrowed.add(connection);
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, new Handle(connection));
+    }
+
+    private void giveBack(PooledConnection connection) {
+        borrowed.remove(connection);
+        reportUsage(connection);
+
+        boolean reusable;
+        try {
+            reusable = !connection.physical.isClosed();
+            if (reusable && !connection.physical.getAutoCommit()) {
+                //never hand out a connection with an open transaction
+                connection.physical.rollback();
+                connection.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                connection.lastValidatedNanos = System.nanoTime();
+                connection.lastUsedNanos = connection.lastValidatedNanos;
+                idle.offerFirst(connection);
+                connectionAvailable.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(connection);
+    }
+
+    private void reportUsage(PooledConnection connection) {
+        ConnectionUsageListener listener = usageListener;
+        String caller = connection.caller;
+        if (listener == null || caller == null) {
+            return;
+        }
+        connection.caller = null;
+        try {
+            listener.onConnectionReleased(caller, System.nanoTime() - connection.borrowedAtNanos);
+        } catch (RuntimeException e) {
+            System.err.println("Error reporting connection usage: " + e.getMessage());
+        }
+    }
+
+    //first repository frame on the stack -> "MediaRepository.getById", everything else counts as "other"
+    private static String findCaller() {
+        return CALLER_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(REPOSITORY_PACKAGE))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(REPOSITORY_PACKAGE.length()) + "." + frame.getMethodName())
+                .orElse("other"));
+    }
+
+    private void destroy(PooledConnection connection) {
+        closeQuietly(connection);
+        lock.lock();
+        try {
+            total--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(PooledConnection connection) {
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+        destroyed.incrementAndGet();
+    }
+
+    private void runMaintenance() {
+        try {
+            evictIdleConnections();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        long idleTimeout = config.idleTimeout().toNanos();
+
+        lock.lock();
+        try {
+            //oldest connections are at the tail
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && total > config.minSize()) {
+                PooledConnection connection = iterator.next();
+                if (now - connection.lastUsedNanos < idleTimeout) {
+                    break;
+                }
+                iterator.remove();
+                closeQuietly(connection);
+                total--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        long threshold = config.leakThreshold().toNanos();
+        for (PooledConnection connection : borrowed) {
+            if (!connection.leakReported && now - connection.borrowedAtNanos > threshold) {
+                connection.leakReported = true;
+                leaksDetected.incrementAndGet();
+                System.err.println("Possible connection leak: connection held for more than " + config.leakThreshold().toMillis() + "ms by thread " + connection.borrowThread);
+                Throwable trace = connection.borrowTrace;
+                if (trace != null) {
+                    trace.printStackTrace();
+                } else {
+                    System.err.println("Run with -Dmrp.db.pool.leakTraces=true to see where it was borrowed");
+                }
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= config.minSize()) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection connection;
+            try {
+                connection = openConnection();
+            } catch (DataAccessException e) {
+                return; //database is down, try again next round
+            }
+            giveBack(connection);
+        }
+    }
+
+    private static final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedNanos;
+        private volatile long lastValidatedNanos;
+        private volatile long borrowedAtNanos;
+        private volatile Throwable borrowTrace;
+        private volatile String borrowThread;
+        private volatile boolean leakReported;
+        private volatile String caller;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.lastUsedNanos = System.nanoTime();
+            this.lastValidatedNanos = lastUsedNanos;
+        }
+    }
+
+    //one handle per borrow, so a stale reference can't touch a connection somebody else is using now
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection connection;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Handle(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        giveBack(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || connection.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + connection.physical;
+                default:
+                    if (released.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(connection.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
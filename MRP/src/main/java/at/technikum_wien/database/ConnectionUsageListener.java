@@ -0,0 +1,7 @@
+package at.technikum_wien.database;
+
+//told how long a borrowed connection was held and by whom (e.g. "MediaRepository.getById")
+@FunctionalInterface
+public interface ConnectionUsageListener {
+    void onConnectionReleased(String caller, long heldNanos);
+}
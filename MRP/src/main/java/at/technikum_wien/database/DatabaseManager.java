@@ -1,10 +1,7 @@
 package at.technikum_wien.database;
 
-import at.technikum_wien.models.execeptions.DataAccessException;
-
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.SQLException;
 
 public enum DatabaseManager {
     INSTANCE;
@@ -13,17 +10,64 @@ public enum DatabaseManager {
     private static String user = "mrp_user";
     private static String password = "mrp_pwd";
 
+    private static PoolConfig poolConfig = PoolConfig.fromSystemProperties();
+    private static volatile ConnectionPool pool;
+    private static volatile ConnectionUsageListener usageListener;
+
     public void overrideForTests(String url, String user, String password) {
         this.url = url;
         this.user = user;
         this.password = password;
+        closePool(); //next getConnection() builds a pool for the new database
     }
 
+    public void configurePool(PoolConfig config) {
+        poolConfig = config;
+        closePool();
+    }
+
+    //connections come from the pool -> closing them hands them back instead of dropping the TCP connection
     public static Connection getConnection() {
-        try {
-            return DriverManager.getConnection(url, user, password);
-        } catch (SQLException e) {
-            throw new DataAccessException("Database connection failed!", e);
+        ConnectionPool current = pool;
+        if (current == null) {
+            current = createPool();
+        }
+        return current.borrow();
+    }
+
+    //per repository method connection hold times (metrics)
+    public void setUsageListener(ConnectionUsageListener listener) {
+        usageListener = listener;
+        ConnectionPool current = pool;
+        if (current != null) {
+            current.setUsageListener(listener);
+        }
+    }
+
+    public PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    public void shutdown() {
+        closePool();
+    }
+
+    private static synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static synchronized ConnectionPool createPool() {
+        if (pool == null) {
+            String poolUrl = url;
+            String poolUser = user;
+            String poolPassword = password;
+            pool = new ConnectionPool(() -> DriverManager.getConnection(poolUrl, poolUser, poolPassword), poolConfig);
+            pool.setUsageListener(usageListener);
         }
+        return pool;
     }
 }
@@ -0,0 +1,230 @@
+package at.technikum_wien.database;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+//read-through cache for entities by id, bounded by size and TTL
+//eviction is segmented LRU: new entries start in probation, a second hit promotes them to the protected segment,
+//so a scan over many ids once (e.g. a list page) can't push out the entries that are used all the time
+//the key space is striped over independently locked segments; entities are mutable, so callers always get a copy
+public class EntityCache<V> {
+    private static final int MAX_STRIPES = 16;
+
+    private final String name;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+    private final LongSupplier nanoClock;
+    private final Stripe<V>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(String name, int maxSize, Duration ttl, UnaryOperator<V> copier) {
+        this(name, maxSize, ttl, copier, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    EntityCache(String name, int maxSize, Duration ttl, UnaryOperator<V> copier, LongSupplier nanoClock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.copier = copier;
+        this.nanoClock = nanoClock;
+
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, maxSize / 64)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(Math.max(1, maxSize / stripeCount));
+        }
+    }
+
+    //mrp.cache.<name>.maxSize (default 10000) and mrp.cache.ttlSeconds (default 60)
+    public static <V> EntityCache<V> configured(String name, UnaryOperator<V> copier) {
+        int maxSize = Integer.getInteger("mrp.cache." + name + ".maxSize", 10_000);
+        Duration ttl = Duration.ofSeconds(Long.getLong("mrp.cache.ttlSeconds", 60));
+        return new EntityCache<>(name, maxSize, ttl, copier);
+    }
+
+    //null results are not cached
+    public V get(int id, IntFunction<V> loader) {
+        Stripe<V> stripe = stripeFor(id);
+        long now = nanoClock.getAsLong();
+        long version;
+
+        stripe.lock.lock();
+        try {
+            V cached = stripe.get(id, now);
+            if (cached != null) {
+                hits.increment();
+                return copier.apply(cached);
+            }
+            version = stripe.version;
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        misses.increment();
+        V loaded = loader.apply(id); //outside the lock, the database is the slow part
+        if (loaded == null) {
+            return null;
+        }
+
+        V stored = copier.apply(loaded);
+        stripe.lock.lock();
+        try {
+            //something in this stripe was invalidated while loading -> the value may already be stale, don't keep it
+            if (stripe.version == version) {
+                evictions.add(stripe.put(id, stored, nanoClock.getAsLong() + ttlNanos));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(int id) {
+        Stripe<V> stripe = stripeFor(id);
+        stripe.lock.lock();
+        try {
+            stripe.remove(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    //for changes that don't come with an id, e.g. ratings removed by a cascading delete
+    public void invalidateIf(Predicate<V> predicate) {
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.removeIf(predicate);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        invalidateIf(value -> true);
+    }
+
+    public CacheStats getStats() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return new CacheStats(name, size, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    //HELPERS
+    private Stripe<V> stripeFor(int id) {
+        int hash = id * 0x9E3779B9; //spread sequential ids
+        return stripes[(hash >>> 16) & (stripes.length - 1)];
+    }
+
+    public record CacheStats(String name, int size, long hits, long misses, long evictions) {
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    //access ordered maps: first entry = least recently used
+    private static final class Stripe<V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Integer, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Integer, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+        private final int protectedCapacity;
+        private long version;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(1, capacity * 4 / 5);
+        }
+
+        private V get(int id, long now) {
+            Entry<V> entry = protectedSegment.get(id);
+            if (entry == null) {
+                entry = probation.get(id);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.expiresAtNanos() - now <= 0) {
+                    probation.remove(id);
+                    return null;
+                }
+                //second hit -> promote, the protected LRU entry gets another chance in probation
+                probation.remove(id);
+                protectedSegment.put(id, entry);
+                if (protectedSegment.size() > protectedCapacity) {
+                    Iterator<Map.Entry<Integer, Entry<V>>> oldest = protectedSegment.entrySet().iterator();
+                    Map.Entry<Integer, Entry<V>> demoted = oldest.next();
+                    oldest.remove();
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+                return entry.value();
+            }
+            if (entry.expiresAtNanos() - now <= 0) {
+                protectedSegment.remove(id);
+                return null;
+            }
+            return entry.value();
+        }
+
+        //returns the number of evicted entries
+        private int put(int id, V value, long expiresAtNanos) {
+            Entry<V> entry = new Entry<>(value, expiresAtNanos);
+            if (protectedSegment.containsKey(id)) {
+                protectedSegment.put(id, entry);
+                return 0;
+            }
+            probation.put(id, entry);
+
+            int evicted = 0;
+            while (size() > capacity) {
+                LinkedHashMap<Integer, Entry<V>> victims = probation.isEmpty() ? protectedSegment : probation;
+                Iterator<Integer> oldest = victims.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        private void remove(int id) {
+            version++;
+            probation.remove(id);
+            protectedSegment.remove(id);
+        }
+
+        private void removeIf(Predicate<V> predicate) {
+            version++;
+            probation.values().removeIf(entry -> predicate.test(entry.value()));
+            protectedSegment.values().removeIf(entry -> predicate.test(entry.value()));
+        }
+
+        private int size() {
+            return probation.size() + protectedSegment.size();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package at.technikum_wien.database;
+
+import at.technikum_wien.models.execeptions.DataAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+//applies the numbered scripts in db/migration once each and records them in schema_migrations
+//runs in one transaction under an advisory lock, so parallel starts don't apply the same script twice
+public class MigrationRunner {
+    private static final String LOCATION = "/db/migration/";
+    private static final long LOCK_KEY = 0x4D52505F4D494752L; //"MRP_MIGR"
+
+    //new scripts are appended here, file names are V<version>__<description>.sql
+    private static final List<String> SCRIPTS = List.of(
+            "V1__access_path_indexes.sql",
+            "V2__media_full_text_search.sql",
+            "V3__ratings_created_at_not_null.sql"
+    );
+
+    private final List<Migration> migrations;
+
+    public MigrationRunner() {
+        this(loadMigrations(SCRIPTS));
+    }
+
+    MigrationRunner(List<Migration> migrations) {
+        this.migrations = migrations;
+    }
+
+    public static int migrate() {
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            return new MigrationRunner().migrate(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error running migrations", e);
+        }
+    }
+
+    //returns the number of scripts applied
+    public int migrate(Connection conn) {
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS schema_migrations
+                        (
+                            version     INT PRIMARY KEY,
+                            description VARCHAR(255) NOT NULL,
+                            checksum    BIGINT       NOT NULL,
+                            applied_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                        )""");
+            }
+
+            Map<Integer, Long> applied = loadApplied(conn);
+            int count = 0;
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.version());
+                if (checksum != null) {
+                    if (checksum != migration.checksum()) {
+                        System.err.println("Warning: migration V" + migration.version() + " was changed after it was applied");
+                    }
+                    continue;
+                }
+                apply(conn, migration);
+                count++;
+            }
+
+            conn.commit();
+            if (count > 0) {
+                System.out.println("Applied " + count + " database migration(s)");
+            }
+            return count;
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            throw new DataAccessException("Error running migrations", e);
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                System.err.println("Error restoring auto-commit: " + e.getMessage());
+            }
+        }
+    }
+
+    public List<Migration> getMigrations() {
+        return migrations;
+    }
+
+    //HELPERS
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(migration.sql()); //the driver sends multi-statement scripts as one batch
+        } catch (SQLException e) {
+            throw new SQLException("Migration V" + migration.version() + " failed: " + e.getMessage(), e.getSQLState(), e);
+        }
+
+        String sql = "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.version());
+            pstmt.setString(2, migration.description());
+            pstmt.setLong(3, migration.checksum());
+            pstmt.executeUpdate();
+        }
+    }
+
+    private Map<Integer, Long> loadApplied(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back migrations: " + e.getMessage());
+        }
+    }
+
+    static List<Migration> loadMigrations(List<String> scripts) {
+        List<Migration> result = new ArrayList<>();
+        int lastVersion = 0;
+        for (String script : scripts) {
+            Migration migration = Migration.parse(script, readScript(script));
+            if (migration.version() <= lastVersion) {
+                throw new IllegalStateException("Migrations must be listed in ascending version order: " + script);
+            }
+            lastVersion = migration.version();
+            result.add(migration);
+        }
+        return result;
+    }
+
+    private static String readScript(String name) {
+        try (InputStream in = MigrationRunner.class.getResourceAsStream(LOCATION + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading migration script " + name, e);
+        }
+    }
+
+    public record Migration(int version, String description, String sql, long checksum) {
+        static Migration parse(String fileName, String sql) {
+            int separator = fileName.indexOf("__");
+            if (!fileName.startsWith("V") || separator < 2 || !fileName.endsWith(".sql")) {
+                throw new IllegalArgumentException("Invalid migration file name: " + fileName);
+            }
+            int version = Integer.parseInt(fileName.substring(1, separator));
+            String description = fileName.substring(separator + 2, fileName.length() - 4).replace('_', ' ');
+
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            return new Migration(version, description, sql, crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package at.technikum_wien.database;
+
+import java.time.Duration;
+
+//settings for the connection pool, every value can be overridden with -Dmrp.db.pool.<name>=<value>
+//leakTraces captures a stack trace on every borrow so a leak report shows where the connection was taken -> for debugging only
+public record PoolConfig(int minSize, int maxSize, Duration acquireTimeout, Duration idleTimeout, Duration validationInterval, Duration leakThreshold, Duration maintenanceInterval, boolean leakTraces) {
+
+    public PoolConfig {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+    }
+
+    public static PoolConfig defaults() {
+        return new PoolConfig(2, 10, Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(60), Duration.ofSeconds(15), false);
+    }
+
+    public static PoolConfig fromSystemProperties() {
+        PoolConfig defaults = defaults();
+        return new PoolConfig(
+                Integer.getInteger("mrp.db.pool.minSize", defaults.minSize()),
+                Integer.getInteger("mrp.db.pool.maxSize", defaults.maxSize()),
+                Duration.ofMillis(Long.getLong("mrp.db.pool.acquireTimeoutMs", defaults.acquireTimeout().toMillis())),
+                Duration.ofMillis(Long.getLong("mrp.db.pool.idleTimeoutMs", defaults.idleTimeout().toMillis())),
+                Duration.ofMillis(Long.getLong("mrp.db.pool.validationIntervalMs", defaults.validationInterval().toMillis())),
+                Duration.ofMillis(Long.getLong("mrp.db.pool.leakThresholdMs", defaults.leakThreshold().toMillis())),
+                Duration.ofMillis(Long.getLong("mrp.db.pool.maintenanceIntervalMs", defaults.maintenanceInterval().toMillis())),
+                Boolean.parseBoolean(System.getProperty("mrp.db.pool.leakTraces", String.valueOf(defaults.leakTraces())))
+        );
+    }
+}
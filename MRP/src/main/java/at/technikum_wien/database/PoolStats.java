@@ -0,0 +1,7 @@
+package at.technikum_wien.database;
+
+import at.technikum_wien.metrics.LatencyHistogram;
+
+//point-in-time view of the connection pool
+public record PoolStats(int active, int idle, int waiters, int total, long created, long destroyed, long acquireTimeouts, long leaksDetected, LatencyHistogram.Snapshot acquireLatency) {
+}
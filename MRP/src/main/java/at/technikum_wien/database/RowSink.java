@@ -0,0 +1,9 @@
+package at.technikum_wien.database;
+
+import java.io.IOException;
+
+//receives rows one by one while a cursor is open, e.g. to write them straight into a response
+@FunctionalInterface
+public interface RowSink<T> {
+    void accept(T row) throws IOException;
+}
@@ -0,0 +1,89 @@
+package at.technikum_wien.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+//assembles a SELECT from optional conditions, every value goes through a ? placeholder
+public class SqlQueryBuilder {
+    private final String select;
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+    private final List<String> orderBy = new ArrayList<>();
+    private final List<Object> orderParameters = new ArrayList<>();
+    private Integer limit;
+    private Integer offset;
+
+    public SqlQueryBuilder(String select) {
+        this.select = select;
+    }
+
+    public SqlQueryBuilder where(String condition, Object... values) {
+        conditions.add(condition);
+        parameters.addAll(List.of(values));
+        return this;
+    }
+
+    //only trusted, hard coded expressions -> never pass user input here, values go through ? like in where()
+    public SqlQueryBuilder orderBy(String expression, Object... values) {
+        orderBy.add(expression);
+        orderParameters.addAll(List.of(values));
+        return this;
+    }
+
+    public SqlQueryBuilder limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public SqlQueryBuilder offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public String toSql() {
+        StringBuilder sql = new StringBuilder(select);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (!orderBy.isEmpty()) {
+            sql.append(" ORDER BY ").append(String.join(", ", orderBy));
+        }
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+        }
+        if (offset != null) {
+            sql.append(" OFFSET ?");
+        }
+        return sql.toString();
+    }
+
+    public List<Object> getParameters() {
+        List<Object> all = new ArrayList<>(parameters);
+        all.addAll(orderParameters);
+        if (limit != null) all.add(limit);
+        if (offset != null) all.add(offset);
+        return all;
+    }
+
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(toSql());
+        try {
+            List<Object> all = getParameters();
+            for (int i = 0; i < all.size(); i++) {
+                pstmt.setObject(i + 1, all.get(i));
+            }
+            return pstmt;
+        } catch (SQLException e) {
+            pstmt.close();
+            throw e;
+        }
+    }
+
+    //escapes LIKE wildcards so user input only matches literally
+    public static String likeContains(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
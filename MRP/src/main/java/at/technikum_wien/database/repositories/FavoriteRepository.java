@@ -53,7 +53,7 @@ public class FavoriteRepository {
     }
 
     public List<Media> getUserFavorites(int userId) {
-        String sql = "SELECT m.*, array_agg(g.name) as genres " + "FROM favorites f " + "JOIN media m ON f.media_id = m.id " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "WHERE f.user_id = ? " + "GROUP BY m.id ";
+        String sql = "SELECT " + MediaRepository.MEDIA_COLUMNS + ", array_agg(g.name) as genres " + "FROM favorites f " + "JOIN media m ON f.media_id = m.id " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "WHERE f.user_id = ? " + "GROUP BY m.id ";
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             return executeMediaQuery(pstmt);
@@ -63,6 +63,20 @@ public class FavoriteRepository {
         }
     }
 
+    //ordered by media id, the (user_id, media_id) primary key serves each page directly
+    public List<Media> getUserFavoritesPage(int userId, int afterMediaId, int limit) {
+        String sql = "SELECT " + MediaRepository.MEDIA_COLUMNS + ", ARRAY(SELECT g.name FROM media_genres mg JOIN genres g ON mg.genre_id = g.genre_id WHERE mg.media_id = m.id) AS genres " + "FROM favorites f " + "JOIN media m ON f.media_id = m.id " + "WHERE f.user_id = ? AND f.media_id > ? " + "ORDER BY f.media_id " + "LIMIT ?";
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, afterMediaId);
+            pstmt.setInt(3, limit);
+            return executeMediaQuery(pstmt);
+        } catch (SQLException e) {
+            System.err.println("Error getting user favorites page: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
     public int getFavoriteCountForMedia(int mediaId) {
         String sql = "SELECT COUNT(*) as favorite_count FROM favorites WHERE media_id=?";
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -1,5 +1,141 @@
 package at.technikum_wien.database.repositories;
 
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.models.execeptions.DataAccessException;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//genre name <-> id dictionary, loaded once and kept in memory (genres are only ever added)
+//lookups are case-insensitive, unknown names are created together in one statement
 public class GenreRepository {
-    //there used to be stuff here but its in the media repo now. maybe if I have too much time i will split it again
+    //new genres are stored lowercase (as before), existing ones are matched on LOWER(name)
+    private static final String GET_OR_CREATE_SQL = """
+            WITH input(name) AS (SELECT DISTINCT unnest(?::text[])),
+            created AS (
+                INSERT INTO genres (name)
+                SELECT i.name FROM input i
+                WHERE NOT EXISTS (SELECT 1 FROM genres g WHERE LOWER(g.name) = i.name)
+                ON CONFLICT (name) DO NOTHING
+                RETURNING genre_id, name
+            )
+            SELECT genre_id, name FROM created
+            UNION ALL
+            SELECT g.genre_id, g.name FROM genres g JOIN input i ON LOWER(g.name) = i.name
+            ORDER BY genre_id
+            """;
+
+    private final ConcurrentHashMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> namesById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public Integer getId(String name) {
+        ensureLoaded();
+        return name == null ? null : idsByName.get(normalize(name));
+    }
+
+    public String getName(int genreId) {
+        ensureLoaded();
+        return namesById.get(genreId);
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    //lowercase name -> id for every non-blank name, creating the missing ones on the given connection
+    public Map<String, Integer> getOrCreateIds(Connection conn, Collection<String> names) throws SQLException {
+        ensureLoaded(conn);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                if (name == null || name.isBlank()) {
+                    continue;
+                }
+                String key = normalize(name);
+                Integer id = idsByName.get(key);
+                if (id != null) {
+                    result.put(key, id);
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+
+        //a name created concurrently by another transaction is not visible to the first statement, the retry sees it
+        for (int attempt = 0; attempt < 2 && !missing.isEmpty(); attempt++) {
+            try (PreparedStatement pstmt = conn.prepareStatement(GET_OR_CREATE_SQL)) {
+                Array array = conn.createArrayOf("text", missing.toArray(new String[0]));
+                pstmt.setArray(1, array);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String key = remember(rs.getInt("genre_id"), rs.getString("name"));
+                        if (missing.remove(key)) {
+                            result.put(key, idsByName.get(key));
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            System.err.println("Could not resolve genres: " + missing);
+        }
+        return result;
+    }
+
+    //HELPERS
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            ensureLoaded(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading genres", e);
+        }
+    }
+
+    private void ensureLoaded(Connection conn) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT genre_id, name FROM genres ORDER BY genre_id")) {
+                while (rs.next()) {
+                    remember(rs.getInt("genre_id"), rs.getString("name"));
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    //the lowest id wins when the table holds several spellings of one name
+    //package-private: MediaRepository's bulk import creates genres in SQL and reports them here
+    String remember(int genreId, String name) {
+        String key = normalize(name);
+        idsByName.merge(key, genreId, Math::min);
+        namesById.put(genreId, name);
+        return key;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
 }
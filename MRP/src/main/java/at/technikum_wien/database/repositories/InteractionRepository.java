@@ -0,0 +1,39 @@
+package at.technikum_wien.database.repositories;
+
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.models.entities.Interaction;
+import at.technikum_wien.models.execeptions.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class InteractionRepository {
+    //ratings and favorites merged into one row per (user, media), ratings are not unique per pair -> highest wins
+    private static final String LOAD_ALL_SQL = """
+            SELECT COALESCE(r.user_id, f.user_id)   AS user_id,
+                   COALESCE(r.media_id, f.media_id) AS media_id,
+                   COALESCE(r.stars, 0)             AS stars,
+                   f.user_id IS NOT NULL            AS favorite
+            FROM (SELECT user_id, media_id, MAX(stars) AS stars
+                  FROM ratings
+                  WHERE user_id IS NOT NULL AND media_id IS NOT NULL
+                  GROUP BY user_id, media_id) r
+            FULL OUTER JOIN favorites f ON f.user_id = r.user_id AND f.media_id = r.media_id
+            """;
+
+    public List<Interaction> loadAll() {
+        List<Interaction> interactions = new ArrayList<>();
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(LOAD_ALL_SQL); ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                interactions.add(new Interaction(rs.getInt("user_id"), rs.getInt("media_id"), rs.getInt("stars"), rs.getBoolean("favorite")));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading user interactions", e);
+        }
+        return interactions;
+    }
+}
@@ -4,64 +4,76 @@ import at.technikum_wien.database.DatabaseManager;
 import at.technikum_wien.models.entities.LeaderboardEntry;
 import at.technikum_wien.models.entities.TopRatedMedia;
 import at.technikum_wien.models.entities.MostLikedRating;
+import at.technikum_wien.models.execeptions.DataAccessException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
+//the section queries take an optional timeout (Duration.ZERO = none): the summary passes its section budget, so a section
+//it gave up on is stopped by the database instead of holding its pooled connection; the single endpoints wait as before
 public class LeaderboardRepository {
 
-    public List<LeaderboardEntry> getMostActiveUsers(int limit) {
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        String sql = """
-            SELECT 
+    //each activity table is counted on its own and joined per user afterwards,
+    //joining the raw rows first would multiply ratings x favorites x media for every user
+    private static final String USER_ACTIVITY_SQL = """
+            SELECT
                 u.id,
                 u.username,
-                COUNT(DISTINCT r.id) as rating_count,
-                COUNT(DISTINCT f.media_id) as favorite_count,
-                COUNT(DISTINCT m.id) as media_created_count,
+                COALESCE(r.rating_count, 0) as rating_count,
+                COALESCE(f.favorite_count, 0) as favorite_count,
+                COALESCE(m.media_created_count, 0) as media_created_count,
                 (
-                    COUNT(DISTINCT r.id) * 2 + 
-                    COUNT(DISTINCT f.media_id) + 
-                    COUNT(DISTINCT m.id) * 3
+                    COALESCE(r.rating_count, 0) * 2 +
+                    COALESCE(f.favorite_count, 0) +
+                    COALESCE(m.media_created_count, 0) * 3
                 ) as activity_score
             FROM users u
-            LEFT JOIN ratings r ON u.id = r.user_id
-            LEFT JOIN favorites f ON u.id = f.user_id
-            LEFT JOIN media m ON u.id = m.creator_id
-            GROUP BY u.id, u.username
-            ORDER BY activity_score DESC
-            LIMIT ?
+            LEFT JOIN (SELECT user_id, COUNT(*) as rating_count FROM ratings GROUP BY user_id) r ON r.user_id = u.id
+            LEFT JOIN (SELECT user_id, COUNT(*) as favorite_count FROM favorites GROUP BY user_id) f ON f.user_id = u.id
+            LEFT JOIN (SELECT creator_id, COUNT(*) as media_created_count FROM media GROUP BY creator_id) m ON m.creator_id = u.id
             """;
 
+    public List<LeaderboardEntry> getMostActiveUsers(int limit) {
+        return getMostActiveUsers(limit, Duration.ZERO);
+    }
+
+    public List<LeaderboardEntry> getMostActiveUsers(int limit, Duration queryTimeout) {
+        String sql = USER_ACTIVITY_SQL + "ORDER BY activity_score DESC, u.id\nLIMIT ?";
+
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            stmt.setQueryTimeout(timeoutSeconds(queryTimeout));
             stmt.setInt(1, limit);
-            ResultSet rs = stmt.executeQuery();
+            return readLeaderboardEntries(stmt);
 
-            while (rs.next()) {
-                LeaderboardEntry entry = new LeaderboardEntry(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getInt("rating_count"),
-                        rs.getInt("favorite_count"),
-                        rs.getInt("media_created_count"),
-                        rs.getInt("activity_score")
-                );
-                entries.add(entry);
-            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading most active users", e);
+        }
+    }
+
+    //activity counters of every user, used to (re)build the in-memory leaderboard
+    public List<LeaderboardEntry> getAllUserActivity() {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(USER_ACTIVITY_SQL)) {
+
+            return readLeaderboardEntries(stmt);
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new DataAccessException("Error loading user activity", e);
         }
-        return entries;
     }
 
     public List<TopRatedMedia> getTopRatedMedia(int limit) {
+        return getTopRatedMedia(limit, Duration.ZERO);
+    }
+
+    public List<TopRatedMedia> getTopRatedMedia(int limit, Duration queryTimeout) {
         List<TopRatedMedia> mediaList = new ArrayList<>();
         String sql = """
             SELECT 
@@ -82,6 +94,7 @@ public class LeaderboardRepository {
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            stmt.setQueryTimeout(timeoutSeconds(queryTimeout));
             stmt.setInt(1, limit);
             ResultSet rs = stmt.executeQuery();
 
@@ -98,12 +111,16 @@ public class LeaderboardRepository {
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new DataAccessException("Error loading top rated media", e);
         }
         return mediaList;
     }
 
     public List<MostLikedRating> getMostLikedRatings(int limit) {
+        return getMostLikedRatings(limit, Duration.ZERO);
+    }
+
+    public List<MostLikedRating> getMostLikedRatings(int limit, Duration queryTimeout) {
         List<MostLikedRating> ratings = new ArrayList<>();
         String sql = """
             SELECT 
@@ -126,6 +143,7 @@ public class LeaderboardRepository {
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            stmt.setQueryTimeout(timeoutSeconds(queryTimeout));
             stmt.setInt(1, limit);
             ResultSet rs = stmt.executeQuery();
 
@@ -142,12 +160,16 @@ public class LeaderboardRepository {
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new DataAccessException("Error loading most liked ratings", e);
         }
         return ratings;
     }
 
     public List<String> getTrendingGenres() {
+        return getTrendingGenres(Duration.ZERO);
+    }
+
+    public List<String> getTrendingGenres(Duration queryTimeout) {
         List<String> genres = new ArrayList<>();
         String sql = """
             SELECT 
@@ -163,16 +185,42 @@ public class LeaderboardRepository {
             """;
 
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                genres.add(rs.getString("name"));
+            stmt.setQueryTimeout(timeoutSeconds(queryTimeout));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    genres.add(rs.getString("name"));
+                }
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new DataAccessException("Error loading trending genres", e);
         }
         return genres;
     }
+
+    //HELPERS
+    //JDBC timeouts are whole seconds, round up so a section is never cut off before the summary deadline
+    private static int timeoutSeconds(Duration queryTimeout) {
+        return (int) Math.ceil(queryTimeout.toMillis() / 1000.0);
+    }
+
+    private List<LeaderboardEntry> readLeaderboardEntries(PreparedStatement stmt) throws SQLException {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                LeaderboardEntry entry = new LeaderboardEntry(
+                        rs.getInt("id"),
+                        rs.getString("username"),
+                        rs.getInt("rating_count"),
+                        rs.getInt("favorite_count"),
+                        rs.getInt("media_created_count"),
+                        rs.getInt("activity_score")
+                );
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
 }
\ No newline at end of file
@@ -1,16 +1,72 @@
 package at.technikum_wien.database.repositories;
 
 import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.database.EntityCache;
+import at.technikum_wien.database.RowSink;
+import at.technikum_wien.database.SqlQueryBuilder;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import at.technikum_wien.models.execeptions.DataAccessException;
 import at.technikum_wien.models.interfaces.IRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 public class MediaRepository implements IRepository<Media> {
+    //explicit list instead of m.* -> the search_vector column never travels to the JVM
+    public static final String MEDIA_COLUMNS = "m.id, m.type, m.title, m.description, m.release_year, m.age_restriction, m.creator_id";
+    //same configuration as the generated column, otherwise the GIN index does not match
+    private static final String TS_QUERY = "websearch_to_tsquery('english', ?)";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    //BULK IMPORT -> staging table filled by COPY, then merged set-wise
+    //ids come from the media sequence while copying, so genre links can be joined without RETURNING per row
+    private static final String IMPORT_STAGING_SQL = "CREATE TEMP TABLE media_import (media_id INT NOT NULL DEFAULT nextval('%s'), type TEXT, title TEXT, description TEXT, release_year INT, age_restriction INT, creator_id INT, genres TEXT[]) ON COMMIT DROP";
+    private static final String IMPORT_COPY_SQL = "COPY media_import (type, title, description, release_year, age_restriction, creator_id, genres) FROM STDIN";
+    //genre names arrive normalized (trimmed, lowercase), new ones are stored like GenreRepository stores them
+    //the created rows are handed to GenreRepository after the commit, so its dictionary does not miss them
+    private static final String IMPORT_GENRES_SQL = """
+            INSERT INTO genres (name)
+            SELECT DISTINCT g.name FROM media_import i CROSS JOIN unnest(i.genres) AS g(name)
+            WHERE NOT EXISTS (SELECT 1 FROM genres x WHERE LOWER(x.name) = g.name)
+            ON CONFLICT (name) DO NOTHING
+            RETURNING genre_id, name
+            """;
+    private static final String IMPORT_MEDIA_SQL = """
+            INSERT INTO media (id, type, title, description, release_year, age_restriction, creator_id)
+            SELECT media_id, type, title, description, release_year, age_restriction, creator_id FROM media_import
+            """;
+    //the lowest id wins when a name exists in several spellings, same as GenreRepository
+    private static final String IMPORT_LINKS_SQL = """
+            INSERT INTO media_genres (media_id, genre_id)
+            SELECT i.media_id, MIN(x.genre_id) FROM media_import i CROSS JOIN unnest(i.genres) AS g(name) JOIN genres x ON LOWER(x.name) = g.name
+            GROUP BY i.media_id, g.name
+            ON CONFLICT (media_id, genre_id) DO NOTHING
+            """;
+
+    private final GenreRepository genreRepository;
+    private final EntityCache<Media> cache = EntityCache.configured("media", Media::copy);
+
+    public MediaRepository() {
+        this(new GenreRepository());
+    }
+
+    public MediaRepository(GenreRepository genreRepository) {
+        this.genreRepository = genreRepository;
+    }
+
+    //media row and genre links are written in one transaction
     @Override
     public Media save(Media media) {
         String sql = "";
@@ -23,6 +79,9 @@ public class MediaRepository implements IRepository<Media> {
         }
 
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = isInsert ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : conn.prepareStatement(sql)) {
+            //genres are resolved (and created) before the transaction, so a rollback never leaves unknown ids in the dictionary
+            Collection<Integer> genreIds = genreRepository.getOrCreateIds(conn, media.getGenres()).values();
+            conn.setAutoCommit(false); //the pool rolls back and restores auto-commit when the connection is returned
             if (isInsert) {
                 pstmt.setString(1, String.valueOf(media.getType()));
                 pstmt.setString(2, media.getTitle());
@@ -49,7 +108,9 @@ public class MediaRepository implements IRepository<Media> {
                         }
                     }
                 }
-                saveGenres(conn, media.getId(), media.getGenres());
+                saveGenres(conn, media.getId(), genreIds);
+                conn.commit();
+                cache.invalidate(media.getId());
                 return media;
             }
         } catch (SQLException e) {
@@ -68,12 +129,23 @@ public class MediaRepository implements IRepository<Media> {
             pstmt.executeUpdate();
         } catch (SQLException e) {
             System.err.println("Error deleting media: " + e.getMessage());
+        } finally {
+            cache.invalidate(media.getId());
         }
     }
 
+    //read-through, services look up the same media several times per request
     @Override
     public Media getById(int id) {
-        String sql = "SELECT m.*, array_agg(g.name) as genres " + "FROM media m " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "WHERE m.id = ? " + "GROUP BY m.id";
+        return cache.get(id, this::loadById);
+    }
+
+    public EntityCache.CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private Media loadById(int id) {
+        String sql = "SELECT " + MEDIA_COLUMNS + ", array_agg(g.name) as genres " + "FROM media m " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "WHERE m.id = ? " + "GROUP BY m.id";
 
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
@@ -90,7 +162,7 @@ public class MediaRepository implements IRepository<Media> {
     }
 
     public List<Media> getAllMedia() {
-        String sql = "SELECT m.*, array_agg(g.name) as genres " + "FROM media m " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "GROUP BY m.id " + "ORDER BY m.id";
+        String sql = "SELECT " + MEDIA_COLUMNS + ", array_agg(g.name) as genres " + "FROM media m " + "LEFT JOIN media_genres mg ON m.id = mg.media_id " + "LEFT JOIN genres g ON mg.genre_id = g.genre_id " + "GROUP BY m.id " + "ORDER BY m.id";
 
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             return executeMediaQuery(pstmt);
@@ -100,84 +172,216 @@ public class MediaRepository implements IRepository<Media> {
         }
     }
 
-    //genre Stuff
-    private Set<Integer> getCurrentGenreIds(Connection conn, int mediaId) throws SQLException {
-        Set<Integer> genreIds = new HashSet<>();
-        String sql = "SELECT genre_id FROM media_genres WHERE media_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, mediaId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    genreIds.add(rs.getInt("genre_id"));
+    //every media in id order through a server-side cursor -> only fetchSize rows are in memory at a time
+    public long exportAll(RowSink<Media> sink, int fetchSize) throws IOException {
+        String sql = "SELECT " + MEDIA_COLUMNS + ", ARRAY(SELECT g.name FROM media_genres mg JOIN genres g ON mg.genre_id = g.genre_id WHERE mg.media_id = m.id) AS genres " + "FROM media m " + "ORDER BY m.id";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            conn.setAutoCommit(false); //pgjdbc only fetches in batches inside a transaction
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(mapResultSetToMedia(rs));
+                        count++;
+                    }
                 }
+                conn.commit();
+                return count;
             }
+        } catch (SQLException e) {
+            System.err.println("Error exporting media: " + e.getMessage());
+            throw new DataAccessException("Error exporting media", e);
         }
-        return genreIds;
     }
 
-    private void saveGenres(Connection conn, int mediaId, List<String> newGenres) throws SQLException {
-        if (newGenres == null) newGenres = new ArrayList<>();
+    //keyset page ordered by id -> an index range scan from the last seen id, no matter how deep the page is
+    public List<Media> getMediaPage(int afterId, int limit) {
+        String sql = "SELECT " + MEDIA_COLUMNS + ", ARRAY(SELECT g.name FROM media_genres mg JOIN genres g ON mg.genre_id = g.genre_id WHERE mg.media_id = m.id) AS genres " + "FROM media m " + "WHERE m.id > ? " + "ORDER BY m.id " + "LIMIT ?";
 
-        Set<Integer> currentGenreIds = getCurrentGenreIds(conn, mediaId);
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, limit);
+            return executeMediaQuery(pstmt);
+        } catch (SQLException e) {
+            System.err.println("Error getting media page: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    //filters, sorting & paging happen in the database -> cost depends on the page, not on the catalog
+    //genres are fetched per returned row only, instead of aggregating them for every media entry
+    public List<Media> searchMedia(MediaSearchCriteria criteria) {
+        SqlQueryBuilder query = new SqlQueryBuilder("SELECT " + MEDIA_COLUMNS + ", ARRAY(SELECT g.name FROM media_genres mg JOIN genres g ON mg.genre_id = g.genre_id WHERE mg.media_id = m.id) AS genres FROM media m");
+
+        if (criteria.title() != null) {
+            query.where("m.title ILIKE ?", SqlQueryBuilder.likeContains(criteria.title()));
+        }
+        //?q= -> full-text match on the GIN indexed tsvector (stemmed words, "quoted phrases", -exclusions, or)
+        boolean fullText = criteria.query() != null && !criteria.query().isBlank();
+        if (fullText) {
+            query.where("m.search_vector @@ " + TS_QUERY, criteria.query());
+        }
+        if (criteria.genre() != null) {
+            query.where("EXISTS (SELECT 1 FROM media_genres mg JOIN genres g ON mg.genre_id = g.genre_id WHERE mg.media_id = m.id AND LOWER(g.name) = LOWER(?))", criteria.genre());
+        }
+        if (criteria.mediaType() != null) {
+            query.where("LOWER(m.type) = LOWER(?)", criteria.mediaType());
+        }
+        if (criteria.releaseYear() != null) {
+            query.where("m.release_year = ?", criteria.releaseYear());
+        }
+        if (criteria.ageRestriction() != null) {
+            query.where("COALESCE(m.age_restriction, 0) <= ?", criteria.ageRestriction());
+        }
+
+        String sortBy = criteria.sortBy();
+        if ("title".equalsIgnoreCase(sortBy)) {
+            query.orderBy("LOWER(m.title)");
+        } else if ("releaseYear".equalsIgnoreCase(sortBy)) {
+            query.orderBy("COALESCE(m.release_year, 0) DESC"); //newest first
+        } else if ("ageRestriction".equalsIgnoreCase(sortBy)) {
+            query.orderBy("COALESCE(m.age_restriction, 0)");
+        } else if (fullText) {
+            query.orderBy("ts_rank(m.search_vector, " + TS_QUERY + ") DESC", criteria.query()); //best match first
+        }
+        query.orderBy("m.id").limit(criteria.limit()).offset(criteria.offset());
 
-        Set<Integer> newGenreIds = new HashSet<>();
-        for (String genreName : newGenres) {
-            int genreId = getOrCreateGenreId(conn, genreName);
-            if (genreId != -1) newGenreIds.add(genreId);
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = query.prepare(conn)) {
+            return executeMediaQuery(pstmt);
+        } catch (SQLException e) {
+            System.err.println("Error searching media: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        String deleteSql = "DELETE FROM media_genres WHERE media_id = ? AND genre_id = ?";
-        try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-            for (Integer genreId : currentGenreIds) {
-                if (!newGenreIds.contains(genreId)) {
-                    deleteStmt.setInt(1, mediaId);
-                    deleteStmt.setInt(2, genreId);
-                    deleteStmt.executeUpdate();
+    //streams the rows into PostgreSQL and imports them in one transaction -> all of them or none
+    //returns the number of imported media, rows are pulled from the iterator while the COPY is running
+    public int importMedia(Iterator<Media> rows) {
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            conn.setAutoCommit(false); //the pool rolls back and restores auto-commit when the connection is returned
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(String.format(IMPORT_STAGING_SQL, mediaIdSequence(conn).replace("'", "''")));
+            }
+
+            long copied = copyImportRows(conn, rows);
+            if (copied == 0) {
+                return 0;
+            }
+            Map<Integer, String> createdGenres = new LinkedHashMap<>();
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(IMPORT_GENRES_SQL)) {
+                    while (rs.next()) {
+                        createdGenres.put(rs.getInt("genre_id"), rs.getString("name"));
+                    }
                 }
+                stmt.executeUpdate(IMPORT_MEDIA_SQL);
+                stmt.executeUpdate(IMPORT_LINKS_SQL);
             }
+            conn.commit();
+            createdGenres.forEach(genreRepository::remember); //only once committed, a rolled back genre must not be known
+            return (int) copied;
+        } catch (SQLException e) {
+            System.err.println("Error importing media: " + e.getMessage());
+            throw new DataAccessException("Error importing media", e);
+        }
+    }
+
+    //genre Stuff
+    //one statement replaces the links: drops genres no longer listed and adds the new ones
+    private void saveGenres(Connection conn, int mediaId, Collection<Integer> genreIds) throws SQLException {
+        Array genreArray = conn.createArrayOf("integer", new LinkedHashSet<>(genreIds).toArray(new Integer[0]));
+
+        String sql = "WITH removed AS (DELETE FROM media_genres WHERE media_id = ? AND genre_id <> ALL(?)) " + "INSERT INTO media_genres (media_id, genre_id) SELECT ?, g FROM unnest(?::int[]) AS g " + "ON CONFLICT (media_id, genre_id) DO NOTHING";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, mediaId);
+            pstmt.setArray(2, genreArray);
+            pstmt.setInt(3, mediaId);
+            pstmt.setArray(4, genreArray);
+            pstmt.executeUpdate();
+        }
+    }
+
+    //HELPERS
+    private static String mediaIdSequence(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT pg_get_serial_sequence('media', 'id')")) {
+            rs.next();
+            return rs.getString(1);
         }
+    }
 
-        String insertSql = "INSERT INTO media_genres (media_id, genre_id) VALUES (?, ?) ON CONFLICT (media_id, genre_id) DO NOTHING";
-        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-            for (Integer genreId : newGenreIds) {
-                if (!currentGenreIds.contains(genreId)) {
-                    insertStmt.setInt(1, mediaId);
-                    insertStmt.setInt(2, genreId);
-                    insertStmt.executeUpdate();
+    //rows are encoded into a small buffer and sent in chunks, the COPY is cancelled if reading the rows fails
+    private static long copyImportRows(Connection conn, Iterator<Media> rows) throws SQLException {
+        CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(IMPORT_COPY_SQL);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+            while (rows.hasNext()) {
+                appendCopyRow(buffer, rows.next());
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeCopyBuffer(copyIn, buffer);
                 }
             }
+            writeCopyBuffer(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
         }
     }
 
-    private int getOrCreateGenreId(Connection conn, String genreName) throws SQLException {
-        //first try to find existing genre
-        String selectSql = "SELECT genre_id FROM genres WHERE LOWER(name) = LOWER(?)";
-        try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-            selectStmt.setString(1, genreName);
-            try (ResultSet rs = selectStmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("genre_id");
-                }
+    private static void writeCopyBuffer(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    //COPY text format: tab separated, \N for NULL, backslash escapes
+    private static void appendCopyRow(StringBuilder out, Media media) {
+        appendCopyField(out, media.getType()).append('\t');
+        appendCopyField(out, media.getTitle()).append('\t');
+        appendCopyField(out, media.getDescription()).append('\t');
+        out.append(media.getRelease_year()).append('\t');
+        out.append(media.getAge_restriction()).append('\t');
+        out.append(media.getCreator_id()).append('\t');
+        appendCopyField(out, genreArrayLiteral(media.getGenres())).append('\n');
+    }
+
+    private static StringBuilder appendCopyField(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
             }
         }
+        return out;
+    }
 
-        //genre doesn't exist -> create it -> this kind of sucks because there maybe should only be ones to choose but I didnt want
-        //to have a thousand errors just bcs a genre doesnt exist
-        String insertSql = "INSERT INTO genres (name) VALUES (?) RETURNING genre_id";
-        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-            insertStmt.setString(1, genreName.toLowerCase());
-            try (ResultSet rs = insertStmt.executeQuery()) {
-                if (rs.next()) {
-                    int newGenreId = rs.getInt("genre_id");
-                    System.out.println("Created new genre: " + genreName + " with ID: " + newGenreId);
-                    return newGenreId;
+    //{"a","b"} with array quoting, the COPY escaping is applied on top
+    private static String genreArrayLiteral(List<String> genres) {
+        StringBuilder literal = new StringBuilder("{");
+        if (genres != null) {
+            for (String genre : genres) {
+                if (literal.length() > 1) {
+                    literal.append(',');
                 }
+                literal.append('"').append(genre.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
             }
         }
-        return -1;
+        return literal.append('}').toString();
     }
 
-    //HELPERS
     private Media mapResultSetToMedia(ResultSet rs) throws SQLException {
         String[] genreArray = (String[]) rs.getArray("genres").getArray();
         List<String> genres = new ArrayList<>();
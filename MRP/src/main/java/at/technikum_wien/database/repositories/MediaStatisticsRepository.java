@@ -0,0 +1,44 @@
+package at.technikum_wien.database.repositories;
+
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.models.entities.MediaStatistics;
+import at.technikum_wien.models.execeptions.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MediaStatisticsRepository {
+    //one pass over each table, aggregated before the join so nothing multiplies
+    private static final String LOAD_ALL_SQL = """
+            SELECT m.id AS media_id,
+                   COALESCE(r.rating_count, 0)   AS rating_count,
+                   COALESCE(r.star_sum, 0)       AS star_sum,
+                   COALESCE(f.favorite_count, 0) AS favorite_count,
+                   COALESCE(l.like_count, 0)     AS like_count
+            FROM media m
+            LEFT JOIN (SELECT media_id, COUNT(*) AS rating_count, SUM(stars) AS star_sum
+                       FROM ratings GROUP BY media_id) r ON r.media_id = m.id
+            LEFT JOIN (SELECT media_id, COUNT(*) AS favorite_count
+                       FROM favorites GROUP BY media_id) f ON f.media_id = m.id
+            LEFT JOIN (SELECT r2.media_id, COUNT(*) AS like_count
+                       FROM rating_likes rl JOIN ratings r2 ON r2.id = rl.rating_id
+                       GROUP BY r2.media_id) l ON l.media_id = m.id
+            """;
+
+    public Map<Integer, MediaStatistics> loadAll() {
+        Map<Integer, MediaStatistics> statistics = new HashMap<>();
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(LOAD_ALL_SQL); ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int mediaId = rs.getInt("media_id");
+                statistics.put(mediaId, new MediaStatistics(mediaId, rs.getInt("rating_count"), rs.getLong("star_sum"), rs.getInt("favorite_count"), rs.getInt("like_count")));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading media statistics", e);
+        }
+        return statistics;
+    }
+}
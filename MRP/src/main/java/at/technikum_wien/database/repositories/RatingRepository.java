@@ -1,14 +1,21 @@
 package at.technikum_wien.database.repositories;
 
 import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.database.EntityCache;
+import at.technikum_wien.database.RowSink;
 import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.RatingMatrix;
+import at.technikum_wien.models.execeptions.DataAccessException;
 import at.technikum_wien.models.interfaces.IRepository;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 public class RatingRepository implements IRepository<Rating> {
+    private final EntityCache<Rating> cache = EntityCache.configured("ratings", Rating::copy);
 
     @Override
     public Rating save(Rating rating) {
@@ -42,6 +49,8 @@ public class RatingRepository implements IRepository<Rating> {
                             rating.setId(newId);
                         }
                     }
+                } else {
+                    cache.invalidate(rating.getId());
                 }
                 return rating;
             }
@@ -60,11 +69,27 @@ public class RatingRepository implements IRepository<Rating> {
             pstmt.executeUpdate();
         } catch (SQLException e) {
             System.err.println("Error deleting rating: " + e.getMessage());
+        } finally {
+            cache.invalidate(rating.getId());
         }
     }
 
+    //read-through, services look up the same rating several times per request
     @Override
     public Rating getById(int id) {
+        return cache.get(id, this::loadById);
+    }
+
+    //ratings disappear with their media (ON DELETE CASCADE) without passing through deleteById
+    public void evictRatingsOfMedia(int mediaId) {
+        cache.invalidateIf(rating -> rating.getMedia_id() == mediaId);
+    }
+
+    public EntityCache.CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private Rating loadById(int id) {
         String sql = "SELECT * FROM ratings WHERE id = ?";
 
         try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -94,6 +119,26 @@ public class RatingRepository implements IRepository<Rating> {
         }
     }
 
+    //newest first, continues strictly after (beforeCreatedAt, beforeId) -> served from idx_ratings_user_created
+    public List<Rating> getRatingsByUserPage(int userId, LocalDateTime beforeCreatedAt, int beforeId, int limit) {
+        boolean firstPage = beforeCreatedAt == null;
+        String sql = "SELECT * FROM ratings WHERE user_id = ? " + (firstPage ? "" : "AND (created_at, id) < (?, ?) ") + "ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            if (!firstPage) {
+                pstmt.setTimestamp(index++, Timestamp.valueOf(beforeCreatedAt));
+                pstmt.setInt(index++, beforeId);
+            }
+            pstmt.setInt(index, limit);
+            return executeRatingQuery(pstmt);
+        } catch (SQLException e) {
+            System.err.println("Error getting ratings page by user: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
     public List<Rating> getAllRatingsByMedia(int mediaId) {
         String sql = "SELECT * FROM ratings WHERE media_id = ? ORDER BY created_at DESC";
 
@@ -106,6 +151,55 @@ public class RatingRepository implements IRepository<Rating> {
         }
     }
 
+    //every rating in id order through a server-side cursor -> only fetchSize rows are in memory at a time
+    //unconfirmed comments are left out, like for anybody but the author
+    public long exportAll(RowSink<Rating> sink, int fetchSize) throws IOException {
+        String sql = "SELECT id, media_id, user_id, stars, CASE WHEN confirmed THEN comment END AS comment, confirmed, created_at FROM ratings ORDER BY id";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            conn.setAutoCommit(false); //pgjdbc only fetches in batches inside a transaction
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(mapResultSetToRating(rs));
+                        count++;
+                    }
+                }
+                conn.commit();
+                return count;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error exporting ratings: " + e.getMessage());
+            throw new DataAccessException("Error exporting ratings", e);
+        }
+    }
+
+    //the user x media star matrix for the factorization job, one entry per pair (ratings are not unique per pair -> highest)
+    //read through a cursor straight into primitive arrays, 10^7 ratings never exist as Rating objects
+    public RatingMatrix loadRatingMatrix(int fetchSize) {
+        String sql = "SELECT user_id, media_id, MAX(stars) AS stars FROM ratings WHERE user_id IS NOT NULL AND media_id IS NOT NULL GROUP BY user_id, media_id";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection()) {
+            conn.setAutoCommit(false); //pgjdbc only fetches in batches inside a transaction
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(fetchSize);
+                RatingMatrix matrix = new RatingMatrix(fetchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        matrix.add(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+                    }
+                }
+                conn.commit();
+                return matrix;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading rating matrix: " + e.getMessage());
+            throw new DataAccessException("Error loading rating matrix", e);
+        }
+    }
+
     public Rating getRatingByUserAndMedia(int userId, int mediaId) {
         String sql = "SELECT * FROM ratings WHERE user_id = ? AND media_id = ?";
 
@@ -134,6 +228,8 @@ public class RatingRepository implements IRepository<Rating> {
         } catch (SQLException e) {
             System.err.println("Error confirming rating: " + e.getMessage());
             return false;
+        } finally {
+            cache.invalidate(ratingId);
         }
     }
 
@@ -1,6 +1,8 @@
 package at.technikum_wien.database.repositories;
 
 import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.models.entities.Token;
+import at.technikum_wien.models.execeptions.DataAccessException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -8,6 +10,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class TokenRepository {
 
@@ -47,18 +50,16 @@ public class TokenRepository {
         }
     }
 
-    public static Integer getUserIdFromToken(String token) {
-        String sql = "SELECT user_id FROM tokens WHERE token = ? AND expires_at > CURRENT_TIMESTAMP";
+    //only reads -> last_used_at is written in batches by the TokenCache
+    public static Token findValidToken(String token) {
+        String sql = "SELECT token, user_id, expires_at FROM tokens WHERE token = ? AND expires_at > CURRENT_TIMESTAMP";
 
         try (Connection conn = DatabaseManager.INSTANCE.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, token);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    int userId = rs.getInt("user_id");
-                    //update last_used_at
-                    updateLastUsed(conn, token);
-                    return userId;
+                    return new Token(rs.getString("token"), rs.getInt("user_id"), rs.getTimestamp("expires_at").toLocalDateTime());
                 }
                 return null;
             }
@@ -68,18 +69,42 @@ public class TokenRepository {
         }
     }
 
-    private void cleanupExpiredTokens(Connection conn, int userId) throws SQLException {
-        String sql = "DELETE FROM tokens WHERE user_id = ? AND expires_at <= CURRENT_TIMESTAMP";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.executeUpdate();
+    public static void touchTokens(Map<String, LocalDateTime> lastUsed) {
+        if (lastUsed.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE tokens SET last_used_at = GREATEST(last_used_at, ?) WHERE token = ?";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, LocalDateTime> entry : lastUsed.entrySet()) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(entry.getValue()));
+                pstmt.setString(2, entry.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating token usage", e);
         }
     }
 
-    private static void updateLastUsed(Connection conn, String token) throws SQLException {
-        String sql = "UPDATE tokens SET last_used_at = CURRENT_TIMESTAMP WHERE token = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    public boolean deleteToken(String token) {
+        String sql = "DELETE FROM tokens WHERE token = ?";
+
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, token);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error deleting token: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void cleanupExpiredTokens(Connection conn, int userId) throws SQLException {
+        String sql = "DELETE FROM tokens WHERE user_id = ? AND expires_at <= CURRENT_TIMESTAMP";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
             pstmt.executeUpdate();
         }
     }
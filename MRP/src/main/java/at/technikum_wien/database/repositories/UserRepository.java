@@ -1,6 +1,7 @@
 package at.technikum_wien.database.repositories;
 
 import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.database.EntityCache;
 import at.technikum_wien.models.entities.User;
 import at.technikum_wien.models.interfaces.IRepository;
 
@@ -9,6 +10,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class UserRepository implements IRepository<User> {
+    private final EntityCache<User> cache = EntityCache.configured("users", User::copy);
+
     public User save(User user) {
         String sql = "";
         boolean isInsert = user.getId() == 0;
@@ -64,6 +67,7 @@ public class UserRepository implements IRepository<User> {
                         }
                     }
                 } else {
+                    cache.invalidate(user.getId());
                     return user; //for update
                 }
             }
@@ -88,6 +92,21 @@ public class UserRepository implements IRepository<User> {
         return -1; //not found :(
     }
 
+    //only touches the hash, used to upgrade legacy hashes after a successful login
+    public boolean updatePasswordHash(int userId, String passwordHash) {
+        String sql = "UPDATE users SET password_hash=? WHERE id=?";
+        try (Connection conn = DatabaseManager.INSTANCE.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, passwordHash);
+            pstmt.setInt(2, userId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error updating password hash: " + e.getMessage());
+            return false;
+        } finally {
+            cache.invalidate(userId);
+        }
+    }
+
     @Override
     public void deleteById(User T) {
         int id = T.getId();
@@ -102,11 +121,22 @@ public class UserRepository implements IRepository<User> {
             }
         } catch (SQLException e) {
             System.err.println("Error deleting user: " + e);
+        } finally {
+            cache.invalidate(id);
         }
     }
 
+    //read-through, services look up the same user several times per request
     @Override
     public User getById(int id) {
+        return cache.get(id, this::loadById);
+    }
+
+    public EntityCache.CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private User loadById(int id) {
         User foundUser = null;
         String sql = """
             SELECT u.*, g.name as genre_name 
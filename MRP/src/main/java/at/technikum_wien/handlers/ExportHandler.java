@@ -0,0 +1,77 @@
+package at.technikum_wien.handlers;
+
+import at.technikum_wien.database.RowSink;
+import at.technikum_wien.handlers.util.NdjsonWriter;
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.handlers.util.Router;
+import at.technikum_wien.models.execeptions.DataAccessException;
+import at.technikum_wien.security.AuthHelper;
+import at.technikum_wien.services.ExportService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+//GET /api/export/ratings and /api/export/media -> NDJSON streamed from a database cursor
+public class ExportHandler implements HttpHandler {
+    private final ExportService exportService;
+    private final Router router;
+
+    public ExportHandler(ExportService exportService) {
+        this.exportService = exportService;
+        this.router = new Router()
+                .add("GET", "/api/export/ratings", (exchange, params) -> handleExport(exchange, exportService::exportRatings))
+                .add("GET", "/api/export/media", (exchange, params) -> handleExport(exchange, exportService::exportMedia));
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Router.Match match = router.resolve(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+            if (match.status() == Router.Status.FOUND) {
+                match.dispatch(exchange);
+            } else if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                exchange.getResponseHeaders().set("Allow", match.allowHeader());
+                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
+            } else {
+                sendResponse(exchange, 404, "{\"error\": \"Not Found\"}");
+            }
+        } catch (Exception e) {
+            sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
+        }
+    }
+
+    private <T> void handleExport(HttpExchange exchange, Exporter<T> exporter) throws IOException {
+        Integer userId = AuthHelper.getUserIdFromAuthHeader(exchange);
+        if (userId == null) {
+            sendResponse(exchange, 401, "{\"error\": \"Authentication required\"}");
+            return;
+        }
+
+        NdjsonWriter writer = new NdjsonWriter(exchange);
+        try {
+            exporter.export(writer::write);
+            writer.close();
+        } catch (DataAccessException e) {
+            if (writer.isStarted()) {
+                writer.abort("Export aborted after " + writer.getRows() + " rows");
+            } else {
+                sendResponse(exchange, 500, "{\"error\": \"Export failed\"}");
+            }
+        } catch (IOException e) {
+            //client went away, the cursor is already closed
+            System.err.println("Export stopped after " + writer.getRows() + " rows: " + e.getMessage());
+            exchange.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Exporter<T> {
+        long export(RowSink<T> sink) throws IOException;
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ResponseWriter.send(exchange, statusCode, "application/json", response.getBytes(StandardCharsets.UTF_8));
+    }
+}
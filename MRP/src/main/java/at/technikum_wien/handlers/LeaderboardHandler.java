@@ -2,20 +2,31 @@ package at.technikum_wien.handlers;
 
 import at.technikum_wien.services.LeaderboardService;
 import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.handlers.util.QueryParams;
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.models.entities.LeaderboardSummary;
+import at.technikum_wien.services.LeaderboardCache;
+import at.technikum_wien.services.LeaderboardCache.CachedResponse;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class LeaderboardHandler implements HttpHandler {
     private final LeaderboardService leaderboardService;
+    private final LeaderboardCache leaderboardCache;
 
     public LeaderboardHandler(LeaderboardService leaderboardService) {
+        this(leaderboardService, null);
+    }
+
+    //without a cache every GET is computed from scratch
+    public LeaderboardHandler(LeaderboardService leaderboardService, LeaderboardCache leaderboardCache) {
         this.leaderboardService = leaderboardService;
+        this.leaderboardCache = leaderboardCache;
     }
 
     @Override
@@ -40,6 +51,8 @@ public class LeaderboardHandler implements HttpHandler {
                 handleGetMostLikedRatings(exchange, query);
             } else if (path.equals("/api/leaderboard/trending-genres")) {
                 handleGetTrendingGenres(exchange);
+            } else if (path.equals("/api/leaderboard/cache-stats") && leaderboardCache != null) {
+                JsonUtil.writeObject(exchange, 200, leaderboardCache.getStats());
             } else {
                 sendResponse(exchange, 404, "{\"error\": \"Not Found\"}");
             }
@@ -51,15 +64,20 @@ public class LeaderboardHandler implements HttpHandler {
 
     private void handleGetLeaderboardSummary(HttpExchange exchange) throws IOException {
         try {
-            Map<String, Object> summary = Map.of(
-                    "topUsers", leaderboardService.getMostActiveUsers(10),
-                    "topRatedMedia", leaderboardService.getTopRatedMedia(10),
-                    "mostLikedRatings", leaderboardService.getMostLikedRatings(10),
-                    "trendingGenres", leaderboardService.getTrendingGenres()
-            );
-
-            String response = JsonUtil.mapToJson(summary);
-            sendResponse(exchange, 200, response);
+            CachedResponse cached = lookup("summary");
+            if (cached == null) {
+                long version = currentVersion();
+                //sections are loaded concurrently, missing ones are listed in the body
+                LeaderboardSummary summary = leaderboardService.getSummary(10);
+                if (summary.isPartial()) {
+                    //partial results are never cached, the next request tries again
+                    exchange.getResponseHeaders().set("X-Partial-Content", String.join(",", summary.getMissingSections()));
+                    cached = LeaderboardCache.uncached(JsonUtil.objectToJsonBytes(summary));
+                } else {
+                    cached = store("summary", JsonUtil.objectToJsonBytes(summary), version);
+                }
+            }
+            sendCached(exchange, cached);
 
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
@@ -68,7 +86,7 @@ public class LeaderboardHandler implements HttpHandler {
 
     private void handleGetTopUsers(HttpExchange exchange, String query) throws IOException {
         try {
-            Map<String, String> params = parseQueryString(query);
+            Map<String, String> params = QueryParams.parse(query);
             int limit = 20;
 
             if (params.containsKey("limit")) {
@@ -80,9 +98,8 @@ public class LeaderboardHandler implements HttpHandler {
                 }
             }
 
-            var topUsers = leaderboardService.getMostActiveUsers(limit);
-            String response = JsonUtil.objectToJson(topUsers);
-            sendResponse(exchange, 200, response);
+            int topUsersLimit = LeaderboardService.normalizeLimit(limit);
+            sendCached(exchange, "top-users?limit=" + topUsersLimit, () -> leaderboardService.getMostActiveUsers(topUsersLimit));
 
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
@@ -91,7 +108,7 @@ public class LeaderboardHandler implements HttpHandler {
 
     private void handleGetTopRatedMedia(HttpExchange exchange, String query) throws IOException {
         try {
-            Map<String, String> params = parseQueryString(query);
+            Map<String, String> params = QueryParams.parse(query);
             int limit = 20;
 
             if (params.containsKey("limit")) {
@@ -103,9 +120,8 @@ public class LeaderboardHandler implements HttpHandler {
                 }
             }
 
-            var topMedia = leaderboardService.getTopRatedMedia(limit);
-            String response = JsonUtil.objectToJson(topMedia);
-            sendResponse(exchange, 200, response);
+            int topRatedLimit = LeaderboardService.normalizeLimit(limit);
+            sendCached(exchange, "top-rated?limit=" + topRatedLimit, () -> leaderboardService.getTopRatedMedia(topRatedLimit));
 
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
@@ -114,7 +130,7 @@ public class LeaderboardHandler implements HttpHandler {
 
     private void handleGetMostLikedRatings(HttpExchange exchange, String query) throws IOException {
         try {
-            Map<String, String> params = parseQueryString(query);
+            Map<String, String> params = QueryParams.parse(query);
             int limit = 20;
 
             if (params.containsKey("limit")) {
@@ -126,9 +142,8 @@ public class LeaderboardHandler implements HttpHandler {
                 }
             }
 
-            var mostLiked = leaderboardService.getMostLikedRatings(limit);
-            String response = JsonUtil.objectToJson(mostLiked);
-            sendResponse(exchange, 200, response);
+            int mostLikedLimit = LeaderboardService.normalizeLimit(limit);
+            sendCached(exchange, "most-liked?limit=" + mostLikedLimit, () -> leaderboardService.getMostLikedRatings(mostLikedLimit));
 
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
@@ -137,32 +152,49 @@ public class LeaderboardHandler implements HttpHandler {
 
     private void handleGetTrendingGenres(HttpExchange exchange) throws IOException {
         try {
-            var trendingGenres = leaderboardService.getTrendingGenres();
-            String response = JsonUtil.objectToJson(trendingGenres);
-            sendResponse(exchange, 200, response);
+            sendCached(exchange, "trending-genres", leaderboardService::getTrendingGenres);
 
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
         }
     }
 
-    private Map<String, String> parseQueryString(String query) {
-        if (query == null || query.isEmpty()) {
-            return Map.of();
+    //CACHING
+    private void sendCached(HttpExchange exchange, String key, Supplier<Object> loader) throws IOException {
+        CachedResponse cached = lookup(key);
+        if (cached == null) {
+            long version = currentVersion();
+            cached = store(key, JsonUtil.objectToJsonBytes(loader.get()), version);
         }
-        return Arrays.stream(query.split("&"))
-                .map(param -> param.split("="))
-                .collect(Collectors.toMap(
-                        pair -> pair[0],
-                        pair -> pair.length > 1 ? pair[1] : ""
-                ));
+        sendCached(exchange, cached);
     }
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
+    private CachedResponse lookup(String key) {
+        return leaderboardCache != null ? leaderboardCache.get(key) : null;
+    }
+
+    private long currentVersion() {
+        return leaderboardCache != null ? leaderboardCache.currentVersion() : -1;
+    }
+
+    private CachedResponse store(String key, byte[] body, long version) {
+        return leaderboardCache != null ? leaderboardCache.put(key, body, version) : LeaderboardCache.uncached(body);
+    }
+
+    //clients revalidate every time, unchanged content costs a 304 without a body
+    private void sendCached(HttpExchange exchange, CachedResponse cached) throws IOException {
+        exchange.getResponseHeaders().set("ETag", cached.etag());
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (cached.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
         }
+        JsonUtil.writeJsonBytes(exchange, 200, cached.body());
+    }
+
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ResponseWriter.send(exchange, statusCode, "application/json", response.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
@@ -3,55 +3,66 @@ package at.technikum_wien.handlers;
 import at.technikum_wien.services.FavoriteService;
 import at.technikum_wien.services.MediaService;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaImportResult;
+import at.technikum_wien.models.enums.ImportFormat;
+import at.technikum_wien.models.enums.SearchMode;
+import at.technikum_wien.models.execeptions.DataAccessException;
 import at.technikum_wien.security.AuthHelper;
 import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.handlers.util.MediaImportReader;
+import at.technikum_wien.handlers.util.QueryParams;
+import at.technikum_wien.handlers.util.Router;
+import at.technikum_wien.handlers.util.PageHeaders;
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.models.entities.Page;
 import at.technikum_wien.services.RatingService;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 public class MediaHandler implements HttpHandler {
+    //any of these turns GET /api/media into a search, otherwise it is the paginated listing
+    private static final Set<String> SEARCH_PARAMS = Set.of("title", "q", "genre", "mediaType", "releaseYear", "ageRestriction", "sortBy", "offset");
+
     private final MediaService mediaService;
     private final RatingService ratingService;
     private final FavoriteService favoriteService;
 
+    private final Router router;
+
     public MediaHandler(MediaService mediaService, RatingService ratingService, FavoriteService favoriteService) {
         this.mediaService = mediaService;
         this.ratingService = ratingService;
         this.favoriteService = favoriteService;
+        this.router = new Router()
+                .add("GET", "/api/media", (exchange, params) -> handleListMedia(exchange))
+                .add("POST", "/api/media", (exchange, params) -> handleCreateMedia(exchange, readBody(exchange)))
+                .add("POST", "/api/media/import", (exchange, params) -> handleImportMedia(exchange))
+                .add("GET", "/api/media/{id:int}", (exchange, params) -> handleGetMedia(exchange, params.getInt("id")))
+                .add("PUT", "/api/media/{id:int}", (exchange, params) -> handleUpdateMedia(exchange, params.getInt("id"), readBody(exchange)))
+                .add("DELETE", "/api/media/{id:int}", (exchange, params) -> handleDeleteMedia(exchange, params.getInt("id")))
+                .add("POST", "/api/media/{id:int}/rate", (exchange, params) -> handleRateMedia(exchange, params.getInt("id"), readBody(exchange)))
+                .add("POST", "/api/media/{id:int}/favorite", (exchange, params) -> handleFavoriteMedia(exchange, "POST", params.getInt("id")))
+                .add("DELETE", "/api/media/{id:int}/favorite", (exchange, params) -> handleFavoriteMedia(exchange, "DELETE", params.getInt("id")));
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-        String query = exchange.getRequestURI().getQuery();
-
-        String requestBody = "";
-        if ("POST".equals(method) || "PUT".equals(method)) {
-            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        }
-
         try {
-            if (path.equals("/api/media")) {
-                if (query != null && !query.isEmpty()) {
-                    handleSearchMedia(exchange, query);
-                } else {
-                    handleMediaCollection(exchange, method, requestBody);
-                }
-            } else if (path.matches("/api/media/\\d+")) {
-                handleSingleMedia(exchange, method, path, requestBody);
-            } else if (path.matches("/api/media/\\d+/rate")) {
-                handleRateMedia(exchange, path, requestBody);
-            } else if (path.matches("/api/media/\\d+/favorite")) {
-                handleFavoriteMedia(exchange, method, path);
+            Router.Match match = router.resolve(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+            if (match.status() == Router.Status.FOUND) {
+                match.dispatch(exchange);
+            } else if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                exchange.getResponseHeaders().set("Allow", match.allowHeader());
+                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
             } else {
                 sendResponse(exchange, 404, "{\"error\": \"Not Found\"}");
             }
@@ -60,65 +71,60 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    private void handleMediaCollection(HttpExchange exchange, String method, String requestBody) throws IOException {
-        switch (method) {
-            case "GET":
-                handleGetAllMedia(exchange);
-                break;
-            case "POST":
-                handleCreateMedia(exchange, requestBody);
-                break;
-            default:
-                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
+    //search parameters -> filtered search, otherwise the keyset paged list
+    private void handleListMedia(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && !query.isEmpty() && isSearch(query)) {
+            handleSearchMedia(exchange, query);
+        } else {
+            handleGetAllMedia(exchange, query);
         }
     }
 
     private void handleSearchMedia(HttpExchange exchange, String query) throws IOException {
         try {
             //parse query parameters
-            Map<String, String> queryParams = parseQueryString(query);
+            Map<String, String> queryParams = QueryParams.parse(query);
 
             String title = queryParams.get("title");
+            String text = queryParams.get("q");
+            SearchMode mode = queryParams.get("mode") != null ? SearchMode.fromString(queryParams.get("mode")) : null;
             String genre = queryParams.get("genre");
             String mediaType = queryParams.get("mediaType");
             Integer releaseYear = queryParams.get("releaseYear") != null ? Integer.parseInt(queryParams.get("releaseYear")) : null;
             Integer ageRestriction = queryParams.get("ageRestriction") != null ? Integer.parseInt(queryParams.get("ageRestriction")) : null;
             String sortBy = queryParams.get("sortBy");
+            Integer limit = queryParams.get("limit") != null ? Integer.parseInt(queryParams.get("limit")) : null;
+            Integer offset = queryParams.get("offset") != null ? Integer.parseInt(queryParams.get("offset")) : null;
 
-            List<Media> mediaList = mediaService.searchMedia(title, genre, mediaType, releaseYear, ageRestriction, sortBy);
-            String response = JsonUtil.mediaListToJson(mediaList);
-            sendResponse(exchange, 200, response);
+            List<Media> mediaList = mediaService.searchMedia(title, text, mode, genre, mediaType, releaseYear, ageRestriction, sortBy, limit, offset);
+            JsonUtil.writeMediaList(exchange, 200, mediaList);
 
         } catch (NumberFormatException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid number format in query parameters\"}");
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "{\"error\": \"" + e.getMessage() + "\"}");
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
         }
     }
 
-    private void handleSingleMedia(HttpExchange exchange, String method, String path, String requestBody) throws IOException {
-        int mediaId = extractIdFromPath(path);
-
-        switch (method) {
-            case "GET":
-                handleGetMedia(exchange, mediaId);
-                break;
-            case "PUT":
-                handleUpdateMedia(exchange, mediaId, requestBody);
-                break;
-            case "DELETE":
-                handleDeleteMedia(exchange, mediaId);
-                break;
-            default:
-                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
-        }
+    private boolean isSearch(String query) {
+        return QueryParams.parse(query).keySet().stream().anyMatch(SEARCH_PARAMS::contains);
     }
 
-    private void handleGetAllMedia(HttpExchange exchange) throws IOException {
+    private void handleGetAllMedia(HttpExchange exchange, String query) throws IOException {
         try {
-            List<Media> allMedia = mediaService.getAllMedia();
-            String response = JsonUtil.mediaListToJson(allMedia);
-            sendResponse(exchange, 200, response);
+            Map<String, String> queryParams = QueryParams.parse(query);
+            Integer limit = queryParams.get("limit") != null ? Integer.parseInt(queryParams.get("limit")) : null;
+
+            Page<Media> page = mediaService.getMediaPage(queryParams.get("cursor"), limit);
+            PageHeaders.apply(exchange, page);
+            JsonUtil.writeMediaList(exchange, 200, page.items());
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "{\"error\": \"Invalid number format in query parameters\"}");
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "{\"error\": \"" + e.getMessage() + "\"}");
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
         }
@@ -157,8 +163,7 @@ public class MediaHandler implements HttpHandler {
             Media savedMedia = mediaService.createMedia(newMedia);
 
             if (savedMedia != null) {
-                String response = JsonUtil.mediaToJson(savedMedia);
-                sendResponse(exchange, 201, response);
+                JsonUtil.writeMedia(exchange, 201, savedMedia);
             } else {
                 sendResponse(exchange, 500, "{\"error\": \"Failed to create media\"}");
             }
@@ -172,12 +177,36 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
+    //the body is read while the rows are copied into the database, it is never buffered as a whole
+    private void handleImportMedia(HttpExchange exchange) throws IOException {
+        try {
+            Integer creatorId = AuthHelper.getUserIdFromAuthHeader(exchange);
+            if (creatorId == null) {
+                sendResponse(exchange, 401, "{\"error\": \"Authentication required\"}");
+                return;
+            }
+
+            ImportFormat format = ImportFormat.fromContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+            MediaImportReader rows = new MediaImportReader(new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)), format, creatorId);
+            int imported = mediaService.importMedia(rows, creatorId);
+            JsonUtil.writeObject(exchange, 200, new MediaImportResult(imported, rows.getFailedCount(), rows.getErrors()));
+
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 415, "{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (UncheckedIOException e) {
+            sendResponse(exchange, 400, "{\"error\": \"Error reading request body\"}");
+        } catch (DataAccessException e) {
+            sendResponse(exchange, 500, "{\"error\": \"Import failed, nothing was imported\"}");
+        } catch (Exception e) {
+            sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
+        }
+    }
+
     private void handleGetMedia(HttpExchange exchange, int mediaId) throws IOException {
         try {
             Media media = mediaService.getMediaById(mediaId);
             if (media != null) {
-                String response = JsonUtil.mediaToJson(media);
-                sendResponse(exchange, 200, response);
+                JsonUtil.writeMedia(exchange, 200, media);
             } else {
                 sendResponse(exchange, 404, "{\"error\": \"Media not found\"}");
             }
@@ -230,8 +259,7 @@ public class MediaHandler implements HttpHandler {
 
             Media updatedMedia = mediaService.updateMedia(existingMedia);
             if (updatedMedia != null) {
-                String response = JsonUtil.mediaToJson(updatedMedia);
-                sendResponse(exchange, 200, response);
+                JsonUtil.writeMedia(exchange, 200, updatedMedia);
             } else {
                 sendResponse(exchange, 500, "{\"error\": \"Failed to update media\"}");
             }
@@ -272,9 +300,8 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    private void handleRateMedia(HttpExchange exchange, String path, String requestBody) throws IOException {
+    private void handleRateMedia(HttpExchange exchange, int mediaId, String requestBody) throws IOException {
         try {
-            int mediaId = extractIdFromPath(path);
 
             Integer userId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (userId == null) {
@@ -323,9 +350,8 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    private void handleFavoriteMedia(HttpExchange exchange, String method, String path) throws IOException {
+    private void handleFavoriteMedia(HttpExchange exchange, String method, int mediaId) throws IOException {
         try {
-            int mediaId = extractIdFromPath(path);
 
             Integer userId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (userId == null) {
@@ -359,32 +385,11 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    private int extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-
-        //for paths like /api/media/1/rate, we need the third-to-last part (index: parts.length - 2)
-        //for paths like /api/media/1, we need the last part (index: parts.length - 1)
-        //this kinda sucks too
-
-        if (path.endsWith("/rate") || path.endsWith("/favorite")) {
-            //for /api/media/1/rate, get the media ID which is at index parts.length - 2
-            return Integer.parseInt(parts[parts.length - 2]);
-        } else {
-            //for /api/media/1, get the last part
-            return Integer.parseInt(parts[parts.length - 1]);
-        }
-    }
-
-    private Map<String, String> parseQueryString(String query) {
-        return Arrays.stream(query.split("&")).map(param -> param.split("=")).collect(Collectors.toMap(pair -> pair[0], pair -> pair.length > 1 ? pair[1] : ""));
+    private String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
     }
 
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
-        }
+        ResponseWriter.send(exchange, statusCode, "application/json", response.getBytes(StandardCharsets.UTF_8));
     }
-
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package at.technikum_wien.handlers;
+
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+//GET /api/metrics -> Prometheus text format
+public class MetricsHandler implements HttpHandler {
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            ResponseWriter.send(exchange, 405, "application/json", "{\"error\": \"Method Not Allowed\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (!"/api/metrics".equals(exchange.getRequestURI().getPath())) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        //Prometheus asks for gzip, the scrape text compresses well
+        byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+        ResponseWriter.send(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", body);
+    }
+}
@@ -3,53 +3,40 @@ package at.technikum_wien.handlers;
 import at.technikum_wien.security.AuthHelper;
 import at.technikum_wien.services.RatingService;
 import at.technikum_wien.models.entities.Rating;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.handlers.util.Router;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class RatingHandler implements HttpHandler {
     private final RatingService ratingService;
-    private final ObjectMapper objectMapper;
-    private final Pattern ratingIdPattern = Pattern.compile("/api/ratings/(\\d+)");
-    private final Pattern mediaRatingPattern = Pattern.compile("/api/media/(\\d+)/rate");
+    private final Router router;
 
     public RatingHandler(RatingService ratingService) {
         this.ratingService = ratingService;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.router = new Router()
+                .add("POST", "/api/media/{id:int}/rate", (exchange, params) -> handleRateMedia(exchange, params.getInt("id"), readBody(exchange)))
+                .add("POST", "/api/ratings/{id:int}/like", (exchange, params) -> handleLikeRating(exchange, params.getInt("id")))
+                .add("POST", "/api/ratings/{id:int}/confirm", (exchange, params) -> handleConfirmRating(exchange, params.getInt("id")))
+                .add("GET", "/api/ratings/{id:int}", (exchange, params) -> handleGetRating(exchange, params.getInt("id")))
+                .add("PUT", "/api/ratings/{id:int}", (exchange, params) -> handleUpdateRating(exchange, params.getInt("id"), readBody(exchange)))
+                .add("DELETE", "/api/ratings/{id:int}", (exchange, params) -> handleDeleteRating(exchange, params.getInt("id")));
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        String requestBody = "";
-        if ("POST".equals(method) || "PUT".equals(method)) {
-            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        }
-
         try {
-            //handle different endpoints based on path patterns
-            if (path.matches("/api/media/\\d+/rate") && "POST".equals(method)) {
-                handleRateMedia(exchange, path, requestBody);
-            } else if (path.matches("/api/ratings/\\d+/like") && "POST".equals(method)) {
-                handleLikeRating(exchange, path);
-            } else if (path.matches("/api/ratings/\\d+/confirm") && "POST".equals(method)) {
-                handleConfirmRating(exchange, path);
-            } else if (path.matches("/api/ratings/\\d+")) {
-                handleRatingOperations(exchange, method, path, requestBody);
+            Router.Match match = router.resolve(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+            if (match.status() == Router.Status.FOUND) {
+                match.dispatch(exchange);
+            } else if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                exchange.getResponseHeaders().set("Allow", match.allowHeader());
+                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
             } else {
                 sendResponse(exchange, 404, "{\"error\": \"Not Found\"}");
             }
@@ -65,10 +52,7 @@ public class RatingHandler implements HttpHandler {
     }
 
 
-    private void handleRateMedia(HttpExchange exchange, String path, String requestBody) throws IOException {
-        //extract mediaId from path
-        int mediaId = extractIdFromPath(path, mediaRatingPattern);
-
+    private void handleRateMedia(HttpExchange exchange, int mediaId, String requestBody) throws IOException {
         //parse request body
         Map<String, Object> requestData = parseRequestBody(requestBody);
 
@@ -77,15 +61,11 @@ public class RatingHandler implements HttpHandler {
         int stars = getRequiredInt(requestData, "stars");
         String comment = getOptionalString(requestData, "comment", "");
         Rating rating = ratingService.rateMedia(mediaId, userId, stars, comment);
-        String response = objectMapper.writeValueAsString(Map.of("message", "Rating created successfully", "rating", Map.of("id", rating.getId(), "media_id", rating.getMedia_id(), "user_id", rating.getUser_id(), "stars", rating.getStars(), "comment", rating.getComment(), "confirmed", rating.getConfirmed(), "created_at", rating.getCreated_at())));
-        sendResponse(exchange, 201, response);
+        JsonUtil.writeObject(exchange, 201, Map.of("message", "Rating created successfully", "rating", Map.of("id", rating.getId(), "media_id", rating.getMedia_id(), "user_id", rating.getUser_id(), "stars", rating.getStars(), "comment", rating.getComment(), "confirmed", rating.getConfirmed(), "created_at", rating.getCreated_at())));
     }
 
-    private void handleLikeRating(HttpExchange exchange, String path) throws IOException {
+    private void handleLikeRating(HttpExchange exchange, int ratingId) throws IOException {
         try {
-            //extract ratingId from path
-            int ratingId = extractIdFromPath(path, ratingIdPattern);
-
             //extract required fields
             Integer userId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (userId == null) {
@@ -106,11 +86,8 @@ public class RatingHandler implements HttpHandler {
         }
     }
 
-    private void handleConfirmRating(HttpExchange exchange, String path) throws IOException {
+    private void handleConfirmRating(HttpExchange exchange, int ratingId) throws IOException {
         try {
-            //extract ratingId from path
-            int ratingId = extractIdFromPath(path, ratingIdPattern);
-
             //extract user ID
             Integer userId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (userId == null) {
@@ -156,24 +133,6 @@ public class RatingHandler implements HttpHandler {
         }
     }
 
-    private void handleRatingOperations(HttpExchange exchange, String method, String path, String requestBody) throws IOException {
-        int ratingId = extractIdFromPath(path, ratingIdPattern);
-
-        switch (method) {
-            case "PUT":
-                handleUpdateRating(exchange, ratingId, requestBody);
-                break;
-            case "DELETE":
-                handleDeleteRating(exchange, ratingId);
-                break;
-            case "GET":
-                handleGetRating(exchange, ratingId);
-                break;
-            default:
-                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
-        }
-    }
-
     private void handleUpdateRating(HttpExchange exchange, int ratingId, String requestBody) throws IOException {
         try {
             //get user ID from authentication
@@ -220,8 +179,7 @@ public class RatingHandler implements HttpHandler {
             //create response
             Map<String, Object> responseData = Map.of("message", "Rating updated successfully", "rating", Map.of("id", updatedRating.getId(), "media_id", updatedRating.getMedia_id(), "user_id", updatedRating.getUser_id(), "stars", updatedRating.getStars(), "comment", updatedRating.getComment(), "confirmed", updatedRating.getConfirmed(), "created_at", updatedRating.getCreated_at(), "like_count", likeCount));
 
-            String response = objectMapper.writeValueAsString(responseData);
-            sendResponse(exchange, 200, response);
+            JsonUtil.writeObject(exchange, 200, responseData);
 
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\": \"" + e.getMessage() + "\"}");
@@ -267,8 +225,7 @@ public class RatingHandler implements HttpHandler {
             Map<String, Object> responseData = Map.of("rating", Map.of("id", rating.getId(), "media_id", rating.getMedia_id(), "user_id", rating.getUser_id(), "stars", rating.getStars(), "comment", rating.getComment(), //will be null if unconfirmed & not owner
                     "confirmed", rating.getConfirmed(), "created_at", rating.getCreated_at(), "like_count", likeCount));
 
-            String response = objectMapper.writeValueAsString(responseData);
-            sendResponse(exchange, 200, response);
+            JsonUtil.writeObject(exchange, 200, responseData);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -277,20 +234,15 @@ public class RatingHandler implements HttpHandler {
     }
 
     //HELPERS
-    private int extractIdFromPath(String path, Pattern pattern) {
-        Matcher matcher = pattern.matcher(path);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
-        }
-        throw new IllegalArgumentException("Invalid path format");
+    private String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
     }
 
     private Map<String, Object> parseRequestBody(String requestBody) throws IOException {
         if (requestBody == null || requestBody.trim().isEmpty()) {
             throw new IllegalArgumentException("Request body is required");
         }
-        return objectMapper.readValue(requestBody, new TypeReference<>() {
-        });
+        return JsonUtil.parseJsonToMap(requestBody);
     }
 
     private int getRequiredInt(Map<String, Object> data, String key) {
@@ -313,10 +265,6 @@ public class RatingHandler implements HttpHandler {
     }
 
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
-        }
+        ResponseWriter.send(exchange, statusCode, "application/json", response.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
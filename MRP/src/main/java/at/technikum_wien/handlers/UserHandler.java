@@ -1,22 +1,26 @@
 package at.technikum_wien.handlers;
 
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Page;
+import at.technikum_wien.models.entities.Rating;
 import at.technikum_wien.models.entities.User;
+import at.technikum_wien.models.execeptions.HashingOverloadedException;
+import at.technikum_wien.models.execeptions.InvalidCursorException;
 import at.technikum_wien.security.AuthHelper;
 import at.technikum_wien.services.*;
 import at.technikum_wien.handlers.util.JsonUtil;
+import at.technikum_wien.handlers.util.QueryParams;
+import at.technikum_wien.handlers.util.Router;
+import at.technikum_wien.handlers.util.PageHeaders;
+import at.technikum_wien.handlers.util.ResponseWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class UserHandler implements HttpHandler {
     private final UserService userService;
@@ -24,39 +28,41 @@ public class UserHandler implements HttpHandler {
     private final MediaService mediaService;
     private final RecommendationService recommendationService;
     private final FavoriteService favoriteService;
-    private final Pattern userIdPattern = Pattern.compile("/api/users/(\\d+)");
+    private final RecommendationCache recommendationCache;
+    private final Router router;
 
     public UserHandler(UserService userService, RatingService ratingService, MediaService mediaService, FavoriteService favoriteService, RecommendationService recommendationService) {
+        this(userService, ratingService, mediaService, favoriteService, recommendationService, null);
+    }
+
+    //without a cache every recommendation request is computed from scratch
+    public UserHandler(UserService userService, RatingService ratingService, MediaService mediaService, FavoriteService favoriteService, RecommendationService recommendationService, RecommendationCache recommendationCache) {
         this.userService = userService;
         this.ratingService = ratingService;
         this.mediaService = mediaService;
         this.favoriteService = favoriteService;
         this.recommendationService = recommendationService;
+        this.recommendationCache = recommendationCache;
+        this.router = new Router()
+                .add("POST", "/api/users/register", (exchange, params) -> handleRegister(exchange, readBody(exchange)))
+                .add("POST", "/api/users/login", (exchange, params) -> handleLogin(exchange, readBody(exchange)))
+                .add("POST", "/api/users/logout", (exchange, params) -> handleLogout(exchange))
+                .add("GET", "/api/users/{id:int}/profile", (exchange, params) -> handleGetUserProfile(exchange, params.getInt("id")))
+                .add("PUT", "/api/users/{id:int}/profile", (exchange, params) -> handleUpdateUserProfile(exchange, params.getInt("id"), readBody(exchange)))
+                .add("GET", "/api/users/{id:int}/ratings", (exchange, params) -> handleUserRatings(exchange, params.getInt("id")))
+                .add("GET", "/api/users/{id:int}/favorites", (exchange, params) -> handleUserFavorites(exchange, params.getInt("id")))
+                .add("GET", "/api/users/{id:int}/recommendations", (exchange, params) -> handleUserRecommendations(exchange, params.getInt("id")));
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        String requestBody = "";
-        if ("POST".equals(method) || "PUT".equals(method)) {
-            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        }
-
         try {
-            if (path.equals("/api/users/register")) {
-                handleRegister(exchange, requestBody);
-            } else if (path.equals("/api/users/login")) {
-                handleLogin(exchange, requestBody);
-            } else if (path.matches("/api/users/\\d+/profile")) {
-                handleUserProfile(exchange, method, path, requestBody);
-            } else if (path.matches("/api/users/\\d+/ratings")) {
-                handleUserRatings(exchange, path);
-            } else if (path.matches("/api/users/\\d+/favorites")) {
-                handleUserFavorites(exchange, path);
-            } else if (path.matches("/api/users/\\d+/recommendations")) {
-                handleUserRecommendations(exchange, path);
+            Router.Match match = router.resolve(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+            if (match.status() == Router.Status.FOUND) {
+                match.dispatch(exchange);
+            } else if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                exchange.getResponseHeaders().set("Allow", match.allowHeader());
+                sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
             } else {
                 sendResponse(exchange, 404, "{\"error\": \"Not Found\"}");
             }
@@ -82,6 +88,9 @@ public class UserHandler implements HttpHandler {
 
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 409, "{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (HashingOverloadedException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendResponse(exchange, 503, "{\"error\": \"" + e.getMessage() + "\"}");
         } catch (IOException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid JSON format\"}");
         } catch (Exception e) {
@@ -106,6 +115,9 @@ public class UserHandler implements HttpHandler {
 
         } catch (SecurityException e) {
             sendResponse(exchange, 401, "{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (HashingOverloadedException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendResponse(exchange, 503, "{\"error\": \"" + e.getMessage() + "\"}");
         } catch (IOException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid JSON format\"}");
         } catch (Exception e) {
@@ -113,15 +125,20 @@ public class UserHandler implements HttpHandler {
         }
     }
 
-    private void handleUserProfile(HttpExchange exchange, String method, String path, String requestBody) throws IOException {
-        int userId = extractIdFromPath(path, userIdPattern);
-
-        if ("GET".equals(method)) {
-            handleGetUserProfile(exchange, userId);
-        } else if ("PUT".equals(method)) {
-            handleUpdateUserProfile(exchange, userId, requestBody);
-        } else {
-            sendResponse(exchange, 405, "{\"error\": \"Method Not Allowed\"}");
+    private void handleLogout(HttpExchange exchange) throws IOException {
+        try {
+            String token = AuthHelper.getTokenFromAuthHeader(exchange);
+            boolean removed = userService.logoutUser(token);
+            AuthHelper.invalidateToken(token);
+            if (removed) {
+                sendResponse(exchange, 200, "{\"message\": \"Logout successful\"}");
+            } else {
+                sendResponse(exchange, 401, "{\"error\": \"Invalid token\"}");
+            }
+        } catch (SecurityException e) {
+            sendResponse(exchange, 401, "{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (Exception e) {
+            sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
         }
     }
 
@@ -210,9 +227,8 @@ public class UserHandler implements HttpHandler {
         }
     }
 
-    private void handleUserRatings(HttpExchange exchange, String path) throws IOException {
+    private void handleUserRatings(HttpExchange exchange, int userId) throws IOException {
         try {
-            int userId = extractIdFromPath(path, userIdPattern);
 
             Integer requestingUserId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (requestingUserId == null || requestingUserId != userId) {
@@ -220,27 +236,40 @@ public class UserHandler implements HttpHandler {
                 return;
             }
 
-            var ratings = ratingService.getRatingsByUser(userId);
-            String response = JsonUtil.ratingListToJson(ratings);
-            sendResponse(exchange, 200, response);
+            Map<String, String> queryParams = QueryParams.parse(exchange.getRequestURI().getQuery());
+            Integer limit = queryParams.get("limit") != null ? Integer.parseInt(queryParams.get("limit")) : null;
 
+            Page<Rating> page = ratingService.getRatingsByUserPage(userId, queryParams.get("cursor"), limit);
+            PageHeaders.apply(exchange, page);
+            JsonUtil.writeRatingList(exchange, 200, page.items());
+
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "{\"error\": \"Invalid number format in query parameters\"}");
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "{\"error\": \"" + e.getMessage() + "\"}");
         } catch (Exception e) {
             sendResponse(exchange, 500, "{\"error\": \"Internal server error: " + e.getMessage() + "\"}");
         }
     }
 
-    private void handleUserFavorites(HttpExchange exchange, String path) throws IOException {
+    private void handleUserFavorites(HttpExchange exchange, int userId) throws IOException {
         try{
-            int userId = extractIdFromPath(path, userIdPattern);
 
             Integer requestingUserId = AuthHelper.getUserIdFromAuthHeader(exchange);
             if (requestingUserId == null || requestingUserId != userId) {
                 sendResponse(exchange,403,"{\"error\": \"Access denied\"}");
                 return;
             }
-            List<Media> favorites = favoriteService.getUserFavorites(userId);
-            String response = JsonUtil.mediaListToJson(favorites);
-            sendResponse(exchange, 200, response);
+            Map<String, String> queryParams = QueryParams.parse(exchange.getRequestURI().getQuery());
+            Integer limit = queryParams.get("limit") != null ? Integer.parseInt(queryParams.get("limit")) : null;
+
+            Page<Media> page = favoriteService.getUserFavoritesPage(userId, queryParams.get("cursor"), limit);
+            PageHeaders.apply(exchange, page);
+            JsonUtil.writeMediaList(exchange, 200, page.items());
+        }catch (NumberFormatException e){
+            sendResponse(exchange, 400, "{\"error\": \"Invalid number format in query parameters\"}");
+        }catch (InvalidCursorException e){
+            sendResponse(exchange, 400, "{\"error\": \"" + e.getMessage() + "\"}");
         }catch (IllegalArgumentException e){
             sendResponse(exchange, 404,"{\"error\": \""+e.getMessage()+"\"}");
         }catch (Exception e){
@@ -248,9 +277,8 @@ public class UserHandler implements HttpHandler {
         }
     }
 
-    private void handleUserRecommendations(HttpExchange exchange, String path) throws IOException {
+    private void handleUserRecommendations(HttpExchange exchange, int userId) throws IOException {
         try {
-            int userId = extractIdFromPath(path, userIdPattern);
 
             //verify requesting user has access
             Integer requestingUserId = AuthHelper.getUserIdFromAuthHeader(exchange);
@@ -260,32 +288,24 @@ public class UserHandler implements HttpHandler {
             }
 
             String query = exchange.getRequestURI().getQuery();
-            Map<String, String> queryParams = parseQueryString(query != null ? query : "");
+            Map<String, String> queryParams = QueryParams.parse(query);
 
             String type = queryParams.getOrDefault("type", "genre");
             int limit = Integer.parseInt(queryParams.getOrDefault("limit", "10"));
 
-            List<Media> recommendations;
-
-            switch (type.toLowerCase()) {
-                case "content":
-                    recommendations = recommendationService.getContentBasedRecommendations(userId, limit);
-                    break;
-                case "genre":
-                default:
-                    recommendations = recommendationService.getGenreBasedRecommendations(userId, limit);
-                    break;
-            }
-
-            String response = JsonUtil.mediaListToJson(recommendations);
+            String normalizedType = normalizeRecommendationType(type);
+            List<Media> recommendations = recommendationCache != null
+                    ? recommendationCache.get(userId, normalizedType, limit, () -> computeRecommendations(userId, normalizedType, limit))
+                    : computeRecommendations(userId, normalizedType, limit);
 
             //add recommendation metadata to response
-            String enhancedResponse = String.format(
-                    "{\"recommendations\": %s, \"type\": \"%s\", \"userId\": %d, \"count\": %d}",
-                    response, type, userId, recommendations.size()
-            );
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("recommendations", recommendations);
+            response.put("type", type);
+            response.put("userId", userId);
+            response.put("count", recommendations.size());
 
-            sendResponse(exchange, 200, enhancedResponse);
+            JsonUtil.writeObject(exchange, 200, response);
 
         } catch (NumberFormatException e) {
             sendResponse(exchange, 400, "{\"error\": \"Invalid number format in query parameters\"}");
@@ -297,28 +317,34 @@ public class UserHandler implements HttpHandler {
         }
     }
 
-    private int extractIdFromPath(String path, Pattern pattern) {
-        Matcher matcher = pattern.matcher(path);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
-        }
-        throw new IllegalArgumentException("Invalid path format");
+    //unknown types get genre-based recommendations, so they share the cache entry with "genre"
+    private static String normalizeRecommendationType(String type) {
+        String normalized = type.toLowerCase();
+        return switch (normalized) {
+            case "content", "collaborative", "latent" -> normalized;
+            default -> "genre";
+        };
     }
 
-    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
+    private List<Media> computeRecommendations(int userId, String type, int limit) {
+        switch (type) {
+            case "content":
+                return recommendationService.getContentBasedRecommendations(userId, limit);
+            case "collaborative":
+                return recommendationService.getCollaborativeRecommendations(userId, limit);
+            case "latent":
+                return recommendationService.getLatentFactorRecommendations(userId, limit);
+            case "genre":
+            default:
+                return recommendationService.getGenreBasedRecommendations(userId, limit);
         }
     }
 
-    private Map<String, String> parseQueryString(String query) {
-        return Arrays.stream(query.split("&"))
-                .map(param -> param.split("="))
-                .collect(Collectors.toMap(
-                        pair -> pair[0],
-                        pair -> pair.length > 1 ? pair[1] : ""
-                ));
+    private String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ResponseWriter.send(exchange, statusCode, "application/json", response.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package at.technikum_wien.handlers.util;
+
+//point-in-time view of gzip response compression, bytes are counted for compressed responses only
+public record CompressionStats(long compressedResponses, long uncompressedBytes, long compressedBytes, int pooledDeflaters) {
+    public long bytesSaved() {
+        return uncompressedBytes - compressedBytes;
+    }
+}
@@ -0,0 +1,80 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+
+//wraps a handler and records count, errors & latency per route template ("/api/media/{id}/rate")
+public class InstrumentedHandler implements HttpHandler {
+    private final HttpHandler delegate;
+    private final MetricsRegistry registry;
+
+    public InstrumentedHandler(HttpHandler delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            delegate.handle(exchange);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            int status = failed ? 500 : exchange.getResponseCode();
+            //404s are not turned into series, otherwise every scanner request would create one
+            String route = status == 404 ? MetricsRegistry.UNMATCHED_ROUTE : routeOf(exchange);
+            registry.recordRequest(exchange.getRequestMethod(), route, status, System.nanoTime() - start);
+        }
+    }
+
+    //template of the matched route if the handler uses a Router, otherwise derived from the path
+    private static String routeOf(HttpExchange exchange) {
+        if (exchange.getAttribute(Router.ROUTE_ATTRIBUTE) instanceof String template) {
+            return template;
+        }
+        return routeTemplate(exchange.getRequestURI().getPath());
+    }
+
+    //numeric path segments are ids -> "{id}", everything else is kept
+    public static String routeTemplate(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder template = null;
+        int segmentStart = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > segmentStart && isNumeric(path, segmentStart, i)) {
+                    if (template == null) {
+                        template = new StringBuilder(length + 8).append(path, 0, segmentStart);
+                    }
+                    template.append("{id}");
+                } else if (template != null) {
+                    template.append(path, segmentStart, i);
+                }
+                if (i < length && template != null) {
+                    template.append('/');
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return template == null ? path : template.toString(); //no ids -> no allocation
+    }
+
+    private static boolean isNumeric(String path, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,52 +1,141 @@
 package at.technikum_wien.handlers.util;
 
+import at.technikum_wien.models.entities.LeaderboardEntry;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MostLikedRating;
 import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.TopRatedMedia;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+//one mapper for the whole app -> Jackson keeps its serializer caches warm
+//writers/readers are immutable and thread-safe, so they are resolved once per type and reused
 public class JsonUtil {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
 
+    private static final ObjectWriter OBJECT_WRITER = objectMapper.writer();
+    private static final ObjectWriter MEDIA_WRITER = objectMapper.writerFor(Media.class);
+    private static final ObjectWriter MEDIA_LIST_WRITER = objectMapper.writerFor(new TypeReference<List<Media>>() {
+    });
+    private static final ObjectWriter RATING_LIST_WRITER = objectMapper.writerFor(new TypeReference<List<Rating>>() {
+    });
+    private static final ObjectWriter LEADERBOARD_LIST_WRITER = objectMapper.writerFor(new TypeReference<List<LeaderboardEntry>>() {
+    });
+    private static final ObjectWriter TOP_RATED_LIST_WRITER = objectMapper.writerFor(new TypeReference<List<TopRatedMedia>>() {
+    });
+    private static final ObjectWriter MOST_LIKED_LIST_WRITER = objectMapper.writerFor(new TypeReference<List<MostLikedRating>>() {
+    });
+
+    private static final int JSON_BUFFER_BYTES = Integer.getInteger("mrp.json.bufferBytes", 64 * 1024);
+
+    //rows of a stream must not flush one by one
+    private static final ObjectWriter NDJSON_WRITER = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final ObjectReader MAP_READER = objectMapper.readerFor(Map.class);
+    private static final ObjectReader OBJECT_MAP_READER = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+
+    @SuppressWarnings("unchecked")
     public static Map<String, String> parseJson(String json) throws IOException {
-        return objectMapper.readValue(json, Map.class);
+        return MAP_READER.readValue(json);
     }
 
-    public static String mediaToJson(Media media) throws IOException {
-        return objectMapper.writeValueAsString(media);
+    public static Map<String, Object> parseJsonToMap(String json) throws IOException {
+        return OBJECT_MAP_READER.readValue(json);
     }
 
-    public static Map<String, Object> parseJsonToMap(String json) throws IOException {
-        return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
-        });
+    public static String mediaToJson(Media media) throws IOException {
+        return MEDIA_WRITER.writeValueAsString(media);
     }
 
     public static String mediaListToJson(List<Media> mediaList) throws IOException {
-        return objectMapper.writeValueAsString(mediaList);
+        return MEDIA_LIST_WRITER.writeValueAsString(mediaList);
     }
 
     public static String ratingListToJson(List<Rating> ratings) {
-        //implement JSON serialization for ratings list
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(ratings);
+            return RATING_LIST_WRITER.writeValueAsString(ratings);
         } catch (Exception e) {
             return "[]";
         }
     }
 
     public static String objectToJson(Object object) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(object);
+        return OBJECT_WRITER.writeValueAsString(object);
     }
 
     public static String mapToJson(Map<String, Object> map) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(map);
+        return OBJECT_WRITER.writeValueAsString(map);
+    }
+
+    public static byte[] objectToJsonBytes(Object object) throws JsonProcessingException {
+        return OBJECT_WRITER.writeValueAsBytes(object);
+    }
+
+    //STREAMING -> serialized into the response body through a buffer of JSON_BUFFER_BYTES, no intermediate String
+    //bodies up to that size are complete before the status is committed, larger lists stream from there on
+    public static void writeMedia(HttpExchange exchange, int statusCode, Media media) throws IOException {
+        write(exchange, statusCode, MEDIA_WRITER, media);
+    }
+
+    public static void writeMediaList(HttpExchange exchange, int statusCode, List<Media> mediaList) throws IOException {
+        write(exchange, statusCode, MEDIA_LIST_WRITER, mediaList);
+    }
+
+    public static void writeRatingList(HttpExchange exchange, int statusCode, List<Rating> ratings) throws IOException {
+        write(exchange, statusCode, RATING_LIST_WRITER, ratings);
+    }
+
+    public static void writeLeaderboardEntries(HttpExchange exchange, int statusCode, List<LeaderboardEntry> entries) throws IOException {
+        write(exchange, statusCode, LEADERBOARD_LIST_WRITER, entries);
+    }
+
+    public static void writeTopRatedMedia(HttpExchange exchange, int statusCode, List<TopRatedMedia> media) throws IOException {
+        write(exchange, statusCode, TOP_RATED_LIST_WRITER, media);
+    }
+
+    public static void writeMostLikedRatings(HttpExchange exchange, int statusCode, List<MostLikedRating> ratings) throws IOException {
+        write(exchange, statusCode, MOST_LIKED_LIST_WRITER, ratings);
+    }
+
+    public static void writeObject(HttpExchange exchange, int statusCode, Object object) throws IOException {
+        write(exchange, statusCode, OBJECT_WRITER, object);
+    }
+
+    //NDJSON -> the caller writes the line breaks, so no separator between root values
+    public static JsonGenerator createGenerator(OutputStream os) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(os);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    public static void writeNdjsonValue(JsonGenerator generator, Object value) throws IOException {
+        NDJSON_WRITER.writeValue(generator, value);
+    }
+
+    //already serialized body (e.g. from a response cache)
+    public static void writeJsonBytes(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        ResponseWriter.send(exchange, statusCode, "application/json", body);
+    }
+
+    //a failure within the buffer commits nothing, so the handler can still answer with a clean 500 instead of a truncated 200
+    private static void write(HttpExchange exchange, int statusCode, ObjectWriter writer, Object value) throws IOException {
+        ResponseWriter.stream(exchange, statusCode, "application/json", JSON_BUFFER_BYTES, body -> writer.writeValue(body, value));
     }
-}
\ No newline at end of file
+}
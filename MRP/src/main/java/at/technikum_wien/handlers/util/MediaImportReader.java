@@ -0,0 +1,263 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaImportResult;
+import at.technikum_wien.models.enums.ImportFormat;
+import at.technikum_wien.models.enums.MediaTypes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+//turns an uploaded NDJSON/CSV body into media one record at a time, so the upload is never held in memory
+//invalid records are skipped and reported with their line number, the valid ones go on to the import
+public class MediaImportReader implements Iterator<Media> {
+    public static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_TITLE_LENGTH = 255; //media.title is VARCHAR(255)
+    private static final int MAX_GENRE_LENGTH = 50; //genres.name is VARCHAR(50), one longer name would roll back the whole import
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final int creatorId;
+
+    private final List<MediaImportResult.RowError> errors = new ArrayList<>();
+    private int failed;
+    private int line;
+    private List<String> header;
+    private Media next;
+    private boolean done;
+
+    public MediaImportReader(BufferedReader reader, ImportFormat format, int creatorId) {
+        this.reader = reader;
+        this.format = format;
+        this.creatorId = creatorId;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null && !done) {
+                next = format == ImportFormat.CSV ? readCsv() : readNdjson();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading import body", e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public Media next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Media media = next;
+        next = null;
+        return media;
+    }
+
+    public int getFailedCount() {
+        return failed;
+    }
+
+    public List<MediaImportResult.RowError> getErrors() {
+        return errors;
+    }
+
+    //HELPERS
+    //null -> nothing usable in this record, hasNext() reads on
+    private Media readNdjson() throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            done = true;
+            return null;
+        }
+        line++;
+        if (text.isBlank()) {
+            return null;
+        }
+
+        Map<String, Object> fields;
+        try {
+            fields = JsonUtil.parseJsonToMap(text);
+        } catch (IOException e) {
+            reject(line, "Invalid JSON");
+            return null;
+        }
+        return toMedia(fields, line);
+    }
+
+    private Media readCsv() throws IOException {
+        int start = line + 1;
+        List<String> values;
+        try {
+            values = readCsvRecord();
+        } catch (IllegalArgumentException e) {
+            reject(start, e.getMessage());
+            done = true;
+            return null;
+        }
+        if (values == null) {
+            done = true;
+            return null;
+        }
+        if (values.size() == 1 && values.get(0).isBlank()) {
+            return null;
+        }
+
+        if (header == null) {
+            header = values.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            if (!header.contains("title") || !(header.contains("type") || header.contains("mediatype"))) {
+                reject(start, "CSV header must contain title and type columns");
+                done = true;
+            }
+            return null;
+        }
+        if (values.size() != header.size()) {
+            reject(start, "Expected " + header.size() + " fields but found " + values.size());
+            return null;
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header.get(i), values.get(i));
+            }
+        }
+        return toMedia(fields, start);
+    }
+
+    //RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+    private List<String> readCsvRecord() throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            return null;
+        }
+        line++;
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) {
+                    break;
+                }
+                text = reader.readLine();
+                if (text == null) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                line++;
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    //same fields as POST /api/media, names are matched case-insensitively
+    private Media toMedia(Map<String, Object> raw, int recordLine) {
+        Map<String, Object> fields = new HashMap<>();
+        raw.forEach((name, value) -> fields.put(name.toLowerCase(Locale.ROOT), value));
+
+        Object type = fields.containsKey("type") ? fields.get("type") : fields.get("mediatype");
+        String mediaType = type != null ? type.toString().trim().toLowerCase(Locale.ROOT) : "";
+        if (Arrays.stream(MediaTypes.values()).noneMatch(known -> known.name().equals(mediaType))) {
+            reject(recordLine, "Unknown type '" + mediaType + "' (expected movie, series or game)");
+            return null;
+        }
+
+        String title = fields.get("title") != null ? fields.get("title").toString().trim() : "";
+        if (title.isEmpty()) {
+            reject(recordLine, "Title is required");
+            return null;
+        }
+        if (title.length() > MAX_TITLE_LENGTH) {
+            reject(recordLine, "Title is longer than " + MAX_TITLE_LENGTH + " characters");
+            return null;
+        }
+
+        int releaseYear;
+        int ageRestriction;
+        try {
+            releaseYear = parseInt(fields.get("releaseyear"));
+            ageRestriction = parseInt(fields.get("agerestriction"));
+        } catch (NumberFormatException e) {
+            reject(recordLine, "Invalid number format for releaseYear or ageRestriction");
+            return null;
+        }
+
+        List<String> genres = genres(fields.get("genres"));
+        for (String genre : genres) {
+            if (genre.length() > MAX_GENRE_LENGTH) {
+                reject(recordLine, "Genre is longer than " + MAX_GENRE_LENGTH + " characters");
+                return null;
+            }
+        }
+
+        String description = fields.get("description") != null ? fields.get("description").toString() : null;
+        return new Media(0, mediaType, title, description, releaseYear, ageRestriction, creatorId, genres);
+    }
+
+    //missing numbers are stored as 0, like POST /api/media does
+    private static int parseInt(Object value) {
+        return value == null ? 0 : Integer.parseInt(value.toString().trim());
+    }
+
+    //JSON array or "a;b;c", normalized like GenreRepository (trimmed, lowercase, no duplicates)
+    private static List<String> genres(Object value) {
+        List<?> names;
+        if (value instanceof List<?> list) {
+            names = list;
+        } else if (value != null) {
+            names = Arrays.asList(value.toString().split(";"));
+        } else {
+            return List.of();
+        }
+
+        Set<String> genres = new LinkedHashSet<>();
+        for (Object name : names) {
+            if (name != null && !name.toString().isBlank()) {
+                genres.add(name.toString().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(genres);
+    }
+
+    private void reject(int recordLine, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new MediaImportResult.RowError(recordLine, message));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package at.technikum_wien.handlers.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+//one JSON document per line into a chunked response
+//headers go out with the first row, so an error before that can still become a normal error response
+//the first row is flushed right away (gzip sync flush if compressed), after that the generator buffer decides when a chunk is sent
+public class NdjsonWriter implements AutoCloseable {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final HttpExchange exchange;
+    private JsonGenerator generator;
+    private long rows;
+
+    public NdjsonWriter(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public void write(Object row) throws IOException {
+        start();
+        JsonUtil.writeNdjsonValue(generator, row);
+        generator.writeRaw('\n');
+        if (++rows == 1) {
+            generator.flush();
+        }
+    }
+
+    public boolean isStarted() {
+        return generator != null;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    //headers are already out -> the only way left to tell the client is a last line
+    public void abort(String message) throws IOException {
+        start();
+        generator.writeRaw("{\"error\": " + JsonUtil.objectToJson(message) + "}\n");
+        close();
+    }
+
+    //an empty export is still a 200 with an empty body
+    @Override
+    public void close() throws IOException {
+        start();
+        generator.close(); //closes the response body -> terminating chunk
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            generator = JsonUtil.createGenerator(ResponseWriter.open(exchange, 200, CONTENT_TYPE));
+        }
+    }
+}
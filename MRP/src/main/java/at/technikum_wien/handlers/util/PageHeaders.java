@@ -0,0 +1,16 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.models.entities.Page;
+import com.sun.net.httpserver.HttpExchange;
+
+//the body stays a plain JSON array, the way to the next page travels in headers
+public class PageHeaders {
+    public static void apply(HttpExchange exchange, Page<?> page) {
+        if (!page.hasNext()) {
+            return;
+        }
+        String next = exchange.getRequestURI().getPath() + "?limit=" + page.pageSize() + "&cursor=" + page.nextCursor();
+        exchange.getResponseHeaders().set("X-Next-Cursor", page.nextCursor());
+        exchange.getResponseHeaders().set("Link", "<" + next + ">; rel=\"next\"");
+    }
+}
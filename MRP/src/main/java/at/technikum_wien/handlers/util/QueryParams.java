@@ -0,0 +1,35 @@
+package at.technikum_wien.handlers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//shared query string parsing for all handlers
+//the query from getRequestURI().getQuery() is already decoded, so this only splits on '&' and the first '='
+public class QueryParams {
+
+    public static Map<String, String> parse(String query) {
+        if (query == null || query.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> params = new HashMap<>();
+        int start = 0;
+        int length = query.length();
+        while (start <= length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                int equals = query.indexOf('=', start);
+                if (equals < 0 || equals > end) {
+                    params.putIfAbsent(query.substring(start, end), "");
+                } else if (equals > start) {
+                    params.putIfAbsent(query.substring(start, equals), query.substring(equals + 1, end)); //first value wins
+                }
+            }
+            start = end + 1;
+        }
+        return params;
+    }
+}
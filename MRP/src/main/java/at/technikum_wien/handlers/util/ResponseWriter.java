@@ -0,0 +1,292 @@
+package at.technikum_wien.handlers.util;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+//every response body goes through here -> gzip when the client sends Accept-Encoding: gzip and the body is big enough
+//small bodies are not worth it (gzip header + trailer alone are 18 bytes), so they keep a fixed Content-Length
+//Deflaters hold native memory until end() is called, a pool keeps one per busy worker instead of one per response
+public class ResponseWriter {
+    static final int MIN_BYTES = Integer.getInteger("mrp.compression.minBytes", 1024);
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("mrp.compression.enabled", "true"));
+    private static final int LEVEL = Integer.getInteger("mrp.compression.level", Deflater.DEFAULT_COMPRESSION);
+    private static final int POOL_SIZE = Integer.getInteger("mrp.compression.poolSize", Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(Math.max(1, POOL_SIZE));
+    private static final LongAdder compressedResponses = new LongAdder();
+    private static final LongAdder uncompressedBytes = new LongAdder();
+    private static final LongAdder compressedBytes = new LongAdder();
+
+    //body already in memory (error messages, cached leaderboard pages)
+    public static void send(HttpExchange exchange, int statusCode, String contentType, byte[] body) throws IOException {
+        try (OutputStream os = open(exchange, statusCode, contentType)) {
+            os.write(body);
+        }
+    }
+
+    //body written piece by piece (Jackson, NDJSON), headers are only sent once it is clear whether to compress:
+    //at close for bodies below the threshold, otherwise when the threshold is crossed or on flush()
+    public static OutputStream open(HttpExchange exchange, int statusCode, String contentType) {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        return new NegotiatedBody(exchange, statusCode, ENABLED && acceptsGzip(exchange.getRequestHeaders()), MIN_BYTES);
+    }
+
+    //body written by the callback, nothing is committed before bufferBytes are written or the callback returns:
+    //if it fails within the first bufferBytes no status/headers were sent and the caller can still answer with an error,
+    //if it fails later the status is already on the wire and the body ends where the failure happened
+    //flush()/close() from the callback are ignored, the body is closed here once the callback is done
+    public static void stream(HttpExchange exchange, int statusCode, String contentType, int bufferBytes, BodyWriter writer) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        NegotiatedBody body = new NegotiatedBody(exchange, statusCode, ENABLED && acceptsGzip(exchange.getRequestHeaders()), Math.max(MIN_BYTES, bufferBytes));
+        try {
+            writer.writeTo(new UncloseableBody(body));
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+        body.close();
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream body) throws IOException;
+    }
+
+    public static CompressionStats getStats() {
+        return new CompressionStats(compressedResponses.sum(), uncompressedBytes.sum(), compressedBytes.sum(), deflaters.size());
+    }
+
+    //"gzip", "gzip;q=0.8", "*" -> yes, "gzip;q=0", "identity" -> no
+    static boolean acceptsGzip(Headers requestHeaders) {
+        List<String> values = requestHeaders.get("Accept-Encoding");
+        if (values == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                boolean allowed = quality(parts) > 0;
+                if (name.equals("gzip") || name.equals("x-gzip")) {
+                    gzip = allowed;
+                } else if (name.equals("*")) {
+                    wildcard = allowed;
+                }
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
+
+    //HELPERS
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static Deflater borrowDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(LEVEL, true); //raw deflate, the gzip framing is written by hand
+    }
+
+    private static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end(); //pool full -> free the native memory now instead of waiting for the GC
+        }
+    }
+
+    //buffers up to bufferLimit (at least MIN_BYTES), then decides once
+    private static final class NegotiatedBody extends OutputStream {
+        private final HttpExchange exchange;
+        private final int statusCode;
+        private final boolean gzipAccepted;
+        private final int bufferLimit;
+        private byte[] buffer = new byte[Math.min(MIN_BYTES, 8192)];
+        private int count;
+        private OutputStream target;
+        private boolean closed;
+
+        private NegotiatedBody(HttpExchange exchange, int statusCode, boolean gzipAccepted, int bufferLimit) {
+            this.exchange = exchange;
+            this.statusCode = statusCode;
+            this.gzipAccepted = gzipAccepted;
+            this.bufferLimit = bufferLimit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target == null) {
+                if (count + length <= bufferLimit) {
+                    if (count + length > buffer.length) {
+                        buffer = Arrays.copyOf(buffer, Math.min(bufferLimit, Math.max(buffer.length * 2, count + length)));
+                    }
+                    System.arraycopy(bytes, offset, buffer, count, length);
+                    count += length;
+                    return;
+                }
+                commit(gzipAccepted, -1);
+            }
+            target.write(bytes, offset, length);
+        }
+
+        //a caller that flushes wants bytes on the wire now -> the length is unknown, stream (compressed if accepted)
+        @Override
+        public void flush() throws IOException {
+            if (target == null) {
+                commit(gzipAccepted, -1);
+            }
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (target == null) {
+                //whole body fits in the buffer -> only compress if it reached the threshold
+                commit(gzipAccepted && count >= MIN_BYTES, count);
+            }
+            target.close();
+        }
+
+        //nothing committed -> drop the buffer, the exchange is untouched
+        //committed -> end the body so the exchange and the deflater are released, the client gets what was written
+        private void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (target == null) {
+                buffer = null;
+                return;
+            }
+            try {
+                target.close();
+            } catch (IOException e) {
+                System.err.println("Error closing aborted response: " + e.getMessage());
+            }
+        }
+
+        private void commit(boolean gzip, int knownLength) throws IOException {
+            Headers headers = exchange.getResponseHeaders();
+            if (ENABLED && (knownLength < 0 || knownLength >= MIN_BYTES)) {
+                headers.add("Vary", "Accept-Encoding"); //caches must not hand a gzip body to a client that did not ask for it
+            }
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(statusCode, 0); //compressed length unknown -> chunked
+                target = new GzipBody(exchange.getResponseBody(), borrowDeflater());
+            } else {
+                exchange.sendResponseHeaders(statusCode, knownLength > 0 ? knownLength : knownLength == 0 ? -1 : 0); //-1 -> no body, 0 -> chunked
+                target = exchange.getResponseBody();
+            }
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            buffer = null;
+        }
+    }
+
+    //Jackson flushes (and may close) its target when a value is done, that must not commit or end the response early
+    private static final class UncloseableBody extends OutputStream {
+        private final OutputStream body;
+
+        private UncloseableBody(OutputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            body.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            body.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    //same framing as java.util.zip.GZIPOutputStream, which always allocates its own Deflater
+    private static final class GzipBody extends DeflaterOutputStream {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final CRC32 crc = new CRC32();
+        private boolean finished;
+
+        private GzipBody(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, 8192, true); //syncFlush -> flush() pushes what was written so far to the client
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            super.write(bytes, offset, length);
+            crc.update(bytes, offset, length);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            super.finish();
+            writeIntLe((int) crc.getValue());
+            writeIntLe((int) def.getBytesRead()); //ISIZE is the length mod 2^32
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+                compressedResponses.increment();
+                uncompressedBytes.add(def.getBytesRead());
+                compressedBytes.add(def.getBytesWritten() + HEADER.length + 8);
+            } finally {
+                releaseDeflater(def);
+                out.close();
+            }
+        }
+
+        private void writeIntLe(int value) throws IOException {
+            out.write(new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)});
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package at.technikum_wien.handlers.util;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//segment trie built once per handler, resolves a path in O(segments) without regex
+//templates: "/api/media/{id:int}/rate" (digits only, parsed in place) or "/api/users/{name}" (any non-empty segment)
+//literal segments win over parameters, e.g. "/api/users/login" before "/api/users/{id:int}"
+public class Router {
+    //set on the exchange when a route matched, picked up by InstrumentedHandler as the metrics label
+    public static final String ROUTE_ATTRIBUTE = "mrp.route";
+
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange, PathParams params) throws IOException;
+    }
+
+    public enum Status {FOUND, NOT_FOUND, METHOD_NOT_ALLOWED}
+
+    private final Node root = new Node();
+
+    public Router add(String method, String template, Route route) {
+        if (template == null || !template.startsWith("/")) {
+            throw new IllegalArgumentException("Route template must start with '/': " + template);
+        }
+
+        Node node = root;
+        List<String> paramNames = new ArrayList<>();
+        for (String segment : template.substring(1).split("/", -1)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String spec = segment.substring(1, segment.length() - 1);
+                int colon = spec.indexOf(':');
+                String name = colon < 0 ? spec : spec.substring(0, colon);
+                ParamType type = colon < 0 ? ParamType.STRING : ParamType.parse(spec.substring(colon + 1));
+                node = node.paramChild(name, type, template);
+                paramNames.add(name);
+            } else if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Empty segment in route template: " + template);
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+
+        if (node.endpoints.putIfAbsent(method, new Endpoint(route, paramNames.toArray(new String[0]))) != null) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + template);
+        }
+        node.template = template.replaceAll(":[a-z]+}", "}"); //"/api/media/{id}", same label as the path based templates
+        node.allowHeader = String.join(", ", node.endpoints.keySet());
+        return this;
+    }
+
+    public Match resolve(String method, String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return Match.NOT_FOUND;
+        }
+
+        Object[] values = new Object[8];
+        Node node = find(root, path, 1, values, 0);
+        if (node == null || node.endpoints.isEmpty()) {
+            return Match.NOT_FOUND;
+        }
+
+        Endpoint endpoint = node.endpoints.get(method);
+        if (endpoint == null) {
+            return new Match(Status.METHOD_NOT_ALLOWED, null, null, node.template, node.allowHeader);
+        }
+        return new Match(Status.FOUND, endpoint.route(), new PathParams(endpoint.paramNames(), values), node.template, node.allowHeader);
+    }
+
+    //HELPERS
+    //depth first, literal before parameter; backtracks only when a deeper segment does not match
+    private static Node find(Node node, String path, int start, Object[] values, int depth) {
+        int length = path.length();
+        if (start > length) {
+            return node;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+        if (end == start) {
+            return null; //empty segment ("//" or trailing "/")
+        }
+
+        Node literal = node.matchLiteral(path, start, end);
+        if (literal != null) {
+            Node found = find(literal, path, end + 1, values, depth);
+            if (found != null && !found.endpoints.isEmpty()) {
+                return found;
+            }
+        }
+
+        Node param = node.paramChild;
+        if (param != null && depth < values.length) {
+            Object value = param.paramType.read(path, start, end);
+            if (value != null) {
+                values[depth] = value;
+                Node found = find(param, path, end + 1, values, depth + 1);
+                if (found != null && !found.endpoints.isEmpty()) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private enum ParamType {
+        INT, STRING;
+
+        static ParamType parse(String type) {
+            return switch (type) {
+                case "int" -> INT;
+                case "string" -> STRING;
+                default -> throw new IllegalArgumentException("Unknown path parameter type: " + type);
+            };
+        }
+
+        //null -> segment does not fit the type
+        Object read(String path, int start, int end) {
+            if (this == STRING) {
+                return path.substring(start, end);
+            }
+            if (end - start > 10) {
+                return null;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                char c = path.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value <= Integer.MAX_VALUE ? (int) value : null;
+        }
+    }
+
+    private static final class Node {
+        private String[] literalNames = new String[0];
+        private Node[] literalNodes = new Node[0];
+        private Node paramChild;
+        private String paramName;
+        private ParamType paramType;
+        private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        private String template;
+        private String allowHeader;
+
+        //few children per node -> a linear regionMatches scan beats hashing a substring
+        private Node matchLiteral(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literalNames.length; i++) {
+                String name = literalNames[i];
+                if (name.length() == length && path.regionMatches(start, name, 0, length)) {
+                    return literalNodes[i];
+                }
+            }
+            return null;
+        }
+
+        private Node literalChild(String segment) {
+            for (int i = 0; i < literalNames.length; i++) {
+                if (literalNames[i].equals(segment)) {
+                    return literalNodes[i];
+                }
+            }
+            int size = literalNames.length;
+            literalNames = Arrays.copyOf(literalNames, size + 1);
+            literalNodes = Arrays.copyOf(literalNodes, size + 1);
+            literalNames[size] = segment;
+            literalNodes[size] = new Node();
+            return literalNodes[size];
+        }
+
+        private Node paramChild(String name, ParamType type, String template) {
+            if (paramChild == null) {
+                paramChild = new Node();
+                paramChild.paramName = name;
+                paramChild.paramType = type;
+            } else if (!paramChild.paramName.equals(name) || paramChild.paramType != type) {
+                throw new IllegalArgumentException("Conflicting path parameter in " + template + ": {" + paramChild.paramName + "} already registered");
+            }
+            return paramChild;
+        }
+    }
+
+    private record Endpoint(Route route, String[] paramNames) {
+    }
+
+    public record Match(Status status, Route route, PathParams params, String template, String allowHeader) {
+        private static final Match NOT_FOUND = new Match(Status.NOT_FOUND, null, null, null, null);
+
+        public void dispatch(HttpExchange exchange) throws IOException {
+            exchange.setAttribute(ROUTE_ATTRIBUTE, template);
+            route.handle(exchange, params);
+        }
+    }
+
+    //values in template order, looked up by name (routes have one or two parameters)
+    public static final class PathParams {
+        private final String[] names;
+        private final Object[] values;
+
+        private PathParams(String[] names, Object[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        public int getInt(String name) {
+            return (Integer) get(name);
+        }
+
+        public String getString(String name) {
+            return String.valueOf(get(name));
+        }
+
+        private Object get(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            throw new IllegalArgumentException("Unknown path parameter: " + name);
+        }
+    }
+}
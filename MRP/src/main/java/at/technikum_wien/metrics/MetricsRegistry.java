@@ -0,0 +1,203 @@
+package at.technikum_wien.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+//request & JDBC timings plus a few gauges, rendered in the Prometheus text format (0.0.4)
+//recording is a map lookup + atomic increments, series are only sorted and formatted on scrape
+public class MetricsRegistry {
+    public static final String UNMATCHED_ROUTE = "{unmatched}";
+
+    //seconds, what the histogram buckets are reported as
+    private static final double[] BUCKET_BOUNDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    //protects the scrape from unbounded label values
+    private static final int MAX_SERIES = 512;
+
+    private final ConcurrentHashMap<String, RequestSeries> requests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> jdbc = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SnapshotHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void recordRequest(String method, String route, int status, long durationNanos) {
+        String key = method + ' ' + route;
+        RequestSeries series = requests.get(key);
+        if (series == null) {
+            if (requests.size() >= MAX_SERIES) {
+                key = method + ' ' + UNMATCHED_ROUTE;
+                route = UNMATCHED_ROUTE;
+            }
+            String seriesRoute = route;
+            series = requests.computeIfAbsent(key, k -> new RequestSeries(method, seriesRoute));
+        }
+        series.latency.recordNanos(durationNanos);
+        if (status >= 500 || status < 0) {
+            series.errors.increment();
+        }
+    }
+
+    //caller is "Repository.method", see ConnectionUsageListener
+    public void recordJdbc(String caller, long durationNanos) {
+        LatencyHistogram histogram = jdbc.get(caller);
+        if (histogram == null) {
+            histogram = jdbc.computeIfAbsent(jdbc.size() >= MAX_SERIES ? "other" : caller, k -> new LatencyHistogram());
+        }
+        histogram.recordNanos(durationNanos);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value) {
+        gauge(name, "", help, value);
+    }
+
+    //labels already rendered, e.g. cache="media"
+    public void gauge(String name, String labels, String help, DoubleSupplier value) {
+        gauges.put(seriesKey(name, labels), new Gauge(name, labels, help, "gauge", value));
+    }
+
+    public void counter(String name, String help, DoubleSupplier value) {
+        counter(name, "", help, value);
+    }
+
+    public void counter(String name, String labels, String help, DoubleSupplier value) {
+        gauges.put(seriesKey(name, labels), new Gauge(name, labels, help, "counter", value));
+    }
+
+    //histograms somebody else already keeps (pool acquire, password hashing)
+    public void histogram(String name, String help, Supplier<LatencyHistogram.Snapshot> snapshot) {
+        histograms.put(name, new SnapshotHistogram(help, snapshot));
+    }
+
+    public RequestSnapshot getRequestSnapshot(String method, String route) {
+        RequestSeries series = requests.get(method + ' ' + route);
+        return series == null ? null : new RequestSnapshot(series.latency.snapshot(), series.errors.sum());
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        List<RequestSeries> requestSeries = new ArrayList<>(requests.values());
+        requestSeries.sort(Comparator.comparing((RequestSeries series) -> series.route).thenComparing(series -> series.method));
+        List<LatencyHistogram.Snapshot> requestSnapshots = new ArrayList<>(requestSeries.size());
+        for (RequestSeries series : requestSeries) {
+            requestSnapshots.add(series.latency.snapshot());
+        }
+
+        header(out, "mrp_http_requests_total", "Requests handled per route template", "counter");
+        for (int i = 0; i < requestSeries.size(); i++) {
+            sample(out, "mrp_http_requests_total", requestLabels(requestSeries.get(i)), requestSnapshots.get(i).getCount());
+        }
+        header(out, "mrp_http_request_errors_total", "Requests answered with 5xx or failed with an exception", "counter");
+        for (RequestSeries series : requestSeries) {
+            sample(out, "mrp_http_request_errors_total", requestLabels(series), series.errors.sum());
+        }
+        header(out, "mrp_http_request_duration_seconds", "Request latency per route template", "histogram");
+        for (int i = 0; i < requestSeries.size(); i++) {
+            histogramSamples(out, "mrp_http_request_duration_seconds", requestLabels(requestSeries.get(i)), requestSnapshots.get(i));
+        }
+
+        header(out, "mrp_jdbc_duration_seconds", "Connection hold time per repository method", "histogram");
+        jdbc.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            String caller = entry.getKey();
+            int dot = caller.indexOf('.');
+            String labels = dot < 0
+                    ? "repository=\"" + escape(caller) + "\",method=\"\""
+                    : "repository=\"" + escape(caller.substring(0, dot)) + "\",method=\"" + escape(caller.substring(dot + 1)) + "\"";
+            histogramSamples(out, "mrp_jdbc_duration_seconds", labels, entry.getValue().snapshot());
+        });
+
+        histograms.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot().get();
+            if (snapshot != null) {
+                header(out, entry.getKey(), entry.getValue().help(), "histogram");
+                histogramSamples(out, entry.getKey(), "", snapshot);
+            }
+        });
+
+        String lastHeader = null;
+        for (Gauge gauge : gauges.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(Map.Entry::getValue).toList()) {
+            double value = gauge.value().getAsDouble();
+            if (Double.isNaN(value)) {
+                continue; //source not available (e.g. pool not created yet)
+            }
+            if (!gauge.name().equals(lastHeader)) {
+                header(out, gauge.name(), gauge.help(), gauge.type());
+                lastHeader = gauge.name();
+            }
+            out.append(gauge.name());
+            if (!gauge.labels().isEmpty()) {
+                out.append('{').append(gauge.labels()).append('}');
+            }
+            out.append(' ').append(formatNumber(value)).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    //HELPERS
+    private static String seriesKey(String name, String labels) {
+        return labels.isEmpty() ? name : name + "{" + labels + "}";
+    }
+
+    private static String requestLabels(RequestSeries series) {
+        return "method=\"" + escape(series.method) + "\",route=\"" + escape(series.route) + "\"";
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void histogramSamples(StringBuilder out, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double bound : BUCKET_BOUNDS) {
+            long count = snapshot.countAtOrBelowMicros((long) (bound * 1_000_000));
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(formatNumber(bound)).append("\"} ").append(count).append('\n');
+        }
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(snapshot.getCount()).append('\n');
+        String suffixLabels = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffixLabels).append(' ').append(formatNumber(snapshot.getSumMicros() / 1_000_000.0)).append('\n');
+        out.append(name).append("_count").append(suffixLabels).append(' ').append(snapshot.getCount()).append('\n');
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class RequestSeries {
+        private final String method;
+        private final String route;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        private RequestSeries(String method, String route) {
+            this.method = method;
+            this.route = route;
+        }
+    }
+
+    public record RequestSnapshot(LatencyHistogram.Snapshot latency, long errors) {
+    }
+
+    private record Gauge(String name, String labels, String help, String type, DoubleSupplier value) {
+    }
+
+    private record SnapshotHistogram(String help, Supplier<LatencyHistogram.Snapshot> snapshot) {
+    }
+}
@@ -0,0 +1,5 @@
+package at.technikum_wien.models.entities;
+
+//what one user did with one media: stars of the rating (0 = not rated) and whether it is a favorite
+public record Interaction(int userId, int mediaId, int stars, boolean favorite) {
+}
@@ -0,0 +1,30 @@
+package at.technikum_wien.models.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//sections that failed or timed out stay empty and are listed in missingSections
+@Getter(AccessLevel.PUBLIC)
+@Setter(AccessLevel.PUBLIC)
+public class LeaderboardSummary {
+    private List<LeaderboardEntry> topUsers = new ArrayList<>();
+    private List<TopRatedMedia> topRatedMedia = new ArrayList<>();
+    private List<MostLikedRating> mostLikedRatings = new ArrayList<>();
+    private List<String> trendingGenres = new ArrayList<>();
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> missingSections = new ArrayList<>();
+
+    public LeaderboardSummary() {}
+
+    @JsonIgnore
+    public boolean isPartial() {
+        return !missingSections.isEmpty();
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter(AccessLevel.PUBLIC)
@@ -42,4 +43,11 @@ public class Media {
 
     public Media() {}
 
+    //independent copy (incl. the genre list), used by caches that hand out entities
+    public Media copy() {
+        Media copy = new Media(id, type, title, description, release_year, age_restriction, creator_id, genres != null ? new ArrayList<>(genres) : null);
+        copy.setRating(rating);
+        return copy;
+    }
+
 }
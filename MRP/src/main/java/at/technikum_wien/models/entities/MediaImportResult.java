@@ -0,0 +1,11 @@
+package at.technikum_wien.models.entities;
+
+import java.util.List;
+
+//outcome of a bulk import: failed counts every rejected row, errors only lists the first ones
+public record MediaImportResult(int imported, int failed, List<RowError> errors) {
+
+    //line = first line of the record in the uploaded file
+    public record RowError(int line, String message) {
+    }
+}
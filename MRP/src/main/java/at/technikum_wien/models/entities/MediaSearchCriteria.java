@@ -0,0 +1,23 @@
+package at.technikum_wien.models.entities;
+
+//filters, sort order & page for a media search, null filters are ignored
+//title only matches titles, query (?q=) matches title or description
+public record MediaSearchCriteria(String title, String query, String genre, String mediaType, Integer releaseYear, Integer ageRestriction, String sortBy, int limit, int offset) {
+
+    public MediaSearchCriteria {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+    }
+
+    public MediaSearchCriteria(String title, String genre, String mediaType, Integer releaseYear, Integer ageRestriction, String sortBy, int limit, int offset) {
+        this(title, null, genre, mediaType, releaseYear, ageRestriction, sortBy, limit, offset);
+    }
+
+    public boolean hasText() {
+        return (title != null && !title.isBlank()) || (query != null && !query.isBlank());
+    }
+}
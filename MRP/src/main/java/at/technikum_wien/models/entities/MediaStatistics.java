@@ -0,0 +1,32 @@
+package at.technikum_wien.models.entities;
+
+//aggregated counters for one media entry, immutable so readers never see half an update
+public record MediaStatistics(int mediaId, int ratingCount, long starSum, int favoriteCount, int likeCount) {
+    public static MediaStatistics empty(int mediaId) {
+        return new MediaStatistics(mediaId, 0, 0, 0, 0);
+    }
+
+    public double averageRating() {
+        return ratingCount == 0 ? 0.0 : (double) starSum / ratingCount;
+    }
+
+    //sum of stars plus half a point per favorite, media without ratings rank by favorites only
+    public double popularityScore() {
+        if (ratingCount == 0) {
+            return favoriteCount;
+        }
+        return starSum + (favoriteCount * 0.5);
+    }
+
+    public MediaStatistics withRating(int starsDelta, int countDelta) {
+        return new MediaStatistics(mediaId, Math.max(0, ratingCount + countDelta), Math.max(0, starSum + starsDelta), favoriteCount, likeCount);
+    }
+
+    public MediaStatistics withFavorites(int delta) {
+        return new MediaStatistics(mediaId, ratingCount, starSum, Math.max(0, favoriteCount + delta), likeCount);
+    }
+
+    public MediaStatistics withLikes(int delta) {
+        return new MediaStatistics(mediaId, ratingCount, starSum, favoriteCount, Math.max(0, likeCount + delta));
+    }
+}
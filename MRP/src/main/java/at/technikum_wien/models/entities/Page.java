@@ -0,0 +1,10 @@
+package at.technikum_wien.models.entities;
+
+import java.util.List;
+
+//one slice of a keyset-paginated list, nextCursor is null on the last page
+public record Page<T>(List<T> items, String nextCursor, int pageSize) {
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -35,4 +35,9 @@ public class Rating {
         this.comment = comment;
         this.confirmed = false;
     }
+
+    //independent copy, used by caches that hand out entities
+    public Rating copy() {
+        return new Rating(id, media_id, user_id, stars, comment, confirmed, created_at);
+    }
 }
@@ -0,0 +1,47 @@
+package at.technikum_wien.models.entities;
+
+import java.util.Arrays;
+
+//(user, media, stars) triples in parallel primitive arrays -> 9 bytes per rating instead of a Rating object
+//10^7 ratings are ~90MB here, as Rating objects they would not fit a normal heap
+public final class RatingMatrix {
+    private int[] userIds;
+    private int[] mediaIds;
+    private byte[] stars;
+    private int size;
+
+    public RatingMatrix(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.userIds = new int[capacity];
+        this.mediaIds = new int[capacity];
+        this.stars = new byte[capacity];
+    }
+
+    public void add(int userId, int mediaId, int stars) {
+        if (size == userIds.length) {
+            int capacity = userIds.length + (userIds.length >> 1);
+            userIds = Arrays.copyOf(userIds, capacity);
+            mediaIds = Arrays.copyOf(mediaIds, capacity);
+            this.stars = Arrays.copyOf(this.stars, capacity);
+        }
+        userIds[size] = userId;
+        mediaIds[size] = mediaId;
+        this.stars[size++] = (byte) stars;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int userId(int index) {
+        return userIds[index];
+    }
+
+    public int mediaId(int index) {
+        return mediaIds[index];
+    }
+
+    public int stars(int index) {
+        return stars[index];
+    }
+}
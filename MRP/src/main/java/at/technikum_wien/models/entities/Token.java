@@ -0,0 +1,23 @@
+package at.technikum_wien.models.entities;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter(AccessLevel.PUBLIC)
+@Setter(AccessLevel.PUBLIC)
+public class Token {
+    private String token;
+    private int userId;
+    private LocalDateTime expiresAt;
+
+    public Token() {}
+
+    public Token(String token, int userId, LocalDateTime expiresAt) {
+        this.token = token;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+}
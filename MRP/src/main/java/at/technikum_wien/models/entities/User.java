@@ -32,4 +32,11 @@ public class User {
 
     public User() {
     }
+
+    //independent copy, used by caches that hand out entities
+    public User copy() {
+        User copy = new User(id, username, passwordHash, null, createdAt);
+        copy.setFavoriteGenre(favoriteGenre);
+        return copy;
+    }
 }
@@ -0,0 +1,28 @@
+package at.technikum_wien.models.enums;
+
+import java.util.Locale;
+
+//body formats accepted by POST /api/media/import
+public enum ImportFormat {
+    NDJSON, //one JSON object per line, same fields as POST /api/media
+    CSV;    //header line + one record per row, genres separated by ';'
+
+    //no Content-Type -> NDJSON
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return NDJSON;
+        }
+        String mimeType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        switch (mimeType) {
+            case "text/csv":
+                return CSV;
+            case "application/x-ndjson":
+            case "application/ndjson":
+            case "application/jsonl":
+            case "application/json":
+                return NDJSON;
+            default:
+                throw new IllegalArgumentException("Unsupported content type: " + mimeType + " (expected application/x-ndjson or text/csv)");
+        }
+    }
+}
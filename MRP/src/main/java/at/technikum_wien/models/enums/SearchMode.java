@@ -0,0 +1,15 @@
+package at.technikum_wien.models.enums;
+
+//who answers text searches (?title= / ?q=)
+public enum SearchMode {
+    INDEX,    //in-memory word/trigram index in the JVM
+    FULLTEXT; //PostgreSQL tsvector + GIN index
+
+    public static SearchMode fromString(String value) {
+        try {
+            return SearchMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown search mode: " + value + " (expected index or fulltext)");
+        }
+    }
+}
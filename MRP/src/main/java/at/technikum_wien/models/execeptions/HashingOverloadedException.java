@@ -0,0 +1,8 @@
+package at.technikum_wien.models.execeptions;
+
+//thrown when the password hashing queue is full or a hash did not finish in time -> 503, client should retry
+public class HashingOverloadedException extends RuntimeException {
+    public HashingOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package at.technikum_wien.models.execeptions;
+
+//thrown for a pagination cursor the server did not issue (or can no longer read) -> 400, never confused with a missing resource
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException() {
+        super("Invalid cursor");
+    }
+
+    public InvalidCursorException(Throwable cause) {
+        super("Invalid cursor", cause);
+    }
+}
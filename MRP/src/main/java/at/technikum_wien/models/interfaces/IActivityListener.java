@@ -0,0 +1,46 @@
+package at.technikum_wien.models.interfaces;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.User;
+
+//callbacks fired by the services after a write went through
+//everything is a no-op by default so listeners only override what they care about
+public interface IActivityListener {
+    default void onRatingCreated(Rating rating) {
+    }
+
+    default void onRatingUpdated(Rating rating, int previousStars) {
+    }
+
+    default void onRatingDeleted(Rating rating) {
+    }
+
+    default void onRatingLiked(Rating rating, int userId) {
+    }
+
+    default void onRatingConfirmed(Rating rating) {
+    }
+
+    default void onFavoriteAdded(int userId, int mediaId) {
+    }
+
+    default void onFavoriteRemoved(int userId, int mediaId) {
+    }
+
+    default void onMediaCreated(Media media) {
+    }
+
+    default void onMediaUpdated(Media media) {
+    }
+
+    default void onMediaDeleted(Media media) {
+    }
+
+    //bulk import, the single media are not handed out (there can be 100k+ of them)
+    default void onMediaImported(int creatorId, int count) {
+    }
+
+    default void onUserRegistered(User user) {
+    }
+}
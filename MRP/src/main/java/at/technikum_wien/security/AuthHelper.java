@@ -3,15 +3,41 @@ package at.technikum_wien.security;
 import com.sun.net.httpserver.HttpExchange;
 import at.technikum_wien.database.repositories.TokenRepository;
 
+import java.time.Clock;
+import java.time.Duration;
+
 public class AuthHelper {
+    private static final TokenCache tokenCache = new TokenCache(
+            TokenRepository::findValidToken,
+            TokenRepository::touchTokens,
+            Integer.getInteger("mrp.auth.tokenCacheSize", 10_000),
+            Duration.ofMinutes(5),
+            Duration.ofSeconds(Long.getLong("mrp.auth.touchFlushSeconds", 10)),
+            Clock.systemDefaultZone());
+
     public static Integer getUserIdFromAuthHeader(HttpExchange exchange) {
+        String token = getTokenFromAuthHeader(exchange);
+        if (token != null) {
+            //validation (cached, last_used_at is flushed in batches)
+            return tokenCache.getUserId(token);
+        }
+        return null;
+    }
+
+    public static String getTokenFromAuthHeader(HttpExchange exchange) {
         String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-
-            //validation
-            return TokenRepository.getUserIdFromToken(token);
-            }
+            return authHeader.substring(7);
+        }
         return null;
     }
-}
\ No newline at end of file
+
+    public static void invalidateToken(String token) {
+        tokenCache.invalidate(token);
+    }
+
+    //writes outstanding last_used_at touches, called on shutdown
+    public static void shutdown() {
+        tokenCache.close();
+    }
+}
@@ -0,0 +1,118 @@
+package at.technikum_wien.security;
+
+import at.technikum_wien.metrics.LatencyHistogram;
+import at.technikum_wien.models.execeptions.HashingOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+//runs bcrypt work on a fixed number of threads with a bounded queue
+//a login burst can only occupy these workers, request threads just wait for the result (cheap with virtual threads)
+//when the queue is full new work is rejected right away instead of piling up -> the caller answers 503
+public class HashingExecutor implements AutoCloseable {
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+    private final Duration maxWait;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram hashLatency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public HashingExecutor(int workers, int queueCapacity, Duration maxWait) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("workers and queueCapacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxWait = maxWait;
+
+        ThreadFactory threads = Thread.ofPlatform().name("mrp-hash-", 0).daemon(true).factory();
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), threads, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    //blocks until the task ran, throws HashingOverloadedException if it could not be queued or took longer than maxWait
+    //a timeout only stops waiting: bcrypt does not react to interrupts, so a hash that already started keeps its worker
+    //until it is done (cancel only keeps still queued work from starting)
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = pool.submit(timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingOverloadedException("Password hashing is overloaded, try again later");
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new HashingOverloadedException("Password hashing timed out, try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    //fire & forget for optional work (e.g. rehashing), only queued if less than half the queue is in use
+    public boolean tryExecuteInBackground(Runnable task) {
+        if (pool.getQueue().size() >= queueCapacity / 2) {
+            return false;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    timed(() -> {
+                        task.run();
+                        return null;
+                    }).call();
+                } catch (Exception e) {
+                    System.err.println("Error in background password hashing: " + e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public HashingStats getStats(int cost) {
+        return new HashingStats(cost, pool.getMaximumPoolSize(), pool.getQueue().size(), queueCapacity, completed.sum(), rejected.sum(), timedOut.sum(), queueWait.snapshot(), hashLatency.snapshot());
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    //HELPERS
+    private <T> Callable<T> timed(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            queueWait.recordNanos(startedAt - enqueuedAt);
+            try {
+                return task.call();
+            } finally {
+                hashLatency.recordNanos(System.nanoTime() - startedAt);
+                completed.increment();
+            }
+        };
+    }
+}
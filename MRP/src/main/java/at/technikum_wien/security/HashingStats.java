@@ -0,0 +1,7 @@
+package at.technikum_wien.security;
+
+import at.technikum_wien.metrics.LatencyHistogram;
+
+//point-in-time view of the password hashing executor
+public record HashingStats(int cost, int workers, int queueDepth, int queueCapacity, long completed, long rejected, long timedOut, LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot hashLatency) {
+}
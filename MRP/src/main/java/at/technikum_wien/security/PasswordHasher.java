@@ -2,14 +2,102 @@ package at.technikum_wien.security;
 
 import at.favre.lib.crypto.bcrypt.BCrypt;
 
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+
+//bcrypt work runs on a bounded executor, callers block for the result and get a HashingOverloadedException when it is full
+//the cost is calibrated once at startup so a hash takes about mrp.auth.hashTargetMillis on this machine
 public class PasswordHasher {
+    //calibration may only raise the cost: the floor is the fixed cost hashes had before calibration existed,
+    //needsRehash never downgrades, so a weaker cost picked on a slow host would stick to every new hash
+    static final int MIN_COST = Integer.getInteger("mrp.auth.bcryptMinCost", 12);
+    static final int MAX_COST = 16;
+
+    private static final HashingExecutor executor = new HashingExecutor(
+            Integer.getInteger("mrp.auth.hashThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+            Integer.getInteger("mrp.auth.hashQueueSize", 64),
+            Duration.ofMillis(Long.getLong("mrp.auth.hashTimeoutMillis", 5_000)));
+
+    private static volatile int cost = 12;
 
     public static String hashPassword(String plainTextPassword) {
-        return BCrypt.withDefaults().hashToString(12, plainTextPassword.toCharArray());
+        int currentCost = cost;
+        return executor.execute(() -> hash(plainTextPassword, currentCost));
     }
 
     public static boolean checkPassword(String plainTextPassword, String hashedPassword) {
+        return executor.execute(() -> verify(plainTextPassword, hashedPassword));
+    }
+
+    //hashes made with a lower cost than the current one should be upgraded; never downgrades
+    public static boolean needsRehash(String hashedPassword) {
+        int hashCost = costOf(hashedPassword);
+        return hashCost > 0 && hashCost < cost;
+    }
+
+    //best effort: skipped when the executor is busy, the next login tries again
+    public static void rehashInBackground(String plainTextPassword, Consumer<String> hashWriter) {
+        int currentCost = cost;
+        executor.tryExecuteInBackground(() -> hashWriter.accept(hash(plainTextPassword, currentCost)));
+    }
+
+    public static int calibrate(Duration target) {
+        hash("warmup", MIN_COST); //first call pays for class loading / JIT
+        cost = calibrateCost(target, MIN_COST, MAX_COST, PasswordHasher::timeHash);
+        return cost;
+    }
+
+    public static int getCost() {
+        return cost;
+    }
+
+    public static HashingStats getStats() {
+        return executor.getStats(cost);
+    }
+
+    public static void shutdown() {
+        executor.close();
+    }
+
+    //each cost step doubles the work -> measure the cheapest cost once and extrapolate
+    //picks the highest cost whose estimated time still fits the target, clamped to [minCost, maxCost]
+    static int calibrateCost(Duration target, int minCost, int maxCost, IntToLongFunction nanosForCost) {
+        long baseNanos = Math.max(1, Math.min(nanosForCost.applyAsLong(minCost), nanosForCost.applyAsLong(minCost)));
+        long targetNanos = target.toNanos();
+
+        int calibrated = minCost;
+        while (calibrated < maxCost && baseNanos << (calibrated + 1 - minCost) <= targetNanos) {
+            calibrated++;
+        }
+        return calibrated;
+    }
+
+    //"$2a$12$..." -> 12, 0 if the hash is not a bcrypt string
+    static int costOf(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$' || hashedPassword.charAt(3) != '$' || hashedPassword.charAt(6) != '$') {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(hashedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    //HELPERS
+    private static String hash(String plainTextPassword, int cost) {
+        return BCrypt.withDefaults().hashToString(cost, plainTextPassword.toCharArray());
+    }
+
+    private static boolean verify(String plainTextPassword, String hashedPassword) {
         BCrypt.Result result = BCrypt.verifyer().verify(plainTextPassword.toCharArray(), hashedPassword);
         return result.verified;
     }
-}
\ No newline at end of file
+
+    private static long timeHash(int cost) {
+        long start = System.nanoTime();
+        hash("calibration", cost);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,154 @@
+package at.technikum_wien.security;
+
+import at.technikum_wien.models.entities.Token;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//keeps validated tokens in memory so auth is a map lookup instead of a SELECT + UPDATE per request
+//last_used_at touches are collected and written in one batch every flush interval
+public class TokenCache implements AutoCloseable {
+    private final Function<String, Token> loader;
+    private final Consumer<Map<String, LocalDateTime>> touchWriter;
+    private final int maxSize;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LocalDateTime> pendingTouches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    //maxAge caps how long a token is trusted without asking the database again (e.g. deleted by another instance)
+    public TokenCache(Function<String, Token> loader, Consumer<Map<String, LocalDateTime>> touchWriter, int maxSize, Duration maxAge, Duration flushInterval, Clock clock) {
+        this.loader = loader;
+        this.touchWriter = touchWriter;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.clock = clock;
+
+        if (flushInterval != null) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-token-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null; //caller flushes manually
+        }
+    }
+
+    public Integer getUserId(String token) {
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        Entry entry = entries.get(token);
+        if (entry != null && !entry.isUsable(now)) {
+            entries.remove(token, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            Token loaded = loader.apply(token);
+            if (loaded == null || !loaded.getExpiresAt().isAfter(now)) {
+                return null;
+            }
+            entry = new Entry(loaded.getUserId(), loaded.getExpiresAt(), now.plus(maxAge));
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(token, entry);
+        }
+
+        pendingTouches.put(token, now);
+        return entry.userId();
+    }
+
+    public void invalidate(String token) {
+        entries.remove(token);
+        pendingTouches.remove(token);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int pendingTouchCount() {
+        return pendingTouches.size();
+    }
+
+    public void flush() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String token : pendingTouches.keySet()) {
+            LocalDateTime lastUsed = pendingTouches.remove(token);
+            if (lastUsed != null) {
+                batch.put(token, lastUsed);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            touchWriter.accept(batch);
+        } catch (RuntimeException e) {
+            //put them back, a newer touch that arrived in the meantime wins
+            batch.forEach((token, lastUsed) -> pendingTouches.merge(token, lastUsed, (newer, older) -> newer.isAfter(older) ? newer : older));
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushQuietly();
+    }
+
+    //HELPERS
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error flushing token usage: " + e.getMessage());
+        }
+    }
+
+    //drop expired tokens first, then the tenth that expires soonest
+    private void evict(LocalDateTime now) {
+        entries.entrySet().removeIf(e -> !e.getValue().isUsable(now));
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparing(e -> e.getValue().expiresAt()));
+        int toRemove = Math.max(1, maxSize / 10);
+        for (int i = 0; i < toRemove && i < candidates.size(); i++) {
+            entries.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+    }
+
+    private record Entry(int userId, LocalDateTime expiresAt, LocalDateTime recheckAt) {
+        boolean isUsable(LocalDateTime now) {
+            return expiresAt.isAfter(now) && recheckAt.isAfter(now);
+        }
+    }
+}
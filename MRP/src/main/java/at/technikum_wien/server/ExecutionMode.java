@@ -0,0 +1,16 @@
+package at.technikum_wien.server;
+
+//how the HttpServer runs the handlers
+public enum ExecutionMode {
+    VIRTUAL, //one virtual thread per request
+    POOLED,  //fixed pool of platform threads
+    SINGLE;  //legacy: everything on the dispatcher thread
+
+    public static ExecutionMode fromString(String value) {
+        try {
+            return ExecutionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown execution mode: " + value + " (expected virtual, pooled or single)");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package at.technikum_wien.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+//caps the number of requests in flight, the dispatcher blocks when the cap is reached
+//so excess clients wait in the accept backlog instead of piling up threads
+class LimitedExecutor implements Executor, AutoCloseable {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    LimitedExecutor(ExecutorService delegate, int maxConcurrent) {
+        this.delegate = delegate;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (permits == null) {
+            delegate.execute(task);
+            return;
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a request slot", e);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
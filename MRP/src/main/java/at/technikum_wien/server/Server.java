@@ -1,65 +1,195 @@
 package at.technikum_wien.server;
 
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.database.EntityCache;
+import at.technikum_wien.database.MigrationRunner;
+import at.technikum_wien.database.PoolStats;
 import at.technikum_wien.database.repositories.*;
 import at.technikum_wien.handlers.*;
+import at.technikum_wien.handlers.util.InstrumentedHandler;
+import at.technikum_wien.handlers.util.ResponseWriter;
+import at.technikum_wien.metrics.MetricsRegistry;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.enums.SearchMode;
+import at.technikum_wien.models.interfaces.IActivityListener;
+import at.technikum_wien.models.execeptions.DataAccessException;
+import at.technikum_wien.security.AuthHelper;
+import at.technikum_wien.security.PasswordHasher;
 import at.technikum_wien.services.*;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 public class Server {
     public static void main(String[] args) throws IOException {
+        ServerConfig config = ServerConfig.fromArgs(args);
+
+        //bring the schema up to date before anything queries it, serving on a half-migrated schema fails at runtime instead
+        try {
+            MigrationRunner.migrate();
+        } catch (DataAccessException e) {
+            System.err.println("Error applying database migrations, not starting: " + e.getMessage() + (e.getCause() != null ? " (" + e.getCause().getMessage() + ")" : ""));
+            DatabaseManager.INSTANCE.shutdown();
+            System.exit(1);
+        }
+
+        //pick the bcrypt cost for this machine before the first login
+        int bcryptCost = PasswordHasher.calibrate(Duration.ofMillis(Long.getLong("mrp.auth.hashTargetMillis", 250)));
+        System.out.println("Password hashing calibrated to bcrypt cost " + bcryptCost);
+
         //setup repositories
-        MediaRepository mediaRepository = new MediaRepository();
+        GenreRepository genreRepository = new GenreRepository();
+        MediaRepository mediaRepository = new MediaRepository(genreRepository);
         UserRepository userRepository = new UserRepository();
         TokenRepository tokenRepository = new TokenRepository();
         RatingRepository ratingRepository = new RatingRepository();
         FavoriteRepository favoriteRepository = new FavoriteRepository();
+        MediaStatisticsRepository mediaStatisticsRepository = new MediaStatisticsRepository();
+        InteractionRepository interactionRepository = new InteractionRepository();
 
 
         LeaderboardRepository leaderboardRepository = new LeaderboardRepository();
-        LeaderboardService leaderboardService = new LeaderboardService(leaderboardRepository);
-        LeaderboardHandler leaderboardHandler = new LeaderboardHandler(leaderboardService);
+        LeaderboardEngine leaderboardEngine = new LeaderboardEngine(leaderboardRepository::getAllUserActivity, Duration.ofMinutes(Long.getLong("mrp.leaderboard.reconcileMinutes", 5)));
+        LeaderboardService leaderboardService = new LeaderboardService(leaderboardRepository, leaderboardEngine);
+        LeaderboardCache leaderboardCache = new LeaderboardCache(Duration.ofSeconds(Long.getLong("mrp.leaderboard.cacheTtlSeconds", 30)), 512);
+        LeaderboardHandler leaderboardHandler = new LeaderboardHandler(leaderboardService, leaderboardCache);
 
         //create services
         UserService userService = new UserService(userRepository, tokenRepository);
-        MediaService mediaService = new MediaService(mediaRepository);
+        //fulltext leaves text search to PostgreSQL and skips holding the catalog in memory
+        SearchMode searchMode = SearchMode.fromString(System.getProperty("mrp.search.mode", "index"));
+        MediaSearchIndex mediaSearchIndex = searchMode == SearchMode.INDEX ? new MediaSearchIndex(mediaRepository::getAllMedia, Duration.ofMinutes(Long.getLong("mrp.search.refreshMinutes", 10))) : null;
+        MediaService mediaService = new MediaService(mediaRepository, mediaSearchIndex);
         RatingService ratingService = new RatingService(ratingRepository, mediaRepository, userRepository);
         FavoriteService favoriteService = new FavoriteService(favoriteRepository, userRepository, mediaRepository);
-        RecommendationService recommendationService = new RecommendationService(mediaRepository,ratingRepository,favoriteRepository);
+        MediaStatisticsStore mediaStatisticsStore = new MediaStatisticsStore(mediaStatisticsRepository::loadAll, Duration.ofMinutes(Long.getLong("mrp.stats.refreshMinutes", 10)));
+        CollaborativeFilteringEngine collaborativeEngine = new CollaborativeFilteringEngine(interactionRepository::loadAll, Duration.ofMinutes(Long.getLong("mrp.recommendations.rebuildMinutes", 30)));
+        //matrix factorization is trained in the background on its own fork/join pool, never on a request thread
+        MatrixFactorizationTrainer latentTrainer = new MatrixFactorizationTrainer(Integer.getInteger("mrp.recommendations.latent.threads", Runtime.getRuntime().availableProcessors()));
+        MatrixFactorizationTrainer.Settings latentSettings = new MatrixFactorizationTrainer.Settings(
+                Integer.getInteger("mrp.recommendations.latent.factors", 32),
+                Integer.getInteger("mrp.recommendations.latent.iterations", 10),
+                Float.parseFloat(System.getProperty("mrp.recommendations.latent.lambda", "0.1")),
+                42);
+        LatentFactorEngine latentEngine = new LatentFactorEngine(() -> ratingRepository.loadRatingMatrix(10_000), latentTrainer, latentSettings,
+                Integer.getInteger("mrp.recommendations.latent.minHistory", LatentFactorEngine.DEFAULT_MIN_HISTORY),
+                Duration.ofMinutes(Long.getLong("mrp.recommendations.latent.retrainMinutes", 60)));
+        RecommendationService recommendationService = new RecommendationService(mediaRepository,ratingRepository,mediaStatisticsStore,collaborativeEngine,latentEngine);
+        RecommendationCache recommendationCache = new RecommendationCache(Duration.ofMinutes(Long.getLong("mrp.recommendations.cacheTtlMinutes", 10)),
+                Integer.getInteger("mrp.recommendations.cacheEntries", 10_000), Integer.getInteger("mrp.recommendations.refreshThreads", 2));
+
+        //ratings of a deleted media are removed by the database cascade, drop them from the entity cache too
+        mediaService.addListener(new IActivityListener() {
+            @Override
+            public void onMediaDeleted(Media media) {
+                ratingRepository.evictRatingsOfMedia(media.getId());
+            }
+        });
+
+        //keep precomputed statistics, the search index, the leaderboard and user profiles for recommendations in sync with writes
+        ratingService.addListener(mediaStatisticsStore);
+        favoriteService.addListener(mediaStatisticsStore);
+        mediaService.addListener(mediaStatisticsStore);
+        if (mediaSearchIndex != null) {
+            mediaService.addListener(mediaSearchIndex);
+        }
+        ratingService.addListener(leaderboardEngine);
+        favoriteService.addListener(leaderboardEngine);
+        mediaService.addListener(leaderboardEngine);
+        userService.addListener(leaderboardEngine);
+        ratingService.addListener(leaderboardCache);
+        favoriteService.addListener(leaderboardCache);
+        mediaService.addListener(leaderboardCache);
+        userService.addListener(leaderboardCache);
+        ratingService.addListener(collaborativeEngine);
+        favoriteService.addListener(collaborativeEngine);
+        ratingService.addListener(latentEngine);
+        ratingService.addListener(recommendationCache);
+        favoriteService.addListener(recommendationCache);
+        mediaService.addListener(recommendationCache);
 
         //create handlers
-        UserHandler userHandler = new UserHandler(userService,ratingService,mediaService,favoriteService,recommendationService);
+        UserHandler userHandler = new UserHandler(userService,ratingService,mediaService,favoriteService,recommendationService,recommendationCache);
         MediaHandler mediaHandler = new MediaHandler(mediaService,ratingService,favoriteService);
         RatingHandler ratingHandler = new RatingHandler(ratingService);
+        ExportHandler exportHandler = new ExportHandler(new ExportService(mediaRepository, ratingRepository));
+
+        //metrics for every route + JDBC time per repository method
+        MetricsRegistry metrics = new MetricsRegistry();
+        DatabaseManager.INSTANCE.setUsageListener(metrics::recordJdbc);
+        registerMetrics(metrics);
+        registerCacheMetrics(metrics, "media", mediaRepository::getCacheStats);
+        registerCacheMetrics(metrics, "users", userRepository::getCacheStats);
+        registerCacheMetrics(metrics, "ratings", ratingRepository::getCacheStats);
+        if (mediaSearchIndex != null) {
+            metrics.gauge("mrp_media_search_index_documents", "Media held by the in-memory search index", mediaSearchIndex::size);
+        }
+        metrics.gauge("mrp_recommendation_cf_media", "Media in the collaborative filtering model", collaborativeEngine::size);
+        metrics.gauge("mrp_recommendation_cf_neighbors", "Similar-media entries kept by the collaborative filtering model", collaborativeEngine::neighborCount);
+        metrics.counter("mrp_recommendation_cache_hits_total", "Recommendation requests answered from the cache", () -> recommendationCache.getStats().hits());
+        metrics.counter("mrp_recommendation_cache_stale_hits_total", "Recommendation requests answered with a stale list while it was recomputed", () -> recommendationCache.getStats().staleHits());
+        metrics.counter("mrp_recommendation_cache_misses_total", "Recommendation requests that computed the list", () -> recommendationCache.getStats().misses());
+        metrics.counter("mrp_recommendation_cache_refreshes_total", "Stale recommendation lists recomputed in the background", () -> recommendationCache.getStats().refreshes());
+        metrics.gauge("mrp_recommendation_cache_entries", "Recommendation lists currently cached", recommendationCache::size);
+        metrics.gauge("mrp_recommendation_latent_users", "Users in the latent factor model", () -> latentEngine.getModel() == null ? 0 : latentEngine.getModel().userCount());
+        metrics.gauge("mrp_recommendation_latent_training_rmse", "Root mean squared error of the latent factor model on its training ratings", () -> latentEngine.getModel() == null ? Double.NaN : latentEngine.getModel().getTrainingRmse());
+        metrics.gauge("mrp_recommendation_latent_training_seconds", "Duration of the last latent factor training (load + ALS)", () -> latentEngine.getLastTrainingMillis() / 1000.0);
 
         //create server
-        HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
-        System.out.println("Starting Media Ratings Platform server on port 8080...");
+        HttpServer server = createHttpServer(config);
+        System.out.println("Starting Media Ratings Platform server on port " + config.port() + " (" + config.mode().name().toLowerCase() + " execution)...");
 
         //register all handlers
-        server.createContext("/api/users", userHandler);
-        server.createContext("/api/media", mediaHandler);
-        server.createContext("/api/ratings", ratingHandler);
-        server.createContext("/api/leaderboard", leaderboardHandler);
+        server.createContext("/api/users", new InstrumentedHandler(userHandler, metrics));
+        server.createContext("/api/media", new InstrumentedHandler(mediaHandler, metrics));
+        server.createContext("/api/ratings", new InstrumentedHandler(ratingHandler, metrics));
+        server.createContext("/api/leaderboard", new InstrumentedHandler(leaderboardHandler, metrics));
+        server.createContext("/api/metrics", new InstrumentedHandler(new MetricsHandler(metrics), metrics));
+        server.createContext("/api/export", new InstrumentedHandler(exportHandler, metrics));
 
         server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop(server);
+            AuthHelper.shutdown();
+            PasswordHasher.shutdown();
+            mediaStatisticsStore.close();
+            if (mediaSearchIndex != null) {
+                mediaSearchIndex.close();
+            }
+            leaderboardEngine.close();
+            collaborativeEngine.close();
+            latentEngine.close();
+            recommendationCache.close();
+            latentTrainer.close();
+            DatabaseManager.INSTANCE.shutdown();
+        }, "mrp-shutdown"));
         System.out.println("Server started successfully!");
         System.out.println("Available endpoints:");
         System.out.println("=== AUTHENTICATION ===");
         System.out.println("  POST /api/users/register - Register user");
         System.out.println("  POST /api/users/login - Login user");
+        System.out.println("  POST /api/users/logout - Logout (invalidates token)");
 
         System.out.println("=== MEDIA MANAGEMENT ===");
-        System.out.println("  GET  /api/media - Get all media");
+        System.out.println("  GET  /api/media?limit=50&cursor=... - List media (paginated)");
         System.out.println("  POST /api/media - Create media (requires auth)");
+        System.out.println("  POST /api/media/import - Bulk import NDJSON or CSV (requires auth)");
         System.out.println("  GET  /api/media/{id} - Get media by ID");
         System.out.println("  PUT  /api/media/{id} - Update media (creator only)");
         System.out.println("  DELETE /api/media/{id} - Delete media (creator only)");
 
         System.out.println("=== MEDIA SEARCH/FILTER ===");
         System.out.println("  GET  /api/media?title=inception&genre=sci-fi - Search media");
+        System.out.println("  GET  /api/media?q=dream+heist - Ranked search in title & description");
+        System.out.println("  GET  /api/media?q=dream+heist&mode=fulltext - Same, answered by PostgreSQL full-text search");
 
         System.out.println("=== RATING SYSTEM ===");
         System.out.println("  POST /api/media/{id}/rate - Rate media");
@@ -82,12 +212,91 @@ public class Server {
         System.out.println("  GET  /api/leaderboard/top-rated - Get top rated media");
         System.out.println("  GET  /api/leaderboard/most-liked - Get most liked ratings");
         System.out.println("  GET  /api/leaderboard/trending-genres - Get trending genres");
+        System.out.println("  GET  /api/leaderboard/cache-stats - Leaderboard cache hit/miss statistics");
+
+        System.out.println("=== MONITORING ===");
+        System.out.println("  GET  /api/metrics - Request, JDBC, pool & hashing metrics (Prometheus format)");
+
+        System.out.println("=== EXPORT ===");
+        System.out.println("  GET  /api/export/ratings - All ratings as NDJSON (requires auth)");
+        System.out.println("  GET  /api/export/media - All media as NDJSON (requires auth)");
 
         System.out.println("=== FAVORITES ===");
         System.out.println("  POST /api/media/{id}/favorite - Add media to favorites");
         System.out.println("  DELETE /api/media/{id}/favorite - Remove media from favorites");
         System.out.println("  GET  /api/users/favorites - Get current user's favorites");
     }
+
+    private static void registerMetrics(MetricsRegistry metrics) {
+        metrics.gauge("mrp_db_pool_active_connections", "Connections currently borrowed", () -> poolValue(PoolStats::active));
+        metrics.gauge("mrp_db_pool_idle_connections", "Connections waiting in the pool", () -> poolValue(PoolStats::idle));
+        metrics.gauge("mrp_db_pool_waiters", "Threads waiting for a connection", () -> poolValue(PoolStats::waiters));
+        metrics.counter("mrp_db_pool_acquire_timeouts_total", "Borrows that timed out", () -> poolValue(PoolStats::acquireTimeouts));
+        metrics.histogram("mrp_db_pool_acquire_seconds", "Time to borrow a connection", () -> {
+            PoolStats stats = DatabaseManager.INSTANCE.getPoolStats();
+            return stats != null ? stats.acquireLatency() : null;
+        });
+        metrics.gauge("mrp_password_hash_queue_depth", "Password hashes waiting for a worker", () -> PasswordHasher.getStats().queueDepth());
+        metrics.counter("mrp_password_hash_rejected_total", "Password hashes rejected because the queue was full", () -> PasswordHasher.getStats().rejected());
+        metrics.counter("mrp_password_hash_timeouts_total", "Password hashes the caller stopped waiting for (the hash itself still runs)", () -> PasswordHasher.getStats().timedOut());
+        metrics.histogram("mrp_password_hash_seconds", "Time spent hashing/verifying a password", () -> PasswordHasher.getStats().hashLatency());
+        metrics.histogram("mrp_password_hash_queue_wait_seconds", "Time a password hash waited for a worker", () -> PasswordHasher.getStats().queueWait());
+        metrics.counter("mrp_http_compressed_responses_total", "Responses sent gzip-encoded", () -> ResponseWriter.getStats().compressedResponses());
+        metrics.counter("mrp_http_compression_input_bytes_total", "Body bytes before gzip", () -> ResponseWriter.getStats().uncompressedBytes());
+        metrics.counter("mrp_http_compression_output_bytes_total", "Body bytes after gzip", () -> ResponseWriter.getStats().compressedBytes());
+        metrics.counter("mrp_http_compression_saved_bytes_total", "Egress bytes saved by gzip", () -> ResponseWriter.getStats().bytesSaved());
+        metrics.gauge("mrp_http_compression_pooled_deflaters", "Idle Deflaters waiting in the pool", () -> ResponseWriter.getStats().pooledDeflaters());
+    }
+
+    private static void registerCacheMetrics(MetricsRegistry metrics, String cache, Supplier<EntityCache.CacheStats> stats) {
+        String labels = "cache=\"" + cache + "\"";
+        metrics.counter("mrp_entity_cache_hits_total", labels, "Entity lookups answered from the cache", () -> stats.get().hits());
+        metrics.counter("mrp_entity_cache_misses_total", labels, "Entity lookups that went to the database", () -> stats.get().misses());
+        metrics.counter("mrp_entity_cache_evictions_total", labels, "Entities evicted because the cache was full", () -> stats.get().evictions());
+        metrics.gauge("mrp_entity_cache_hit_ratio", labels, "Hits / lookups since startup", () -> stats.get().hitRatio());
+        metrics.gauge("mrp_entity_cache_size", labels, "Entities currently cached", () -> stats.get().size());
+    }
+
+    private static double poolValue(ToDoubleFunction<PoolStats> value) {
+        PoolStats stats = DatabaseManager.INSTANCE.getPoolStats();
+        return stats != null ? value.applyAsDouble(stats) : Double.NaN;
+    }
+
+    public static HttpServer createHttpServer(ServerConfig config) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(config.port()), config.backlog());
+        server.setExecutor(createExecutor(config));
+        return server;
+    }
+
+    public static void stop(HttpServer server) {
+        server.stop(1);
+        if (server.getExecutor() instanceof AutoCloseable executor) {
+            try {
+                executor.close();
+            } catch (Exception e) {
+                System.err.println("Error stopping request executor: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Executor createExecutor(ServerConfig config) {
+        ExecutorService executor;
+        switch (config.mode()) {
+            case VIRTUAL:
+                ThreadFactory virtualThreads = Thread.ofVirtual().name("mrp-request-", 0).factory();
+                executor = Executors.newThreadPerTaskExecutor(virtualThreads);
+                break;
+            case POOLED:
+                ThreadFactory platformThreads = Thread.ofPlatform().name("mrp-request-", 0).daemon(true).factory();
+                executor = Executors.newFixedThreadPool(config.poolThreads(), platformThreads);
+                break;
+            case SINGLE:
+            default:
+                return null; //HttpServer falls back to its dispatcher thread
+        }
+        return new LimitedExecutor(executor, config.maxConcurrentRequests());
+    }
+
     /*
         MISSING:
         Recommendations dont make sense yet
@@ -0,0 +1,62 @@
+package at.technikum_wien.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//startup settings, taken from --key=value arguments first and -Dmrp.server.<key>=value second
+public record ServerConfig(int port, ExecutionMode mode, int backlog, int poolThreads, int maxConcurrentRequests) {
+
+    public ServerConfig {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port: " + port);
+        }
+        if (backlog < 0 || poolThreads < 1 || maxConcurrentRequests < 0) {
+            throw new IllegalArgumentException("backlog and max-concurrent must be >= 0, threads must be >= 1");
+        }
+    }
+
+    public static ServerConfig defaults() {
+        return new ServerConfig(8080, ExecutionMode.VIRTUAL, 0, Runtime.getRuntime().availableProcessors() * 4, 512);
+    }
+
+    public static ServerConfig fromArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String[] pair = arg.substring(2).split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+
+        ServerConfig defaults = defaults();
+        return new ServerConfig(
+                intOption(options, "port", defaults.port()),
+                ExecutionMode.fromString(option(options, "mode", defaults.mode().name())),
+                intOption(options, "backlog", defaults.backlog()),
+                intOption(options, "threads", defaults.poolThreads()),
+                intOption(options, "max-concurrent", defaults.maxConcurrentRequests())
+        );
+    }
+
+    //HELPERS
+    private static String option(Map<String, String> options, String key, String defaultValue) {
+        String value = options.get(key);
+        if (value == null) {
+            value = System.getProperty("mrp.server." + key);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = option(options, key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + key + " must be a number but was: " + value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+//fans write events out to the registered listeners
+//a failing listener is logged and skipped, the write itself already succeeded
+public class ActivityPublisher {
+    private final List<IActivityListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(IActivityListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void publish(Consumer<IActivityListener> event) {
+        for (IActivityListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("Error in activity listener " + listener.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
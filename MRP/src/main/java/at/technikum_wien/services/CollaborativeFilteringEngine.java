@@ -0,0 +1,242 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Interaction;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//item-item collaborative filtering: "users who liked what you liked also liked ..."
+//the similarity model is rebuilt from ratings + favorites on a schedule, a request only walks the neighbors of the user's media
+//user profiles are updated from rating/favorite events right away, so new ratings count (and drop out of the result) before the next rebuild
+//the build never runs on a request: until the first model exists recommend() is empty and the caller falls back
+public class CollaborativeFilteringEngine implements IActivityListener, AutoCloseable {
+    public static final int DEFAULT_NEIGHBORS = 50;
+    static final int MAX_ITEMS_PER_USER = 1_000;
+
+    private final Supplier<List<Interaction>> loader;
+    private final int neighbors;
+    private final ConcurrentHashMap<Integer, UserProfile> profiles = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService rebuilder;
+    private volatile ItemSimilarityModel model = ItemSimilarityModel.EMPTY;
+    private volatile boolean loaded;
+    //events that arrive while a rebuild loads/builds, replayed onto the fresh profiles (guarded by updateLock)
+    private final Object updateLock = new Object();
+    private List<ProfileUpdate> pendingUpdates;
+
+    public CollaborativeFilteringEngine(Supplier<List<Interaction>> loader, Duration rebuildInterval) {
+        this(loader, rebuildInterval, DEFAULT_NEIGHBORS);
+    }
+
+    public CollaborativeFilteringEngine(Supplier<List<Interaction>> loader, Duration rebuildInterval, int neighbors) {
+        if (neighbors < 1) {
+            throw new IllegalArgumentException("neighbors must be at least 1");
+        }
+        this.loader = loader;
+        this.neighbors = neighbors;
+
+        if (rebuildInterval != null) {
+            this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-cf-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.rebuilder = null; //only built when rebuild() is called
+        }
+    }
+
+    //media ids, best first; empty before the first build, if the user has no positive interactions or nothing in common with anybody
+    public List<Integer> recommend(int userId, int limit) {
+        if (!loaded) {
+            return List.of();
+        }
+        UserProfile profile = profiles.get(userId);
+        if (profile == null) {
+            return List.of();
+        }
+        int[] mediaIds = model.recommend(profile.mediaIds(), profile.weights(), limit);
+        List<Integer> result = new ArrayList<>(mediaIds.length);
+        for (int mediaId : mediaIds) {
+            result.add(mediaId);
+        }
+        return result;
+    }
+
+    public synchronized void rebuild() {
+        synchronized (updateLock) {
+            pendingUpdates = new ArrayList<>();
+        }
+        try {
+            List<Interaction> interactions = loader.get();
+            ItemSimilarityModel fresh = ItemSimilarityModel.build(interactions, neighbors, MAX_ITEMS_PER_USER);
+            Map<Integer, UserProfile> freshProfiles = groupByUser(interactions);
+            synchronized (updateLock) {
+                profiles.keySet().retainAll(freshProfiles.keySet());
+                profiles.putAll(freshProfiles);
+                //the snapshot may or may not contain them, updates set absolute values so applying them again is harmless
+                for (ProfileUpdate update : pendingUpdates) {
+                    apply(update);
+                }
+                model = fresh;
+                loaded = true;
+            }
+        } finally {
+            synchronized (updateLock) {
+                pendingUpdates = null;
+            }
+        }
+    }
+
+    public int size() {
+        return model.size();
+    }
+
+    public int neighborCount() {
+        return model.neighborCount();
+    }
+
+    public int profileCount() {
+        return profiles.size();
+    }
+
+    //EVENTS
+    @Override
+    public void onRatingCreated(Rating rating) {
+        update(rating.getUser_id(), rating.getMedia_id(), rating.getStars(), null);
+    }
+
+    @Override
+    public void onRatingUpdated(Rating rating, int previousStars) {
+        update(rating.getUser_id(), rating.getMedia_id(), rating.getStars(), null);
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        update(rating.getUser_id(), rating.getMedia_id(), 0, null);
+    }
+
+    @Override
+    public void onFavoriteAdded(int userId, int mediaId) {
+        update(userId, mediaId, null, true);
+    }
+
+    @Override
+    public void onFavoriteRemoved(int userId, int mediaId) {
+        update(userId, mediaId, null, false);
+    }
+
+    @Override
+    public void close() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    //HELPERS
+    //outside a rebuild and before the first one there is nothing to adjust, the next build loads the change anyway
+    private void update(int userId, int mediaId, Integer stars, Boolean favorite) {
+        ProfileUpdate update = new ProfileUpdate(userId, mediaId, stars, favorite);
+        synchronized (updateLock) {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+            if (loaded) {
+                apply(update);
+            }
+        }
+    }
+
+    private void apply(ProfileUpdate update) {
+        profiles.compute(update.userId(), (id, current) -> {
+            UserProfile profile = current != null ? current : UserProfile.EMPTY;
+            UserProfile updated = profile.with(update.mediaId(), update.stars(), update.favorite());
+            return updated.mediaIds().length == 0 ? null : updated;
+        });
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.err.println("Error rebuilding collaborative filtering model: " + e.getMessage());
+        }
+    }
+
+    private static Map<Integer, UserProfile> groupByUser(List<Interaction> interactions) {
+        List<Interaction> sorted = new ArrayList<>(interactions);
+        sorted.sort(Comparator.comparingInt(Interaction::userId).thenComparingInt(Interaction::mediaId));
+        Map<Integer, UserProfile> profiles = new HashMap<>();
+        int start = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            if (i == sorted.size() || sorted.get(i).userId() != sorted.get(start).userId()) {
+                profiles.put(sorted.get(start).userId(), UserProfile.of(sorted.subList(start, i)));
+                start = i;
+            }
+        }
+        return profiles;
+    }
+
+    //null keeps the current value, see UserProfile.with
+    private record ProfileUpdate(int userId, int mediaId, Integer stars, Boolean favorite) {
+    }
+
+    //what one user did, sorted by media id; replaced as a whole on every change so readers never see half an update
+    private record UserProfile(int[] mediaIds, byte[] stars, boolean[] favorites, float[] weights) {
+        static final UserProfile EMPTY = new UserProfile(new int[0], new byte[0], new boolean[0], new float[0]);
+
+        //interactions of one user, sorted by media id
+        static UserProfile of(List<Interaction> interactions) {
+            int size = interactions.size();
+            UserProfile profile = new UserProfile(new int[size], new byte[size], new boolean[size], new float[size]);
+            for (int i = 0; i < size; i++) {
+                Interaction interaction = interactions.get(i);
+                profile.set(i, interaction.mediaId(), interaction.stars(), interaction.favorite());
+            }
+            return profile;
+        }
+
+        //null keeps the current value; a media that is neither rated nor a favorite any more is dropped
+        UserProfile with(int mediaId, Integer newStars, Boolean newFavorite) {
+            int index = Arrays.binarySearch(mediaIds, mediaId);
+            int currentStars = index >= 0 ? stars[index] : 0;
+            boolean currentFavorite = index >= 0 && favorites[index];
+            int nextStars = newStars != null ? newStars : currentStars;
+            boolean nextFavorite = newFavorite != null ? newFavorite : currentFavorite;
+            boolean keep = nextStars > 0 || nextFavorite;
+
+            int size = mediaIds.length + (index < 0 && keep ? 1 : 0) - (index >= 0 && !keep ? 1 : 0);
+            UserProfile updated = new UserProfile(new int[size], new byte[size], new boolean[size], new float[size]);
+            int insertAt = index >= 0 ? index : -index - 1;
+            int target = 0;
+            for (int i = 0; i <= mediaIds.length; i++) {
+                if (i == insertAt && keep) {
+                    updated.set(target++, mediaId, nextStars, nextFavorite);
+                }
+                if (i < mediaIds.length && i != index) {
+                    updated.set(target++, mediaIds[i], stars[i], favorites[i]);
+                }
+            }
+            return updated;
+        }
+
+        private void set(int i, int mediaId, int stars, boolean favorite) {
+            this.mediaIds[i] = mediaId;
+            this.stars[i] = (byte) stars;
+            this.favorites[i] = favorite;
+            this.weights[i] = ItemSimilarityModel.weight(stars, favorite);
+        }
+    }
+}
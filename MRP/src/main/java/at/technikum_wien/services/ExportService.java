@@ -0,0 +1,39 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.database.RowSink;
+import at.technikum_wien.database.repositories.MediaRepository;
+import at.technikum_wien.database.repositories.RatingRepository;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+
+import java.io.IOException;
+
+//full-table exports for analytics, rows are handed to the sink while the cursor is open
+public class ExportService {
+    public static final int DEFAULT_FETCH_SIZE = 1_000;
+
+    private final MediaRepository mediaRepository;
+    private final RatingRepository ratingRepository;
+    private final int fetchSize;
+
+    public ExportService(MediaRepository mediaRepository, RatingRepository ratingRepository) {
+        this(mediaRepository, ratingRepository, Integer.getInteger("mrp.export.fetchSize", DEFAULT_FETCH_SIZE));
+    }
+
+    public ExportService(MediaRepository mediaRepository, RatingRepository ratingRepository, int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        this.mediaRepository = mediaRepository;
+        this.ratingRepository = ratingRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    public long exportRatings(RowSink<Rating> sink) throws IOException {
+        return ratingRepository.exportAll(sink, fetchSize);
+    }
+
+    public long exportMedia(RowSink<Media> sink) throws IOException {
+        return mediaRepository.exportAll(sink, fetchSize);
+    }
+}
@@ -5,6 +5,8 @@ import at.technikum_wien.database.repositories.MediaRepository;
 import at.technikum_wien.database.repositories.UserRepository;
 import at.technikum_wien.models.entities.Favorite;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Page;
+import at.technikum_wien.models.interfaces.IActivityListener;
 
 import java.util.List;
 
@@ -12,6 +14,7 @@ public class FavoriteService {
     private final FavoriteRepository favoriteRepository;
     private final UserRepository userRepository;
     private final MediaRepository mediaRepository;
+    private final ActivityPublisher activityPublisher = new ActivityPublisher();
 
     public FavoriteService(FavoriteRepository favoriteRepository, UserRepository userRepository, MediaRepository mediaRepository) {
         this.favoriteRepository = favoriteRepository;
@@ -19,6 +22,10 @@ public class FavoriteService {
         this.mediaRepository = mediaRepository;
     }
 
+    public void addListener(IActivityListener listener) {
+        activityPublisher.addListener(listener);
+    }
+
     public boolean addFavorite(int userId, int mediaId) {
         if(userRepository.getById(userId)==null){
             throw new IllegalArgumentException("User not found");
@@ -31,7 +38,11 @@ public class FavoriteService {
         }
 
         Favorite favorite = new Favorite(userId,mediaId);
-        return  favoriteRepository.addFavorite(favorite);
+        boolean added = favoriteRepository.addFavorite(favorite);
+        if (added) {
+            activityPublisher.publish(listener -> listener.onFavoriteAdded(userId, mediaId));
+        }
+        return added;
     }
 
     public boolean removeFavorite(int userId, int mediaId) {
@@ -44,7 +55,24 @@ public class FavoriteService {
         if(!favoriteRepository.isFavorite(userId,mediaId)){
             throw new IllegalArgumentException("Media is not in favorites");
         }
-        return favoriteRepository.deleteFavorite(userId,mediaId);
+        boolean removed = favoriteRepository.deleteFavorite(userId,mediaId);
+        if (removed) {
+            activityPublisher.publish(listener -> listener.onFavoriteRemoved(userId, mediaId));
+        }
+        return removed;
+    }
+
+    //keyset page ordered by media id
+    public Page<Media> getUserFavoritesPage(int userId, String cursor, Integer limit) {
+        if(userRepository.getById(userId)==null){
+            throw new IllegalArgumentException("User not found");
+        }
+        int pageSize = Pagination.pageSize(limit);
+        String[] keys = Pagination.decodeCursor(cursor, 1);
+        int afterMediaId = keys == null ? 0 : Pagination.intKey(keys[0]);
+
+        List<Media> rows = favoriteRepository.getUserFavoritesPage(userId, afterMediaId, pageSize + 1);
+        return Pagination.toPage(rows, pageSize, media -> Pagination.encodeCursor(media.getId()));
     }
 
     public List<Media> getUserFavorites(int userId){
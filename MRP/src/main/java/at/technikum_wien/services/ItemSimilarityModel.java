@@ -0,0 +1,223 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Interaction;
+
+import java.util.Arrays;
+import java.util.List;
+
+//item-item cosine similarities over user interactions, immutable once built
+//media are dense indexes 0..n-1 (mediaIds is sorted, so mediaId -> index is a binary search)
+//the k most similar media of index i are neighborItems/neighborScores[offsets[i] .. offsets[i + 1]), best first (CSR)
+public final class ItemSimilarityModel {
+    static final ItemSimilarityModel EMPTY = new ItemSimilarityModel(new int[0], new int[1], new int[0], new float[0]);
+
+    private final int[] mediaIds;
+    private final int[] offsets;
+    private final int[] neighborItems;
+    private final float[] neighborScores;
+
+    private ItemSimilarityModel(int[] mediaIds, int[] offsets, int[] neighborItems, float[] neighborScores) {
+        this.mediaIds = mediaIds;
+        this.offsets = offsets;
+        this.neighborItems = neighborItems;
+        this.neighborScores = neighborScores;
+    }
+
+    //1 star says nothing positive, 5 stars or a favorite count fully
+    public static float weight(int stars, boolean favorite) {
+        float rated = stars > 0 ? (stars - 1) / 4f : 0f;
+        return Math.max(rated, favorite ? 1f : 0f);
+    }
+
+    //users with more than maxItemsPerUser media are left out of the co-occurrence counts:
+    //they cost deg^2 during the build and tell little about any single pair
+    public static ItemSimilarityModel build(List<Interaction> interactions, int neighbors, int maxItemsPerUser) {
+        int count = 0;
+        int[] users = new int[interactions.size()];
+        int[] items = new int[interactions.size()];
+        float[] weights = new float[interactions.size()];
+        for (Interaction interaction : interactions) {
+            float weight = weight(interaction.stars(), interaction.favorite());
+            if (weight > 0) {
+                users[count] = interaction.userId();
+                items[count] = interaction.mediaId();
+                weights[count++] = weight;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+
+        //ids -> dense indexes
+        int[] mediaIds = distinctSorted(items, count);
+        int[] userIds = distinctSorted(users, count);
+        for (int p = 0; p < count; p++) {
+            items[p] = Arrays.binarySearch(mediaIds, items[p]);
+            users[p] = Arrays.binarySearch(userIds, users[p]);
+        }
+
+        //both directions as CSR: media of a user, users of a media
+        int[] userOffsets = offsets(users, count, userIds.length);
+        int[] userItems = new int[count];
+        float[] userWeights = new float[count];
+        int[] itemOffsets = offsets(items, count, mediaIds.length);
+        int[] itemUsers = new int[count];
+        float[] itemWeights = new float[count];
+        int[] userFill = Arrays.copyOf(userOffsets, userIds.length);
+        int[] itemFill = Arrays.copyOf(itemOffsets, mediaIds.length);
+        for (int p = 0; p < count; p++) {
+            int u = userFill[users[p]]++;
+            userItems[u] = items[p];
+            userWeights[u] = weights[p];
+            int i = itemFill[items[p]]++;
+            itemUsers[i] = users[p];
+            itemWeights[i] = weights[p];
+        }
+
+        float[] norms = new float[mediaIds.length];
+        for (int item = 0; item < mediaIds.length; item++) {
+            double sum = 0;
+            for (int p = itemOffsets[item]; p < itemOffsets[item + 1]; p++) {
+                sum += itemWeights[p] * itemWeights[p];
+            }
+            norms[item] = (float) Math.sqrt(sum);
+        }
+
+        //one row of the similarity matrix at a time: dot products with every co-occurring media, keep the top k
+        float[] dots = new float[mediaIds.length];
+        int[] touched = new int[mediaIds.length];
+        int[] offsets = new int[mediaIds.length + 1];
+        int[] neighborItems = new int[(int) Math.min((long) mediaIds.length * neighbors, 1 << 16)];
+        float[] neighborScores = new float[neighborItems.length];
+        int size = 0;
+        for (int item = 0; item < mediaIds.length; item++) {
+            int touchedCount = 0;
+            for (int p = itemOffsets[item]; p < itemOffsets[item + 1]; p++) {
+                int user = itemUsers[p];
+                if (userOffsets[user + 1] - userOffsets[user] > maxItemsPerUser) {
+                    continue;
+                }
+                float weight = itemWeights[p];
+                for (int q = userOffsets[user]; q < userOffsets[user + 1]; q++) {
+                    int other = userItems[q];
+                    if (other != item) {
+                        if (dots[other] == 0) {
+                            touched[touchedCount++] = other;
+                        }
+                        dots[other] += weight * userWeights[q];
+                    }
+                }
+            }
+
+            TopK best = new TopK(neighbors);
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                best.offer(dots[other] / (norms[item] * norms[other]), other);
+                dots[other] = 0;
+            }
+            long[] kept = best.bestFirst();
+            if (size + kept.length > neighborItems.length) {
+                int capacity = Math.max(neighborItems.length * 2, size + kept.length);
+                neighborItems = Arrays.copyOf(neighborItems, capacity);
+                neighborScores = Arrays.copyOf(neighborScores, capacity);
+            }
+            for (long packed : kept) {
+                neighborItems[size] = TopK.unpackIndex(packed);
+                neighborScores[size++] = TopK.unpackScore(packed);
+            }
+            offsets[item + 1] = size;
+        }
+
+        return new ItemSimilarityModel(mediaIds, offsets, Arrays.copyOf(neighborItems, size), Arrays.copyOf(neighborScores, size));
+    }
+
+    //sum of weight * similarity over the user's media, media in profileMediaIds (sorted) are never recommended
+    public int[] recommend(int[] profileMediaIds, float[] profileWeights, int limit) {
+        //profile -> model indexes, still sorted because mediaIds is; media not in the model (yet) are dropped
+        int[] own = new int[profileMediaIds.length];
+        float[] ownWeights = new float[profileMediaIds.length];
+        int ownCount = 0;
+        int candidateBound = 0;
+        for (int i = 0; i < profileMediaIds.length; i++) {
+            int item = Arrays.binarySearch(mediaIds, profileMediaIds[i]);
+            if (item >= 0) {
+                own[ownCount] = item;
+                ownWeights[ownCount++] = profileWeights[i];
+                candidateBound += offsets[item + 1] - offsets[item];
+            }
+        }
+        if (candidateBound == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        //open addressing on the media index, sized for every neighbor being distinct
+        int capacity = Integer.highestOneBit(Math.max(16, candidateBound * 2 - 1)) << 1;
+        int mask = capacity - 1;
+        int[] keys = new int[capacity];
+        float[] scores = new float[capacity];
+        Arrays.fill(keys, -1);
+        for (int s = 0; s < ownCount; s++) {
+            int item = own[s];
+            float weight = ownWeights[s];
+            if (weight == 0) {
+                continue; //a 1 star rating only keeps the media out of the result
+            }
+            for (int p = offsets[item]; p < offsets[item + 1]; p++) {
+                int other = neighborItems[p];
+                if (Arrays.binarySearch(own, 0, ownCount, other) >= 0) {
+                    continue;
+                }
+                int slot = (other * 0x9E3779B1) >>> 1 & mask;
+                while (keys[slot] != -1 && keys[slot] != other) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = other;
+                scores[slot] += weight * neighborScores[p];
+            }
+        }
+
+        TopK best = new TopK(limit);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (keys[slot] != -1) {
+                best.offer(scores[slot], keys[slot]);
+            }
+        }
+        int[] result = best.indexesBestFirst();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mediaIds[result[i]];
+        }
+        return result;
+    }
+
+    public int size() {
+        return mediaIds.length;
+    }
+
+    public int neighborCount() {
+        return neighborItems.length;
+    }
+
+    //HELPERS
+    private static int[] distinctSorted(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private static int[] offsets(int[] rows, int count, int rowCount) {
+        int[] offsets = new int[rowCount + 1];
+        for (int p = 0; p < count; p++) {
+            offsets[rows[p] + 1]++;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        return offsets;
+    }
+}
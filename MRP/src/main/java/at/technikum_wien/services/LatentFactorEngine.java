@@ -0,0 +1,130 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.RatingMatrix;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//latent-factor recommendations for users with a long rating history, trained by a background job
+//training takes seconds to minutes, so requests never wait for it: until the first model is ready nothing is recommended
+//media rated after the last training are remembered from events and left out until the next one
+public class LatentFactorEngine implements IActivityListener, AutoCloseable {
+    public static final int DEFAULT_MIN_HISTORY = 20;
+
+    private final Supplier<RatingMatrix> loader;
+    private final MatrixFactorizationTrainer trainer;
+    private final MatrixFactorizationTrainer.Settings settings;
+    private final int minHistory;
+    //ratings since the current model's load; while a training runs, ratings since its load are collected separately
+    //and replace the set with the swap -> a rating made during the load can be excluded twice, but never not at all
+    private final Object exclusionLock = new Object();
+    private volatile ConcurrentHashMap<Integer, Set<Integer>> ratedSinceTraining = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Integer, Set<Integer>> ratedSinceLoad;
+    private final ScheduledExecutorService scheduler;
+    private volatile LatentFactorModel model;
+    private volatile long lastTrainingMillis;
+
+    //retrainInterval null -> only trained when train() is called
+    public LatentFactorEngine(Supplier<RatingMatrix> loader, MatrixFactorizationTrainer trainer, MatrixFactorizationTrainer.Settings settings, int minHistory, Duration retrainInterval) {
+        this.loader = loader;
+        this.trainer = trainer;
+        this.settings = settings;
+        this.minHistory = minHistory;
+
+        if (retrainInterval != null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-latent-training");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::trainQuietly, 0, retrainInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    //media ids, best first; empty if there is no model yet or the user's history is too short for it
+    public List<Integer> recommend(int userId, int limit) {
+        LatentFactorModel current = model;
+        if (current == null || current.historyLength(userId) < minHistory) {
+            return List.of();
+        }
+        Set<Integer> recent = ratedSinceTraining.get(userId);
+        int[] excluded = recent == null ? new int[0] : recent.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        int[] mediaIds = current.recommend(userId, excluded, limit);
+        List<Integer> result = new ArrayList<>(mediaIds.length);
+        for (int mediaId : mediaIds) {
+            result.add(mediaId);
+        }
+        return result;
+    }
+
+    public synchronized void train() {
+        long start = System.nanoTime();
+        ConcurrentHashMap<Integer, Set<Integer>> sinceLoad = new ConcurrentHashMap<>();
+        synchronized (exclusionLock) {
+            ratedSinceLoad = sinceLoad; //before the load starts
+        }
+        try {
+            LatentFactorModel trained = trainer.train(loader.get(), settings);
+            synchronized (exclusionLock) {
+                ratedSinceTraining = sinceLoad;
+                model = trained;
+            }
+        } finally {
+            synchronized (exclusionLock) {
+                ratedSinceLoad = null;
+            }
+        }
+        lastTrainingMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    public LatentFactorModel getModel() {
+        return model;
+    }
+
+    public long getLastTrainingMillis() {
+        return lastTrainingMillis;
+    }
+
+    //EVENTS
+    @Override
+    public void onRatingCreated(Rating rating) {
+        synchronized (exclusionLock) {
+            exclude(ratedSinceTraining, rating);
+            if (ratedSinceLoad != null) {
+                exclude(ratedSinceLoad, rating);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    //HELPERS
+    private static void exclude(ConcurrentHashMap<Integer, Set<Integer>> rated, Rating rating) {
+        rated.computeIfAbsent(rating.getUser_id(), id -> ConcurrentHashMap.newKeySet()).add(rating.getMedia_id());
+    }
+
+    private void trainQuietly() {
+        try {
+            train();
+        } catch (RuntimeException e) {
+            System.err.println("Error training latent factor model: " + e.getMessage());
+        }
+    }
+}
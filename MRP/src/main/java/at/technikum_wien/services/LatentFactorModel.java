@@ -0,0 +1,116 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.RatingMatrix;
+
+import java.util.Arrays;
+
+//result of a matrix factorization: stars(u, m) ~ mean + userFactors[u] . mediaFactors[m], immutable once trained
+//users and media are dense indexes (ids sorted -> binary search), factor vectors are rows of one float array each
+//the media a user rated are kept as CSR (ratedOffsets/ratedMedia) so they can be left out of the result
+public final class LatentFactorModel {
+    private final int factors;
+    private final float mean;
+    private final int[] userIds;
+    private final int[] mediaIds;
+    private final float[] userFactors;
+    private final float[] mediaFactors;
+    private final int[] ratedOffsets;
+    private final int[] ratedMedia;
+    private final double trainingRmse;
+
+    LatentFactorModel(int factors, float mean, int[] userIds, int[] mediaIds, float[] userFactors, float[] mediaFactors, int[] ratedOffsets, int[] ratedMedia, double trainingRmse) {
+        this.factors = factors;
+        this.mean = mean;
+        this.userIds = userIds;
+        this.mediaIds = mediaIds;
+        this.userFactors = userFactors;
+        this.mediaFactors = mediaFactors;
+        this.ratedOffsets = ratedOffsets;
+        this.ratedMedia = ratedMedia;
+        this.trainingRmse = trainingRmse;
+    }
+
+    //ratings the user had when the model was trained, 0 for unknown users
+    public int historyLength(int userId) {
+        int user = Arrays.binarySearch(userIds, userId);
+        return user < 0 ? 0 : ratedOffsets[user + 1] - ratedOffsets[user];
+    }
+
+    //NaN if the user or the media was not part of the training data
+    public float predict(int userId, int mediaId) {
+        int user = Arrays.binarySearch(userIds, userId);
+        int media = Arrays.binarySearch(mediaIds, mediaId);
+        if (user < 0 || media < 0) {
+            return Float.NaN;
+        }
+        return mean + dot(user * factors, media * factors);
+    }
+
+    //top `limit` media by dot product, without what the user rated at training time and excludedMediaIds (sorted)
+    public int[] recommend(int userId, int[] excludedMediaIds, int limit) {
+        int user = Arrays.binarySearch(userIds, userId);
+        if (user < 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        int userOffset = user * factors;
+        TopK best = new TopK(limit);
+        int rated = ratedOffsets[user];
+        for (int media = 0; media < mediaIds.length; media++) {
+            if (rated < ratedOffsets[user + 1] && ratedMedia[rated] == media) {
+                rated++; //rated media are sorted by index -> one merge pass instead of a lookup per media
+                continue;
+            }
+            if (excludedMediaIds.length > 0 && Arrays.binarySearch(excludedMediaIds, mediaIds[media]) >= 0) {
+                continue;
+            }
+            best.offer(dot(userOffset, media * factors), media);
+        }
+
+        int[] result = best.indexesBestFirst();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mediaIds[result[i]];
+        }
+        return result;
+    }
+
+    //root mean squared error of the predictions, pairs the model does not know are skipped
+    public double rmse(RatingMatrix ratings) {
+        double sum = 0;
+        long count = 0;
+        for (int i = 0; i < ratings.size(); i++) {
+            float predicted = predict(ratings.userId(i), ratings.mediaId(i));
+            if (!Float.isNaN(predicted)) {
+                double error = ratings.stars(i) - Math.max(1f, Math.min(5f, predicted));
+                sum += error * error;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NaN : Math.sqrt(sum / count);
+    }
+
+    public double getTrainingRmse() {
+        return trainingRmse;
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int mediaCount() {
+        return mediaIds.length;
+    }
+
+    public int factors() {
+        return factors;
+    }
+
+    //HELPERS
+    private float dot(int userOffset, int mediaOffset) {
+        float sum = 0;
+        for (int f = 0; f < factors; f++) {
+            sum += userFactors[userOffset + f] * mediaFactors[mediaOffset + f];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,198 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.User;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+//serialized leaderboard responses keyed by endpoint + parameters
+//an entry is served until its TTL runs out or any write event bumps the version
+public class LeaderboardCache implements IActivityListener {
+    private final Duration ttl;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public LeaderboardCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+
+    LeaderboardCache(Duration ttl, int maxEntries, LongSupplier nanoClock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    //null when missing, expired or written before the last invalidation
+    public CachedResponse get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.version() == version.get() && cached.expiresAt() - nanoClock.getAsLong() > 0) {
+            hits.increment();
+            return cached;
+        }
+        if (cached != null) {
+            entries.remove(key, cached);
+        }
+        misses.increment();
+        return null;
+    }
+
+    //read before loading, so a write that happens during the load makes the new entry stale right away
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public CachedResponse put(String key, byte[] body, long loadedVersion) {
+        CachedResponse response = new CachedResponse(body, etag(body), loadedVersion, nanoClock.getAsLong() + ttl.toNanos());
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evictOne();
+        }
+        entries.put(key, response);
+        return response;
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        entries.clear();
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("entries", entries.size());
+        stats.put("ttlSeconds", ttl.toSeconds());
+        return stats;
+    }
+
+    //for responses that are not cached (e.g. partial summaries) but still get an ETag
+    public static CachedResponse uncached(byte[] body) {
+        return new CachedResponse(body, etag(body), -1, 0);
+    }
+
+    //EVENTS -> everything the leaderboard endpoints aggregate over
+    @Override
+    public void onRatingCreated(Rating rating) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onRatingUpdated(Rating rating, int previousStars) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onRatingLiked(Rating rating, int userId) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onRatingConfirmed(Rating rating) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onFavoriteAdded(int userId, int mediaId) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onFavoriteRemoved(int userId, int mediaId) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onMediaCreated(Media media) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onMediaUpdated(Media media) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onMediaDeleted(Media media) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onMediaImported(int creatorId, int count) {
+        invalidateAll();
+    }
+
+    @Override
+    public void onUserRegistered(User user) {
+        invalidateAll();
+    }
+
+    //HELPERS
+    //the entry of an older version if there is one, else the one closest to expiry -> a full cache never drops everything
+    private void evictOne() {
+        long currentVersion = version.get();
+        Map.Entry<String, CachedResponse> victim = null;
+        for (Map.Entry<String, CachedResponse> candidate : entries.entrySet()) {
+            if (candidate.getValue().version() != currentVersion) {
+                victim = candidate;
+                break;
+            }
+            if (victim == null || candidate.getValue().expiresAt() - victim.getValue().expiresAt() < 0) {
+                victim = candidate;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    //content based, so a recomputed but unchanged response keeps its ETag
+    private static String etag(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return "\"" + Integer.toHexString(body.length) + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    public record CachedResponse(byte[] body, String etag, long version, long expiresAt) {
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.LeaderboardEntry;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.User;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+//per-user activity counters kept in memory and updated from service events
+//users are held in a set ordered by score, so top-users is a walk over the first k entries
+//a scheduled reconcile reloads everything from the database to correct drift (cascades, other instances)
+public class LeaderboardEngine implements IActivityListener, AutoCloseable {
+    private static final Comparator<UserActivity> BY_SCORE = Comparator.comparingInt(UserActivity::score).reversed().thenComparingInt(UserActivity::userId);
+
+    private final Supplier<List<LeaderboardEntry>> loader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, UserActivity> activities = new HashMap<>();
+    private TreeSet<UserActivity> ranking = new TreeSet<>(BY_SCORE);
+    //events that arrive while a reconcile loads, replayed onto the loaded counters before the swap (guarded by lock)
+    private List<PendingChange> pendingChanges;
+    private final ScheduledExecutorService reconciler;
+    private volatile boolean loaded;
+
+    public LeaderboardEngine(Supplier<List<LeaderboardEntry>> loader, Duration reconcileInterval) {
+        this.loader = loader;
+
+        if (reconcileInterval != null) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-leaderboard-reconcile");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = reconcileInterval.toMillis();
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.reconciler = null; //loaded once on first use
+        }
+    }
+
+    public List<LeaderboardEntry> getTopUsers(int limit) {
+        ensureLoaded();
+        List<LeaderboardEntry> result = new ArrayList<>(Math.min(limit, 128));
+        lock.readLock().lock();
+        try {
+            Iterator<UserActivity> iterator = ranking.iterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next().toEntry());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    //the counters are rebuilt outside the lock, top-users keeps reading the old ones until the swap
+    //an event that is already in the loaded rows and also replayed is counted twice until the next reconcile
+    public synchronized void reconcile() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Map<Integer, UserActivity> freshActivities = new HashMap<>();
+            TreeSet<UserActivity> freshRanking = new TreeSet<>(BY_SCORE);
+            for (LeaderboardEntry entry : loader.get()) {
+                UserActivity activity = new UserActivity(entry.getUserId(), entry.getUsername(), entry.getRatingCount(), entry.getFavoriteCount(), entry.getMediaCreatedCount());
+                freshActivities.put(activity.userId(), activity);
+                freshRanking.add(activity);
+            }
+            lock.writeLock().lock();
+            try {
+                for (PendingChange pending : pendingChanges) {
+                    apply(freshActivities, freshRanking, pending);
+                }
+                activities = freshActivities;
+                ranking = freshRanking;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return activities.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //EVENTS
+    @Override
+    public void onRatingCreated(Rating rating) {
+        update(rating.getUser_id(), activity -> activity.withRatings(1));
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        update(rating.getUser_id(), activity -> activity.withRatings(-1));
+    }
+
+    @Override
+    public void onFavoriteAdded(int userId, int mediaId) {
+        update(userId, activity -> activity.withFavorites(1));
+    }
+
+    @Override
+    public void onFavoriteRemoved(int userId, int mediaId) {
+        update(userId, activity -> activity.withFavorites(-1));
+    }
+
+    @Override
+    public void onMediaCreated(Media media) {
+        update(media.getCreator_id(), activity -> activity.withMedia(1));
+    }
+
+    @Override
+    public void onMediaImported(int creatorId, int count) {
+        update(creatorId, activity -> activity.withMedia(count));
+    }
+
+    @Override
+    public void onMediaDeleted(Media media) {
+        update(media.getCreator_id(), activity -> activity.withMedia(-1));
+        //ratings and favorites of other users cascade with the media, only a reload sees those
+        if (reconciler != null && !reconciler.isShutdown()) {
+            reconciler.execute(this::reconcileQuietly);
+        }
+    }
+
+    @Override
+    public void onUserRegistered(User user) {
+        write(new PendingChange(user.getId(), user.getUsername(), null));
+    }
+
+    @Override
+    public void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    //HELPERS
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reconcile();
+                }
+            }
+        }
+    }
+
+    //before the first load there is nothing to adjust, unknown users are picked up by the next reconcile
+    private void update(int userId, UnaryOperator<UserActivity> change) {
+        write(new PendingChange(userId, null, change));
+    }
+
+    private void write(PendingChange pending) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(pending);
+            }
+            if (loaded) {
+                apply(activities, ranking, pending);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //change null -> a new user joins with zero activity, unless the load already has them
+    private static void apply(Map<Integer, UserActivity> activities, TreeSet<UserActivity> ranking, PendingChange pending) {
+        UserActivity current = activities.get(pending.userId());
+        if (pending.change() == null) {
+            if (current == null) {
+                UserActivity activity = new UserActivity(pending.userId(), pending.username(), 0, 0, 0);
+                activities.put(activity.userId(), activity);
+                ranking.add(activity);
+            }
+            return;
+        }
+        if (current == null) {
+            return;
+        }
+        UserActivity updated = pending.change().apply(current);
+        ranking.remove(current);
+        ranking.add(updated);
+        activities.put(pending.userId(), updated);
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            System.err.println("Error reconciling leaderboard: " + e.getMessage());
+        }
+    }
+
+    private record PendingChange(int userId, String username, UnaryOperator<UserActivity> change) {
+    }
+
+    //same weights as the SQL in LeaderboardRepository
+    private record UserActivity(int userId, String username, int ratingCount, int favoriteCount, int mediaCreatedCount) {
+        int score() {
+            return ratingCount * 2 + favoriteCount + mediaCreatedCount * 3;
+        }
+
+        UserActivity withRatings(int delta) {
+            return new UserActivity(userId, username, Math.max(0, ratingCount + delta), favoriteCount, mediaCreatedCount);
+        }
+
+        UserActivity withFavorites(int delta) {
+            return new UserActivity(userId, username, ratingCount, Math.max(0, favoriteCount + delta), mediaCreatedCount);
+        }
+
+        UserActivity withMedia(int delta) {
+            return new UserActivity(userId, username, ratingCount, favoriteCount, Math.max(0, mediaCreatedCount + delta));
+        }
+
+        LeaderboardEntry toEntry() {
+            return new LeaderboardEntry(userId, username, ratingCount, favoriteCount, mediaCreatedCount, score());
+        }
+    }
+}
@@ -4,38 +4,111 @@ import at.technikum_wien.database.repositories.LeaderboardRepository;
 import at.technikum_wien.models.entities.LeaderboardEntry;
 import at.technikum_wien.models.entities.TopRatedMedia;
 import at.technikum_wien.models.entities.MostLikedRating;
+import at.technikum_wien.models.entities.LeaderboardSummary;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class LeaderboardService {
+    public static final Duration DEFAULT_SECTION_TIMEOUT = Duration.ofMillis(Long.getLong("mrp.leaderboard.sectionTimeoutMillis", 2000));
+
+    //summary sections are blocking JDBC calls, one virtual thread each is enough
+    private static final ExecutorService SECTION_EXECUTOR = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mrp-leaderboard-", 0).factory());
+
     private final LeaderboardRepository leaderboardRepository;
+    private final LeaderboardEngine leaderboardEngine;
 
     public LeaderboardService(LeaderboardRepository leaderboardRepository) {
+        this(leaderboardRepository, null);
+    }
+
+    //with an engine top-users is served from memory, without it every call queries the database
+    public LeaderboardService(LeaderboardRepository leaderboardRepository, LeaderboardEngine leaderboardEngine) {
         this.leaderboardRepository = leaderboardRepository;
+        this.leaderboardEngine = leaderboardEngine;
+    }
+
+    //anything outside 1..100 gets the default -> callers that key on the limit (LeaderboardHandler's cache) use this too
+    public static int normalizeLimit(int limit) {
+        return limit <= 0 || limit > 100 ? 20 : limit;
     }
 
     public List<LeaderboardEntry> getMostActiveUsers(int limit) {
-        if (limit <= 0 || limit > 100) {
-            limit = 20; // default
+        limit = normalizeLimit(limit);
+        if (leaderboardEngine != null) {
+            return leaderboardEngine.getTopUsers(limit);
         }
         return leaderboardRepository.getMostActiveUsers(limit);
     }
 
     public List<TopRatedMedia> getTopRatedMedia(int limit) {
-        if (limit <= 0 || limit > 100) {
-            limit = 20; //default
-        }
-        return leaderboardRepository.getTopRatedMedia(limit);
+        return leaderboardRepository.getTopRatedMedia(normalizeLimit(limit));
     }
 
     public List<MostLikedRating> getMostLikedRatings(int limit) {
-        if (limit <= 0 || limit > 100) {
-            limit = 20; //default
-        }
-        return leaderboardRepository.getMostLikedRatings(limit);
+        return leaderboardRepository.getMostLikedRatings(normalizeLimit(limit));
     }
 
     public List<String> getTrendingGenres() {
         return leaderboardRepository.getTrendingGenres();
     }
-}
\ No newline at end of file
+
+    public LeaderboardSummary getSummary(int limit) {
+        return getSummary(limit, DEFAULT_SECTION_TIMEOUT);
+    }
+
+    //runs the four sections side by side -> latency is the slowest section, not the sum
+    //a section that fails or misses the deadline is left empty and reported instead of failing the whole summary
+    public LeaderboardSummary getSummary(int limit, Duration sectionTimeout) {
+        LeaderboardSummary summary = new LeaderboardSummary();
+
+        //only the summary bounds its queries, the single endpoints have no deadline to keep
+        int sectionLimit = normalizeLimit(limit);
+        CompletableFuture<List<LeaderboardEntry>> topUsers = submit(() -> leaderboardEngine != null
+                ? leaderboardEngine.getTopUsers(sectionLimit)
+                : leaderboardRepository.getMostActiveUsers(sectionLimit, sectionTimeout));
+        CompletableFuture<List<TopRatedMedia>> topRated = submit(() -> leaderboardRepository.getTopRatedMedia(sectionLimit, sectionTimeout));
+        CompletableFuture<List<MostLikedRating>> mostLiked = submit(() -> leaderboardRepository.getMostLikedRatings(sectionLimit, sectionTimeout));
+        CompletableFuture<List<String>> trending = submit(() -> leaderboardRepository.getTrendingGenres(sectionTimeout));
+
+        long deadline = System.nanoTime() + sectionTimeout.toNanos();
+        collect(summary, "topUsers", topUsers, deadline, summary::setTopUsers);
+        collect(summary, "topRatedMedia", topRated, deadline, summary::setTopRatedMedia);
+        collect(summary, "mostLikedRatings", mostLiked, deadline, summary::setMostLikedRatings);
+        collect(summary, "trendingGenres", trending, deadline, summary::setTrendingGenres);
+
+        return summary;
+    }
+
+    //HELPERS
+    private <T> CompletableFuture<T> submit(Supplier<T> section) {
+        return CompletableFuture.supplyAsync(section, SECTION_EXECUTOR);
+    }
+
+    //all sections share one deadline, so the summary never waits longer than the timeout in total
+    //giving up on a section does not stop it (cancelling a CompletableFuture interrupts nothing),
+    //its query is ended by the repository's JDBC query timeout and the connection goes back to the pool
+    private <T> void collect(LeaderboardSummary summary, String name, CompletableFuture<T> future, long deadline, Consumer<T> setter) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            setter.accept(future.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            System.err.println("Leaderboard section " + name + " timed out");
+            summary.getMissingSections().add(name);
+        } catch (ExecutionException e) {
+            System.err.println("Error loading leaderboard section " + name + ": " + e.getCause().getMessage());
+            summary.getMissingSections().add(name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            summary.getMissingSections().add(name);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.RatingMatrix;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//alternating least squares (ALS-WR) over the user x media star matrix
+//with the media factors fixed every user vector is one small k x k least squares problem and vice versa,
+//so each half-step is thousands of independent solves -> split into row ranges on a fork/join pool
+public class MatrixFactorizationTrainer implements AutoCloseable {
+    //rows per leaf task, a row costs ratings * k^2 so this is enough work to amortize the fork
+    private static final int ROWS_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    public MatrixFactorizationTrainer(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    //lambda is scaled by the number of ratings per row (weighted regularization), so long and short histories are treated alike
+    public record Settings(int factors, int iterations, float lambda, long seed) {
+        public Settings {
+            if (factors < 1 || iterations < 1 || lambda <= 0) {
+                throw new IllegalArgumentException("factors and iterations must be at least 1, lambda must be positive");
+            }
+        }
+    }
+
+    public LatentFactorModel train(RatingMatrix ratings, Settings settings) {
+        int count = ratings.size();
+        if (count == 0) {
+            return new LatentFactorModel(settings.factors(), 0, new int[0], new int[0], new float[0], new float[0], new int[1], new int[0], Double.NaN);
+        }
+
+        //ids -> dense indexes, global mean
+        int[] users = new int[count];
+        int[] media = new int[count];
+        double starSum = 0;
+        for (int i = 0; i < count; i++) {
+            users[i] = ratings.userId(i);
+            media[i] = ratings.mediaId(i);
+            starSum += ratings.stars(i);
+        }
+        float mean = (float) (starSum / count);
+        int[] userIds = distinctSorted(users);
+        int[] mediaIds = distinctSorted(media);
+        for (int i = 0; i < count; i++) {
+            users[i] = Arrays.binarySearch(userIds, users[i]);
+            media[i] = Arrays.binarySearch(mediaIds, media[i]);
+        }
+
+        //the matrix in both directions (CSR), stars centered on the mean
+        Csr byUser = Csr.of(users, media, ratings, mean, userIds.length, mediaIds.length);
+        Csr byMedia = Csr.of(media, users, ratings, mean, mediaIds.length, userIds.length);
+
+        int k = settings.factors();
+        float[] userFactors = new float[userIds.length * k];
+        float[] mediaFactors = new float[mediaIds.length * k];
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        float scale = (float) (0.1 / Math.sqrt(k));
+        for (int i = 0; i < mediaFactors.length; i++) {
+            mediaFactors[i] = (float) (random.nextDouble(-1, 1) * scale);
+        }
+
+        for (int iteration = 0; iteration < settings.iterations(); iteration++) {
+            pool.invoke(new SolveRows(byUser, mediaFactors, userFactors, k, settings.lambda(), 0, userIds.length));
+            pool.invoke(new SolveRows(byMedia, userFactors, mediaFactors, k, settings.lambda(), 0, mediaIds.length));
+        }
+
+        double squaredError = 0;
+        for (int user = 0; user < userIds.length; user++) {
+            for (int p = byUser.offsets[user]; p < byUser.offsets[user + 1]; p++) {
+                float predicted = mean + dot(userFactors, user * k, mediaFactors, byUser.columns[p] * k, k);
+                double error = (byUser.values[p] + mean) - Math.max(1f, Math.min(5f, predicted));
+                squaredError += error * error;
+            }
+        }
+
+        //byUser.columns is sorted per row (rows were filled in media order) -> usable as "already rated"
+        return new LatentFactorModel(k, mean, userIds, mediaIds, userFactors, mediaFactors, byUser.offsets, byUser.columns, Math.sqrt(squaredError / count));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    //HELPERS
+    private static float dot(float[] a, int aOffset, float[] b, int bOffset, int k) {
+        float sum = 0;
+        for (int f = 0; f < k; f++) {
+            sum += a[aOffset + f] * b[bOffset + f];
+        }
+        return sum;
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    //rows -> (column, centered stars), columns sorted within a row
+    private record Csr(int[] offsets, int[] columns, float[] values) {
+        static Csr of(int[] rows, int[] columns, RatingMatrix ratings, float mean, int rowCount, int columnCount) {
+            int count = rows.length;
+            int[] offsets = new int[rowCount + 1];
+            for (int row : rows) {
+                offsets[row + 1]++;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+
+            //filled in column order -> every row comes out sorted by column without sorting it
+            int[] order = new int[count];
+            int[] columnStarts = new int[columnCount + 1];
+            for (int column : columns) {
+                columnStarts[column + 1]++;
+            }
+            for (int c = 0; c < columnCount; c++) {
+                columnStarts[c + 1] += columnStarts[c];
+            }
+            for (int i = 0; i < count; i++) {
+                order[columnStarts[columns[i]]++] = i;
+            }
+
+            int[] fill = Arrays.copyOf(offsets, rowCount);
+            int[] sortedColumns = new int[count];
+            float[] values = new float[count];
+            for (int i : order) {
+                int p = fill[rows[i]]++;
+                sortedColumns[p] = columns[i];
+                values[p] = ratings.stars(i) - mean;
+            }
+            return new Csr(offsets, sortedColumns, values);
+        }
+    }
+
+    //x_row = (F^T F + lambda * n * I)^-1 F^T r over the row's ratings, F = the fixed factors of the rated columns
+    private static final class SolveRows extends RecursiveAction {
+        private final Csr matrix;
+        private final float[] fixed;
+        private final float[] target;
+        private final int k;
+        private final float lambda;
+        private final int from;
+        private final int to;
+
+        private SolveRows(Csr matrix, float[] fixed, float[] target, int k, float lambda, int from, int to) {
+            this.matrix = matrix;
+            this.fixed = fixed;
+            this.target = target;
+            this.k = k;
+            this.lambda = lambda;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveRows(matrix, fixed, target, k, lambda, from, middle), new SolveRows(matrix, fixed, target, k, lambda, middle, to));
+                return;
+            }
+
+            //scratch per leaf, doubles for the solve (the normal equations lose precision quickly in float)
+            double[] a = new double[k * k];
+            double[] b = new double[k];
+            double[] f = new double[k];
+            for (int row = from; row < to; row++) {
+                Arrays.fill(a, 0);
+                Arrays.fill(b, 0);
+                int start = matrix.offsets[row];
+                int end = matrix.offsets[row + 1];
+                for (int p = start; p < end; p++) {
+                    int offset = matrix.columns[p] * k;
+                    for (int i = 0; i < k; i++) {
+                        f[i] = fixed[offset + i]; //widened once, the rank-1 update below is the hot loop
+                    }
+                    double value = matrix.values[p];
+                    for (int i = 0; i < k; i++) {
+                        double fi = f[i];
+                        b[i] += value * fi;
+                        int rowOffset = i * k;
+                        for (int j = i; j < k; j++) {
+                            a[rowOffset + j] += fi * f[j];
+                        }
+                    }
+                }
+                double regularization = lambda * Math.max(1, end - start);
+                for (int i = 0; i < k; i++) {
+                    a[i * k + i] += regularization;
+                }
+
+                choleskySolve(a, b, k);
+                for (int i = 0; i < k; i++) {
+                    target[row * k + i] = (float) b[i];
+                }
+            }
+        }
+
+        //a is symmetric positive definite (regularized), only the upper triangle is read; the solution ends up in b
+        //factorized in place as U^T U row by row, so the inner loops are contiguous row updates instead of dot products
+        private static void choleskySolve(double[] a, double[] b, int k) {
+            for (int j = 0; j < k; j++) {
+                int rowJ = j * k;
+                double diagonal = Math.sqrt(a[rowJ + j]);
+                for (int m = j; m < k; m++) {
+                    a[rowJ + m] /= diagonal;
+                }
+                for (int i = j + 1; i < k; i++) {
+                    double factor = a[rowJ + i];
+                    int rowI = i * k;
+                    for (int m = i; m < k; m++) {
+                        a[rowI + m] -= factor * a[rowJ + m];
+                    }
+                }
+            }
+            for (int i = 0; i < k; i++) { //U^T y = b
+                int rowI = i * k;
+                b[i] /= a[rowI + i];
+                for (int m = i + 1; m < k; m++) {
+                    b[m] -= a[rowI + m] * b[i];
+                }
+            }
+            for (int i = k - 1; i >= 0; i--) { //U x = y
+                int rowI = i * k;
+                double value = b[i];
+                for (int m = i + 1; m < k; m++) {
+                    value -= a[rowI + m] * b[m];
+                }
+                b[i] = value / a[rowI + i];
+            }
+        }
+    }
+}
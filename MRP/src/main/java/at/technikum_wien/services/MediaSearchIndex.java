@@ -0,0 +1,557 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+//inverted index over title & description words and their trigrams, kept in memory next to the media copies
+//words of the query are ANDed: the rarest one picks the candidates, the others are checked per candidate
+//genre/type/year/age are applied as post-filters on the candidates, media events keep the index in sync
+public class MediaSearchIndex implements IActivityListener, AutoCloseable {
+    private static final int GRAM = 3;
+    //exact word in the title beats a partial word, the description only counts for ?q=
+    private static final double TITLE_WORD = 3.0;
+    private static final double TITLE_PARTIAL = 2.0;
+    private static final double DESCRIPTION_WORD = 1.0;
+    private static final double DESCRIPTION_PARTIAL = 0.5;
+
+    private static final Comparator<Hit> BY_SCORE = Comparator.comparingDouble(Hit::score).reversed().thenComparingInt(hit -> hit.document().id());
+
+    private final Supplier<List<Media>> loader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService refresher;
+    private Index index = new Index();
+    //media events that arrive while a reload builds the next index, replayed onto it before the swap (guarded by lock)
+    private List<PendingWrite> pendingWrites;
+    private volatile boolean loaded;
+
+    public MediaSearchIndex(Supplier<List<Media>> loader, Duration refreshInterval) {
+        this.loader = loader;
+
+        if (refreshInterval != null) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-search-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = refreshInterval.toMillis();
+            refresher.scheduleWithFixedDelay(this::reloadQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.refresher = null; //loaded once on first use
+        }
+    }
+
+    //ranked by relevance unless the criteria ask for a sort order, returns copies
+    public List<Media> search(MediaSearchCriteria criteria) {
+        ensureLoaded();
+        List<String> titleTerms = tokenize(criteria.title());
+        List<String> queryTerms = tokenize(criteria.query());
+        if (titleTerms.isEmpty() && queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        List<Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(titleTerms, queryTerms, criteria);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Media> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.document().media().copy());
+        }
+        return result;
+    }
+
+    //the new index is built outside the lock, searches keep using the old one until the swap
+    //writes during the build go to the old index and are replayed onto the new one, so none is lost with the swap
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Index fresh = new Index();
+            for (Media media : loader.get()) {
+                fresh.add(media.copy());
+            }
+            lock.writeLock().lock();
+            try {
+                for (PendingWrite write : pendingWrites) {
+                    fresh.remove(write.mediaId());
+                    if (write.media() != null) {
+                        fresh.add(write.media());
+                    }
+                }
+                index = fresh;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //EVENTS
+    @Override
+    public void onMediaCreated(Media media) {
+        write(media.getId(), media);
+    }
+
+    @Override
+    public void onMediaUpdated(Media media) {
+        write(media.getId(), media);
+    }
+
+    @Override
+    public void onMediaDeleted(Media media) {
+        write(media.getId(), null);
+    }
+
+    //too many media to apply one by one, the index is rebuilt (in the background when there is a refresher)
+    @Override
+    public void onMediaImported(int creatorId, int count) {
+        if (!loaded) {
+            return;
+        }
+        if (refresher != null && !refresher.isShutdown()) {
+            refresher.execute(this::reloadQuietly);
+        } else {
+            reload();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    //lowercase words, split on everything that is not a letter or digit, duplicates dropped
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    //HELPERS
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    //outside a reload and before the first one there is nothing to adjust, the next load already contains the change
+    private void write(int mediaId, Media media) {
+        Media copy = media != null ? media.copy() : null;
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(new PendingWrite(mediaId, copy));
+            }
+            if (loaded) {
+                index.remove(mediaId);
+                if (copy != null) {
+                    index.add(copy);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            System.err.println("Error refreshing media search index: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> grams(List<String> words) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words) {
+            for (int i = 0; i + GRAM <= word.length(); i++) {
+                grams.add(word.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private static boolean matchesFilters(Media media, MediaSearchCriteria criteria) {
+        if (criteria.mediaType() != null && !criteria.mediaType().equalsIgnoreCase(media.getType())) {
+            return false;
+        }
+        if (criteria.releaseYear() != null && media.getRelease_year() != criteria.releaseYear()) {
+            return false;
+        }
+        if (criteria.ageRestriction() != null && media.getAge_restriction() > criteria.ageRestriction()) {
+            return false;
+        }
+        if (criteria.genre() != null) {
+            List<String> genres = media.getGenres();
+            return genres != null && genres.stream().anyMatch(criteria.genre()::equalsIgnoreCase);
+        }
+        return true;
+    }
+
+    //same orders as the SQL search, ties broken by id
+    private static Comparator<Hit> ordering(String sortBy) {
+        Comparator<Hit> byId = Comparator.comparingInt(hit -> hit.document().id());
+        if ("title".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparing((Hit hit) -> hit.document().title()).thenComparing(byId);
+        } else if ("releaseYear".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparingInt((Hit hit) -> hit.document().media().getRelease_year()).reversed().thenComparing(byId);
+        } else if ("ageRestriction".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparingInt((Hit hit) -> hit.document().media().getAge_restriction()).thenComparing(byId);
+        }
+        return BY_SCORE;
+    }
+
+    //guarded by the lock of the owning MediaSearchIndex
+    private static class Index {
+        private final Map<Integer, Document> documents = new HashMap<>();
+        private final Map<String, Postings> titleWords = new HashMap<>();
+        private final Map<String, Postings> descriptionWords = new HashMap<>();
+        private final Map<String, Postings> titleGrams = new HashMap<>();
+        private final Map<String, Postings> descriptionGrams = new HashMap<>();
+
+        void add(Media media) {
+            String title = media.getTitle() != null ? media.getTitle().toLowerCase(Locale.ROOT) : "";
+            String description = media.getDescription() != null ? media.getDescription().toLowerCase(Locale.ROOT) : "";
+            Document document = new Document(media.getId(), media, title, description);
+            documents.put(document.id(), document);
+
+            List<String> titleTokens = tokenize(title);
+            List<String> descriptionTokens = tokenize(description);
+            post(titleWords, titleTokens, document.id());
+            post(descriptionWords, descriptionTokens, document.id());
+            post(titleGrams, grams(titleTokens), document.id());
+            post(descriptionGrams, grams(descriptionTokens), document.id());
+        }
+
+        void remove(int id) {
+            Document document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            List<String> titleTokens = tokenize(document.title());
+            List<String> descriptionTokens = tokenize(document.description());
+            unpost(titleWords, titleTokens, id);
+            unpost(descriptionWords, descriptionTokens, id);
+            unpost(titleGrams, grams(titleTokens), id);
+            unpost(descriptionGrams, grams(descriptionTokens), id);
+        }
+
+        List<Hit> search(List<String> titleTerms, List<String> queryTerms, MediaSearchCriteria criteria) {
+            //the term with the fewest candidates drives, everything else is a per-candidate check
+            //sizes are estimated from the shortest posting list, only the driving term is materialized
+            String driver = null;
+            boolean driverWithDescription = false;
+            long driverEstimate = Long.MAX_VALUE;
+            for (String term : titleTerms) {
+                long estimate = estimate(term, false);
+                if (estimate < driverEstimate) {
+                    driver = term;
+                    driverWithDescription = false;
+                    driverEstimate = estimate;
+                }
+            }
+            for (String term : queryTerms) {
+                long estimate = estimate(term, true);
+                if (estimate < driverEstimate) {
+                    driver = term;
+                    driverWithDescription = true;
+                    driverEstimate = estimate;
+                }
+            }
+            if (driver == null || driverEstimate == 0) {
+                return List.of();
+            }
+            int[] candidates = candidates(driver, driverWithDescription);
+
+            int wanted = criteria.offset() + criteria.limit();
+            Comparator<Hit> order = ordering(criteria.sortBy());
+            //keeps the best `wanted` hits, the worst one on top so it can be replaced
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(wanted, candidates.length) + 1, order.reversed());
+
+            for (int id : candidates) {
+                Document document = documents.get(id);
+                if (document == null || !matchesFilters(document.media(), criteria)) {
+                    continue;
+                }
+                double score = score(document, titleTerms, queryTerms);
+                if (score <= 0) {
+                    continue;
+                }
+                best.offer(new Hit(document, score));
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(best);
+            ranked.sort(order);
+            if (criteria.offset() >= ranked.size()) {
+                return List.of();
+            }
+            return ranked.subList(criteria.offset(), ranked.size());
+        }
+
+        //0 -> at least one term does not match
+        private double score(Document document, List<String> titleTerms, List<String> queryTerms) {
+            double score = 0;
+            for (String term : titleTerms) {
+                double termScore = titleScore(document, term);
+                if (termScore == 0) {
+                    return 0;
+                }
+                score += termScore;
+            }
+            for (String term : queryTerms) {
+                double termScore = titleScore(document, term);
+                if (termScore == 0) {
+                    termScore = descriptionScore(document, term);
+                }
+                if (termScore == 0) {
+                    return 0;
+                }
+                score += termScore;
+            }
+            return score;
+        }
+
+        private double titleScore(Document document, String term) {
+            if (contains(titleWords, term, document.id())) {
+                return TITLE_WORD;
+            }
+            return document.title().contains(term) ? TITLE_PARTIAL : 0;
+        }
+
+        private double descriptionScore(Document document, String term) {
+            if (contains(descriptionWords, term, document.id())) {
+                return DESCRIPTION_WORD;
+            }
+            return document.description().contains(term) ? DESCRIPTION_PARTIAL : 0;
+        }
+
+        //sorted ids that may contain the term: all of its trigrams, or every media for terms shorter than a trigram
+        //(substring match like the SQL path's ILIKE, "ma" finds "The Matrix"), score() checks the text
+        //trigram hits can be false positives (grams spread over several words)
+        private int[] candidates(String term, boolean withDescription) {
+            if (term.length() < GRAM) {
+                return documents.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            }
+            int[] ids = intersect(titleGrams, grams(List.of(term)));
+            if (!withDescription) {
+                return ids;
+            }
+            return union(ids, intersect(descriptionGrams, grams(List.of(term))));
+        }
+
+        //upper bound of candidates(): a term can not match more media than its rarest trigram
+        //a short term is a scan over everything -> it only drives when no other term is given
+        private long estimate(String term, boolean withDescription) {
+            if (term.length() < GRAM) {
+                return documents.size();
+            }
+            long estimate = rarest(titleGrams, term);
+            if (withDescription) {
+                estimate += rarest(descriptionGrams, term);
+            }
+            return estimate;
+        }
+
+        private static long rarest(Map<String, Postings> index, String term) {
+            long rarest = Long.MAX_VALUE;
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                rarest = Math.min(rarest, size(index.get(term.substring(i, i + GRAM))));
+            }
+            return rarest;
+        }
+
+        private static int size(Postings postings) {
+            return postings != null ? postings.size() : 0;
+        }
+
+        //walks the shortest list and probes the others
+        private static int[] intersect(Map<String, Postings> index, Set<String> grams) {
+            List<Postings> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Postings postings = index.get(gram);
+                if (postings == null) {
+                    return new int[0];
+                }
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+
+            Postings shortest = lists.get(0);
+            int[] result = new int[shortest.size()];
+            int count = 0;
+            outer:
+            for (int i = 0; i < shortest.size(); i++) {
+                int id = shortest.get(i);
+                for (int l = 1; l < lists.size(); l++) {
+                    if (!lists.get(l).contains(id)) {
+                        continue outer;
+                    }
+                }
+                result[count++] = id;
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static int[] union(int[] left, int[] right) {
+            int[] result = new int[left.length + right.length];
+            int i = 0, j = 0, count = 0;
+            while (i < left.length || j < right.length) {
+                if (j >= right.length || (i < left.length && left[i] < right[j])) {
+                    result[count++] = left[i++];
+                } else if (i >= left.length || right[j] < left[i]) {
+                    result[count++] = right[j++];
+                } else {
+                    result[count++] = left[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static boolean contains(Map<String, Postings> index, String key, int id) {
+            Postings postings = index.get(key);
+            return postings != null && postings.contains(id);
+        }
+
+        private static void post(Map<String, Postings> index, Iterable<String> keys, int id) {
+            for (String key : keys) {
+                index.computeIfAbsent(key, k -> new Postings()).add(id);
+            }
+        }
+
+        private static void unpost(Map<String, Postings> index, Iterable<String> keys, int id) {
+            for (String key : keys) {
+                Postings postings = index.get(key);
+                if (postings != null && postings.remove(id) && postings.size() == 0) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    //sorted, duplicate free int list -> no boxing, appends are O(1) because ids mostly arrive in order
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size == 0 || id > ids[size - 1]) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            grow();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        int get(int index) {
+            return ids[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+        }
+    }
+
+    //lowercased text is kept so partial matches can be verified without touching the database
+    private record Document(int id, Media media, String title, String description) {
+    }
+
+    private record Hit(Document document, double score) {
+    }
+
+    //media null -> deleted
+    private record PendingWrite(int mediaId, Media media) {
+    }
+}
@@ -1,58 +1,111 @@
 package at.technikum_wien.services;
 
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import at.technikum_wien.models.entities.Page;
 import at.technikum_wien.database.repositories.MediaRepository;
+import at.technikum_wien.models.enums.SearchMode;
+import at.technikum_wien.models.interfaces.IActivityListener;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class MediaService {
+    public static final int DEFAULT_PAGE_SIZE = Pagination.DEFAULT_PAGE_SIZE;
+    public static final int MAX_PAGE_SIZE = Pagination.MAX_PAGE_SIZE;
+
     private final MediaRepository mediaRepository;
+    private final MediaSearchIndex searchIndex;
+    private final ActivityPublisher activityPublisher = new ActivityPublisher();
 
     public MediaService(MediaRepository mediaRepository) {
+        this(mediaRepository, null);
+    }
+
+    //without an index text searches go to the database (title ILIKE, q full-text)
+    public MediaService(MediaRepository mediaRepository, MediaSearchIndex searchIndex) {
         this.mediaRepository = mediaRepository;
+        this.searchIndex = searchIndex;
+    }
+
+    public void addListener(IActivityListener listener) {
+        activityPublisher.addListener(listener);
     }
 
     public List<Media> getAllMedia() {
         return mediaRepository.getAllMedia();
     }
 
+    //cursor = id of the last media on the previous page
+    public Page<Media> getMediaPage(String cursor, Integer limit) {
+        int pageSize = Pagination.pageSize(limit);
+        String[] keys = Pagination.decodeCursor(cursor, 1);
+        int afterId = keys == null ? 0 : Pagination.intKey(keys[0]);
+
+        List<Media> rows = mediaRepository.getMediaPage(afterId, pageSize + 1);
+        return Pagination.toPage(rows, pageSize, media -> Pagination.encodeCursor(media.getId()));
+    }
+
     public Media getMediaById(int id) {
         return mediaRepository.getById(id);
     }
 
     public Media createMedia(Media media) {
-        return mediaRepository.save(media);
+        Media savedMedia = mediaRepository.save(media);
+        if (savedMedia != null) {
+            activityPublisher.publish(listener -> listener.onMediaCreated(savedMedia));
+        }
+        return savedMedia;
     }
 
     public Media updateMedia(Media media) {
-        return mediaRepository.save(media);
+        Media updatedMedia = mediaRepository.save(media);
+        if (updatedMedia != null) {
+            activityPublisher.publish(listener -> listener.onMediaUpdated(updatedMedia));
+        }
+        return updatedMedia;
     }
 
     public void deleteMedia(int id) {
         Media media = mediaRepository.getById(id);
         if (media != null) {
             mediaRepository.deleteById(media);
+            activityPublisher.publish(listener -> listener.onMediaDeleted(media));
+        }
+    }
+
+    //rows are streamed into the database, listeners get one event for the whole import
+    public int importMedia(Iterator<Media> rows, int creatorId) {
+        int imported = mediaRepository.importMedia(rows);
+        if (imported > 0) {
+            activityPublisher.publish(listener -> listener.onMediaImported(creatorId, imported));
         }
+        return imported;
     }
 
     //search & filter methods
     public List<Media> searchMedia(String title, String genre, String mediaType, Integer releaseYear, Integer ageRestriction, String sortBy) {
-        List<Media> allMedia = mediaRepository.getAllMedia();
+        return searchMedia(title, genre, mediaType, releaseYear, ageRestriction, sortBy, DEFAULT_PAGE_SIZE, 0);
+    }
+
+    public List<Media> searchMedia(String title, String genre, String mediaType, Integer releaseYear, Integer ageRestriction, String sortBy, Integer limit, Integer offset) {
+        return searchMedia(title, null, null, genre, mediaType, releaseYear, ageRestriction, sortBy, limit, offset);
+    }
 
-        return allMedia.stream().filter(media -> title == null || media.getTitle().toLowerCase().contains(title.toLowerCase())).filter(media -> genre == null || media.getGenres().stream().anyMatch(g -> g.equalsIgnoreCase(genre))).filter(media -> mediaType == null || media.getType().equalsIgnoreCase(mediaType)).filter(media -> releaseYear == null || media.getRelease_year() == releaseYear).filter(media -> ageRestriction == null || media.getAge_restriction() <= ageRestriction).sorted((m1, m2) -> {
-            if ("title".equalsIgnoreCase(sortBy)) {
-                return m1.getTitle().compareToIgnoreCase(m2.getTitle());
-            } else if ("releaseYear".equalsIgnoreCase(sortBy)) {
-                return Integer.compare(m2.getRelease_year(), m1.getRelease_year()); //newest first
-            } else if ("ageRestriction".equalsIgnoreCase(sortBy)) {
-                return Integer.compare(m1.getAge_restriction(), m2.getAge_restriction());
-            }
-            return 0; //default no sort
-        }).collect(Collectors.toList());
+    //text searches (title / q) are answered by the in-memory index, pure filter searches and mode FULLTEXT by SQL
+    //mode null -> the index if there is one
+    public List<Media> searchMedia(String title, String query, SearchMode mode, String genre, String mediaType, Integer releaseYear, Integer ageRestriction, String sortBy, Integer limit, Integer offset) {
+        int pageSize = Pagination.pageSize(limit);
+        int start = offset == null || offset < 0 ? 0 : offset;
+        MediaSearchCriteria criteria = new MediaSearchCriteria(title, query, genre, mediaType, releaseYear, ageRestriction, sortBy, pageSize, start);
+        if (searchIndex != null && mode != SearchMode.FULLTEXT && criteria.hasText()) {
+            return searchIndex.search(criteria);
+        }
+        return mediaRepository.searchMedia(criteria);
     }
 
     public List<Media> getMediaByCreator(int creatorId) {
         return mediaRepository.getAllMedia().stream().filter(media -> media.getCreator_id() == creatorId).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaStatistics;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+//per-media counters kept in memory, loaded with one query and then maintained from rating/favorite events
+//the periodic reload corrects drift from changes that bypass the services (cascading deletes, other instances)
+public class MediaStatisticsStore implements IActivityListener, AutoCloseable {
+    private final Supplier<Map<Integer, MediaStatistics>> loader;
+    private final ConcurrentHashMap<Integer, MediaStatistics> statistics = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+    //changes that arrive while a reload loads its snapshot, replayed onto it before it replaces the counters
+    private final Object updateLock = new Object();
+    private List<PendingChange> pendingChanges;
+    private volatile boolean loaded;
+
+    public MediaStatisticsStore(Supplier<Map<Integer, MediaStatistics>> loader, Duration refreshInterval) {
+        this.loader = loader;
+
+        if (refreshInterval != null) {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-stats-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = refreshInterval.toMillis();
+            refresher.scheduleWithFixedDelay(this::reloadQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.refresher = null; //loaded once on first use
+        }
+    }
+
+    public MediaStatistics get(int mediaId) {
+        ensureLoaded();
+        MediaStatistics stats = statistics.get(mediaId);
+        return stats != null ? stats : MediaStatistics.empty(mediaId);
+    }
+
+    public double popularityScore(int mediaId) {
+        return get(mediaId).popularityScore();
+    }
+
+    //a change that lands in the snapshot and in the pending list is counted twice until the next reload,
+    //which is still closer than dropping every change made during the load
+    public synchronized void reload() {
+        synchronized (updateLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        try {
+            Map<Integer, MediaStatistics> fresh = new HashMap<>(loader.get());
+            synchronized (updateLock) {
+                for (PendingChange pending : pendingChanges) {
+                    apply(fresh, pending);
+                }
+                statistics.keySet().retainAll(fresh.keySet());
+                statistics.putAll(fresh);
+                loaded = true;
+            }
+        } finally {
+            synchronized (updateLock) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    public int size() {
+        return statistics.size();
+    }
+
+    //EVENTS
+    @Override
+    public void onRatingCreated(Rating rating) {
+        update(rating.getMedia_id(), stats -> stats.withRating(rating.getStars(), 1));
+    }
+
+    @Override
+    public void onRatingUpdated(Rating rating, int previousStars) {
+        update(rating.getMedia_id(), stats -> stats.withRating(rating.getStars() - previousStars, 0));
+    }
+
+    //the rating's likes cascade with it but the event does not carry their number -> likeCount is corrected by the next reload
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        update(rating.getMedia_id(), stats -> stats.withRating(-rating.getStars(), -1));
+    }
+
+    @Override
+    public void onRatingLiked(Rating rating, int userId) {
+        update(rating.getMedia_id(), stats -> stats.withLikes(1));
+    }
+
+    @Override
+    public void onFavoriteAdded(int userId, int mediaId) {
+        update(mediaId, stats -> stats.withFavorites(1));
+    }
+
+    @Override
+    public void onFavoriteRemoved(int userId, int mediaId) {
+        update(mediaId, stats -> stats.withFavorites(-1));
+    }
+
+    @Override
+    public void onMediaDeleted(Media media) {
+        update(media.getId(), null); //ratings and favorites cascade with it
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    //HELPERS
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    //before the first load there is nothing to adjust, the load will already contain the change
+    //change null -> the media is gone
+    private void update(int mediaId, UnaryOperator<MediaStatistics> change) {
+        PendingChange pending = new PendingChange(mediaId, change);
+        synchronized (updateLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(pending);
+            }
+            if (loaded) {
+                apply(statistics, pending);
+            }
+        }
+    }
+
+    private static void apply(Map<Integer, MediaStatistics> target, PendingChange pending) {
+        if (pending.change() == null) {
+            target.remove(pending.mediaId());
+        } else {
+            target.compute(pending.mediaId(), (id, current) -> pending.change().apply(current != null ? current : MediaStatistics.empty(id)));
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            System.err.println("Error refreshing media statistics: " + e.getMessage());
+        }
+    }
+
+    private record PendingChange(int mediaId, UnaryOperator<MediaStatistics> change) {
+    }
+}
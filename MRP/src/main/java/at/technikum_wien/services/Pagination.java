@@ -0,0 +1,68 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Page;
+import at.technikum_wien.models.execeptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+//page sizes and opaque cursors for keyset pagination
+//a cursor is the sort key of the last row returned, base64url encoded so clients treat it as a token
+public class Pagination {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = Integer.getInteger("mrp.pagination.maxPageSize", 200);
+
+    private static final String SEPARATOR = "|";
+
+    public static int pageSize(Integer requested) {
+        return requested == null || requested <= 0 ? DEFAULT_PAGE_SIZE : Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    public static String encodeCursor(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (Object key : keys) {
+            if (!raw.isEmpty()) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    //null cursor -> null (first page), anything malformed -> InvalidCursorException
+    public static String[] decodeCursor(String cursor, int expectedKeys) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(e);
+        }
+        String[] keys = raw.split("\\" + SEPARATOR, -1);
+        if (keys.length != expectedKeys) {
+            throw new InvalidCursorException();
+        }
+        return keys;
+    }
+
+    public static int intKey(String key) {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(e);
+        }
+    }
+
+    //repositories are asked for pageSize + 1 rows, the extra row only tells whether another page exists
+    public static <T> Page<T> toPage(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null, pageSize);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)), pageSize);
+    }
+}
@@ -5,14 +5,20 @@ import at.technikum_wien.database.repositories.MediaRepository;
 import at.technikum_wien.database.repositories.UserRepository;
 import at.technikum_wien.models.entities.Rating;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Page;
 import at.technikum_wien.models.entities.User;
+import at.technikum_wien.models.execeptions.InvalidCursorException;
+import at.technikum_wien.models.interfaces.IActivityListener;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 public class RatingService {
     private final RatingRepository ratingRepository;
     private final MediaRepository mediaRepository;
     private final UserRepository userRepository;
+    private final ActivityPublisher activityPublisher = new ActivityPublisher();
 
     public RatingService(RatingRepository ratingRepository, MediaRepository mediaRepository, UserRepository userRepository) {
         this.ratingRepository = ratingRepository;
@@ -20,6 +26,10 @@ public class RatingService {
         this.userRepository = userRepository;
     }
 
+    public void addListener(IActivityListener listener) {
+        activityPublisher.addListener(listener);
+    }
+
     //rate media entry
     public Rating rateMedia(int mediaId, int userId, int stars, String comment) {
         //validate input
@@ -57,6 +67,7 @@ public class RatingService {
             throw new RuntimeException("Failed to save rating");
         }
 
+        activityPublisher.publish(listener -> listener.onRatingCreated(savedRating));
         return savedRating;
     }
 
@@ -77,6 +88,26 @@ public class RatingService {
         return ratingRepository.getAllRatingsByUser(userId);
     }
 
+    //keyset page of the user's own ratings, newest first
+    public Page<Rating> getRatingsByUserPage(int userId, String cursor, Integer limit) {
+        int pageSize = Pagination.pageSize(limit);
+        String[] keys = Pagination.decodeCursor(cursor, 2);
+
+        LocalDateTime beforeCreatedAt = null;
+        int beforeId = 0;
+        if (keys != null) {
+            try {
+                beforeCreatedAt = LocalDateTime.parse(keys[0]);
+            } catch (DateTimeParseException e) {
+                throw new InvalidCursorException(e);
+            }
+            beforeId = Pagination.intKey(keys[1]);
+        }
+
+        List<Rating> rows = ratingRepository.getRatingsByUserPage(userId, beforeCreatedAt, beforeId, pageSize + 1);
+        return Pagination.toPage(rows, pageSize, rating -> Pagination.encodeCursor(rating.getCreated_at(), rating.getId()));
+    }
+
     //update a rating - if comment changes, it becomes unconfirmed again
     public Rating updateRating(int ratingId, int stars, String comment, int userId) {
         //validate star input
@@ -102,6 +133,7 @@ public class RatingService {
         }
 
         //update rating
+        int previousStars = existingRating.getStars();
         existingRating.setStars(stars);
         existingRating.setComment(comment);
 
@@ -110,6 +142,7 @@ public class RatingService {
             throw new RuntimeException("Failed to update rating");
         }
 
+        activityPublisher.publish(listener -> listener.onRatingUpdated(updatedRating, previousStars));
         return updatedRating;
     }
 
@@ -136,7 +169,12 @@ public class RatingService {
             throw new IllegalStateException("Comment is already confirmed");
         }
 
-        return ratingRepository.confirmRating(ratingId);
+        boolean confirmed = ratingRepository.confirmRating(ratingId);
+        if (confirmed) {
+            existingRating.setConfirmed(true);
+            activityPublisher.publish(listener -> listener.onRatingConfirmed(existingRating));
+        }
+        return confirmed;
     }
 
     public void deleteRating(int ratingId, int userId) {
@@ -150,6 +188,7 @@ public class RatingService {
         }
 
         ratingRepository.deleteById(existingRating);
+        activityPublisher.publish(listener -> listener.onRatingDeleted(existingRating));
     }
 
     public boolean likeRating(int ratingId, int userId) {
@@ -167,7 +206,11 @@ public class RatingService {
             throw new IllegalStateException("Users cannot like their own ratings");
         }
 
-        return ratingRepository.likeRating(ratingId, userId);
+        boolean liked = ratingRepository.likeRating(ratingId, userId);
+        if (liked) {
+            activityPublisher.publish(listener -> listener.onRatingLiked(rating, userId));
+        }
+        return liked;
     }
 
     public int getRatingLikeCount(int ratingId) {
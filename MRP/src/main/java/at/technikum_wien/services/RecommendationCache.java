@@ -0,0 +1,241 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.interfaces.IActivityListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+//ranked recommendation lists per user x type x limit, stale-while-revalidate:
+//a rating/favorite of the user (or the TTL) only marks their entries stale, the next request still gets the old list
+//while it is recomputed in the background -> only the very first request of a key waits for the computation
+public class RecommendationCache implements IActivityListener, AutoCloseable {
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Executor refresher;
+    private final ExecutorService ownedRefresher;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+    //stamps order loads and invalidations: an entry is stale if its user was invalidated after its load started
+    //the invalidation is stored on the entries and on the loads still running -> nothing is kept per user beyond that
+    //both are indexed per user, so an invalidation only touches that user's entries; a user's keys change together
+    //with their entry (under its bin lock), an index set that runs empty is removed
+    private final AtomicLong stamps = new AtomicLong();
+    private final ConcurrentHashMap<Integer, Set<Key>> keysByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Load>> loadsByUser = new ConcurrentHashMap<>();
+    private volatile long allInvalidatedAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RecommendationCache(Duration ttl, int maxEntries, int refreshThreads) {
+        this(ttl, maxEntries, Executors.newFixedThreadPool(Math.max(1, refreshThreads), runnable -> {
+            Thread thread = new Thread(runnable, "mrp-recommendation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }), System::nanoTime);
+    }
+
+    RecommendationCache(Duration ttl, int maxEntries, Executor refresher, LongSupplier nanoClock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.refresher = refresher;
+        this.ownedRefresher = refresher instanceof ExecutorService executorService ? executorService : null;
+        this.nanoClock = nanoClock;
+    }
+
+    //loader computes the list for exactly this key, it runs on the caller only if nothing is cached yet
+    public List<Media> get(int userId, String type, int limit, Supplier<List<Media>> loader) {
+        Key key = new Key(userId, type, limit);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return load(key, loader);
+        }
+        if (isFresh(entry)) {
+            hits.increment();
+            return entry.recommendations();
+        }
+        staleHits.increment();
+        refreshAsync(key, loader);
+        return entry.recommendations();
+    }
+
+    public void invalidateUser(int userId) {
+        long stamp = stamps.incrementAndGet();
+        //running loads first: one that stores its entry after the keys were walked then still sees the invalidation
+        for (Load load : loadsByUser.getOrDefault(userId, Set.of())) {
+            load.invalidated = true;
+        }
+        for (Key key : keysByUser.getOrDefault(userId, Set.of())) {
+            entries.computeIfPresent(key, (k, entry) -> entry.stamp() < stamp ? entry.markStale() : entry);
+        }
+        invalidations.increment();
+    }
+
+    //drops everything, for changes where even a stale list would be wrong
+    public void invalidateAll() {
+        allInvalidatedAt = stamps.incrementAndGet();
+        removeAll();
+        invalidations.increment();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), staleHits.sum(), misses.sum(), refreshes.sum(), invalidations.sum(), entries.size());
+    }
+
+    //EVENTS -> what the user's own recommendations are computed from
+    @Override
+    public void onRatingCreated(Rating rating) {
+        invalidateUser(rating.getUser_id());
+    }
+
+    @Override
+    public void onRatingUpdated(Rating rating, int previousStars) {
+        invalidateUser(rating.getUser_id());
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        invalidateUser(rating.getUser_id());
+    }
+
+    @Override
+    public void onFavoriteAdded(int userId, int mediaId) {
+        invalidateUser(userId);
+    }
+
+    @Override
+    public void onFavoriteRemoved(int userId, int mediaId) {
+        invalidateUser(userId);
+    }
+
+    //a deleted media must not be served again, not even once
+    @Override
+    public void onMediaDeleted(Media media) {
+        invalidateAll();
+    }
+
+    @Override
+    public void close() {
+        if (ownedRefresher != null) {
+            ownedRefresher.shutdownNow();
+        }
+    }
+
+    //HELPERS
+    private boolean isFresh(Entry entry) {
+        return entry.expiresAt() - nanoClock.getAsLong() > 0
+                && !entry.stale()
+                && entry.stamp() >= allInvalidatedAt;
+    }
+
+    //the stamp is taken before computing, so an invalidation during the computation leaves the result stale
+    private List<Media> load(Key key, Supplier<List<Media>> loader) {
+        Load load = new Load();
+        index(loadsByUser, key.userId(), load);
+        try {
+            long stamp = stamps.get();
+            List<Media> recommendations = List.copyOf(loader.get());
+            if (stamp >= allInvalidatedAt) {
+                if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+                    removeAll(); //running full means unusual limits -> start over
+                }
+                long expiresAt = nanoClock.getAsLong() + ttl.toNanos();
+                //key indexed before the flag is read: an invalidation either sees the flag set or finds the key
+                //and waits for this bin lock with its computeIfPresent
+                entries.compute(key, (k, current) -> {
+                    index(keysByUser, k.userId(), k);
+                    Entry loaded = new Entry(recommendations, stamp, expiresAt, load.invalidated);
+                    return current == null || loaded.stamp() >= current.stamp() ? loaded : current;
+                });
+            }
+            return recommendations;
+        } finally {
+            unindex(loadsByUser, key.userId(), load);
+        }
+    }
+
+    //entry by entry, so every key leaves the index together with its entry
+    private void removeAll() {
+        for (Key key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, entry) -> {
+                unindex(keysByUser, k.userId(), k);
+                return null;
+            });
+        }
+    }
+
+    private static <T> void index(ConcurrentHashMap<Integer, Set<T>> byUser, int userId, T value) {
+        byUser.compute(userId, (id, values) -> {
+            Set<T> result = values != null ? values : ConcurrentHashMap.newKeySet();
+            result.add(value);
+            return result;
+        });
+    }
+
+    private static <T> void unindex(ConcurrentHashMap<Integer, Set<T>> byUser, int userId, T value) {
+        byUser.computeIfPresent(userId, (id, values) -> {
+            values.remove(value);
+            return values.isEmpty() ? null : values;
+        });
+    }
+
+    //at most one refresh per key in flight, a failed refresh keeps serving the stale list until the next attempt
+    private void refreshAsync(Key key, Supplier<List<Media>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key, loader);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    System.err.println("Error refreshing recommendations for user " + key.userId() + ": " + e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key); //shutting down
+        }
+    }
+
+    private record Key(int userId, String type, int limit) {
+    }
+
+    private record Entry(List<Media> recommendations, long stamp, long expiresAt, boolean stale) {
+        Entry markStale() {
+            return stale ? this : new Entry(recommendations, stamp, expiresAt, true);
+        }
+    }
+
+    //a load in flight, identity semantics -> two concurrent loads of the same key are tracked separately
+    private static final class Load {
+        private volatile boolean invalidated;
+    }
+
+    public record Stats(long hits, long staleHits, long misses, long refreshes, long invalidations, int entries) {
+    }
+}
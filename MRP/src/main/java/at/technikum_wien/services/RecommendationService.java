@@ -2,22 +2,36 @@ package at.technikum_wien.services;
 
 import at.technikum_wien.database.repositories.MediaRepository;
 import at.technikum_wien.database.repositories.RatingRepository;
-import at.technikum_wien.database.repositories.FavoriteRepository;
 import at.technikum_wien.models.entities.Media;
 import at.technikum_wien.models.entities.Rating;
 
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
+//scores every candidate exactly once per request, popularity comes from the in-memory statistics store
+//and rated media are resolved from the already loaded media list -> no per-item queries
 public class RecommendationService {
     private final MediaRepository mediaRepository;
     private final RatingRepository ratingRepository;
-    private final FavoriteRepository favoriteRepository;
+    private final MediaStatisticsStore statisticsStore;
+    private final CollaborativeFilteringEngine collaborativeEngine;
+    private final LatentFactorEngine latentEngine;
 
-    public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository, FavoriteRepository favoriteRepository) {
+    public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository, MediaStatisticsStore statisticsStore) {
+        this(mediaRepository, ratingRepository, statisticsStore, null);
+    }
+
+    public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository, MediaStatisticsStore statisticsStore, CollaborativeFilteringEngine collaborativeEngine) {
+        this(mediaRepository, ratingRepository, statisticsStore, collaborativeEngine, null);
+    }
+
+    public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository, MediaStatisticsStore statisticsStore, CollaborativeFilteringEngine collaborativeEngine, LatentFactorEngine latentEngine) {
         this.mediaRepository = mediaRepository;
         this.ratingRepository = ratingRepository;
-        this.favoriteRepository = favoriteRepository;
+        this.statisticsStore = statisticsStore;
+        this.collaborativeEngine = collaborativeEngine;
+        this.latentEngine = latentEngine;
     }
 
     //get genre-based recommendations based on user's previously highly rated media
@@ -26,20 +40,20 @@ public class RecommendationService {
         List<Rating> userRatings = ratingRepository.getAllRatingsByUser(userId);
 
         if (userRatings.isEmpty()) {
-            return getPopularMediaByCommonGenres(limit);
+            return getPopularMediaByCommonGenres(allMedia, limit);
         }
 
-        Set<String> favoriteGenres = calculateFavoriteGenres(userRatings);
+        Map<Integer, Media> mediaById = indexById(allMedia);
+        Set<String> favoriteGenres = calculateFavoriteGenres(userRatings, mediaById);
 
         if (favoriteGenres.isEmpty()) {
-            return getPopularMedia(limit);
+            return getPopularMedia(allMedia, limit);
         }
 
-        return allMedia.stream().filter(media -> !hasUserRatedMedia(userRatings, media.getId())).sorted((m1, m2) -> {
-            double score1 = calculateGenreSimilarityScore(m1, favoriteGenres);
-            double score2 = calculateGenreSimilarityScore(m2, favoriteGenres);
-            return Double.compare(score2, score1); // Descending order
-        }).limit(limit).collect(Collectors.toList());
+        Set<Integer> ratedIds = ratedMediaIds(userRatings);
+        List<Media> candidates = allMedia.stream().filter(media -> !ratedIds.contains(media.getId())).collect(Collectors.toList());
+
+        return rankByScore(candidates, media -> calculateGenreSimilarityScore(media, favoriteGenres), limit);
     }
 
     //get content-based recommendations considering genre, media type, and age restriction
@@ -48,25 +62,56 @@ public class RecommendationService {
         List<Rating> userRatings = ratingRepository.getAllRatingsByUser(userId);
 
         if (userRatings.isEmpty()) {
-            return getPopularMedia(limit);
+            return getPopularMedia(allMedia, limit);
         }
 
-        UserPreferences preferences = calculateUserPreferences(userRatings);
-        Map<Media, Double> mediaScores = new HashMap<>();
+        UserPreferences preferences = calculateUserPreferences(userRatings, indexById(allMedia));
 
-        for (Media media : allMedia) {
-            if (hasUserRatedMedia(userRatings, media.getId())) {
-                continue;
-            }
+        Set<Integer> ratedIds = ratedMediaIds(userRatings);
+        List<Media> candidates = allMedia.stream().filter(media -> !ratedIds.contains(media.getId())).collect(Collectors.toList());
+
+        return rankByScore(candidates, media -> calculateContentSimilarityScore(media, preferences), limit);
+    }
 
-            double score = calculateContentSimilarityScore(media, preferences);
-            mediaScores.put(media, score);
+    //item-item collaborative filtering from the prebuilt model, only the recommended media are resolved (entity cache)
+    public List<Media> getCollaborativeRecommendations(int userId, int limit) {
+        if (collaborativeEngine == null) {
+            throw new IllegalStateException("Collaborative recommendations are not enabled");
         }
+        List<Integer> mediaIds = collaborativeEngine.recommend(userId, limit);
+        if (mediaIds.isEmpty()) {
+            //no ratings/favorites yet or nothing in common with anybody
+            return getPopularMedia(mediaRepository.getAllMedia(), limit);
+        }
+        return resolveMedia(mediaIds);
+    }
 
-        return mediaScores.entrySet().stream().sorted(Map.Entry.<Media, Double>comparingByValue().reversed()).limit(limit).map(Map.Entry::getKey).collect(Collectors.toList());
+    //matrix factorization for users with a long rating history, the rest get collaborative (or popular) recommendations
+    public List<Media> getLatentFactorRecommendations(int userId, int limit) {
+        if (latentEngine == null) {
+            throw new IllegalStateException("Latent factor recommendations are not enabled");
+        }
+        List<Integer> mediaIds = latentEngine.recommend(userId, limit);
+        if (mediaIds.isEmpty()) {
+            //model not trained yet or too few ratings to trust the user's factors
+            return collaborativeEngine != null ? getCollaborativeRecommendations(userId, limit) : getPopularMedia(mediaRepository.getAllMedia(), limit);
+        }
+        return resolveMedia(mediaIds);
     }
 
     //HELPERS
+    //only the recommended media are resolved (entity cache), media deleted since the model was built are skipped
+    private List<Media> resolveMedia(List<Integer> mediaIds) {
+        List<Media> recommendations = new ArrayList<>(mediaIds.size());
+        for (int mediaId : mediaIds) {
+            Media media = mediaRepository.getById(mediaId);
+            if (media != null) {
+                recommendations.add(media);
+            }
+        }
+        return recommendations;
+    }
+
     private static class UserPreferences {
         Set<String> favoriteGenres = new HashSet<>();
         String preferredMediaType;
@@ -77,13 +122,13 @@ public class RecommendationService {
         double ageRestrictionWeight = 0.2;
     }
 
-    private Set<String> calculateFavoriteGenres(List<Rating> userRatings) {
+    private Set<String> calculateFavoriteGenres(List<Rating> userRatings, Map<Integer, Media> mediaById) {
         Set<String> favoriteGenres = new HashSet<>();
 
         List<Rating> highRatings = userRatings.stream().filter(rating -> rating.getStars() >= 4).collect(Collectors.toList());
 
         for (Rating rating : highRatings) {
-            Media media = mediaRepository.getById(rating.getMedia_id()); // Fixed method name
+            Media media = mediaById.get(rating.getMedia_id());
             if (media != null && media.getGenres() != null) {
                 favoriteGenres.addAll(media.getGenres());
             }
@@ -92,7 +137,7 @@ public class RecommendationService {
         return favoriteGenres;
     }
 
-    private UserPreferences calculateUserPreferences(List<Rating> userRatings) {
+    private UserPreferences calculateUserPreferences(List<Rating> userRatings, Map<Integer, Media> mediaById) {
         UserPreferences preferences = new UserPreferences();
 
         List<Rating> highRatings = userRatings.stream().filter(rating -> rating.getStars() >= 4).collect(Collectors.toList());
@@ -101,15 +146,17 @@ public class RecommendationService {
             highRatings = userRatings;
         }
 
-        preferences.favoriteGenres = calculateFavoriteGenres(userRatings);
+        preferences.favoriteGenres = calculateFavoriteGenres(userRatings, mediaById);
 
-        Map<String, Long> mediaTypeCounts = highRatings.stream().map(rating -> mediaRepository.getById(rating.getMedia_id())).filter(Objects::nonNull).collect(Collectors.groupingBy(Media::getType, Collectors.counting()));
+        List<Media> highRatedMedia = highRatings.stream().map(rating -> mediaById.get(rating.getMedia_id())).filter(Objects::nonNull).collect(Collectors.toList());
+
+        Map<String, Long> mediaTypeCounts = highRatedMedia.stream().collect(Collectors.groupingBy(Media::getType, Collectors.counting()));
 
         if (!mediaTypeCounts.isEmpty()) {
             preferences.preferredMediaType = mediaTypeCounts.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
         }
 
-        double avgAgeRestriction = highRatings.stream().map(rating -> mediaRepository.getById(rating.getMedia_id())).filter(Objects::nonNull).mapToInt(Media::getAge_restriction).average().orElse(0);
+        double avgAgeRestriction = highRatedMedia.stream().mapToInt(Media::getAge_restriction).average().orElse(0);
         preferences.preferredAgeRestriction = (int) Math.round(avgAgeRestriction);
 
         return preferences;
@@ -153,40 +200,49 @@ public class RecommendationService {
     }
 
     private double calculatePopularityScore(Media media) {
-        List<Rating> ratings = ratingRepository.getAllRatingsByMedia(media.getId());
-        int favoriteCount = favoriteRepository.getFavoriteCountForMedia(media.getId());
-
-        if (ratings.isEmpty()) {
-            return favoriteCount;
-        }
-
-        double averageRating = ratings.stream().mapToInt(Rating::getStars).average().orElse(0.0);
-
-        return (averageRating * ratings.size()) + (favoriteCount * 0.5);
+        return statisticsStore.popularityScore(media.getId());
     }
 
-    private boolean hasUserRatedMedia(List<Rating> userRatings, int mediaId) {
-        return userRatings.stream().anyMatch(rating -> rating.getMedia_id() == mediaId); // Fixed method name
+    private Set<Integer> ratedMediaIds(List<Rating> userRatings) {
+        return userRatings.stream().map(Rating::getMedia_id).collect(Collectors.toSet());
     }
 
-    private List<Media> getPopularMedia(int limit) {
-        List<Media> allMedia = mediaRepository.getAllMedia();
+    private Map<Integer, Media> indexById(List<Media> allMedia) {
+        Map<Integer, Media> mediaById = new HashMap<>();
+        for (Media media : allMedia) {
+            mediaById.put(media.getId(), media);
+        }
+        return mediaById;
+    }
 
-        return allMedia.stream().sorted((m1, m2) -> Double.compare(calculatePopularityScore(m2), calculatePopularityScore(m1))).limit(limit).collect(Collectors.toList());
+    private List<Media> getPopularMedia(List<Media> allMedia, int limit) {
+        return rankByScore(allMedia, this::calculatePopularityScore, limit);
     }
 
-    private List<Media> getPopularMediaByCommonGenres(int limit) {
+    private List<Media> getPopularMediaByCommonGenres(List<Media> allMedia, int limit) {
         Set<String> commonGenres = Set.of("action", "drama", "comedy", "adventure");
-        List<Media> allMedia = mediaRepository.getAllMedia();
 
-        return allMedia.stream().sorted((m1, m2) -> {
-            double score1 = calculateGenreSimilarityScore(m1, commonGenres);
-            double score2 = calculateGenreSimilarityScore(m2, commonGenres);
-            int genreCompare = Double.compare(score2, score1);
+        //genre match first, popularity as tie breaker
+        List<ScoredMedia> scored = new ArrayList<>(allMedia.size());
+        for (Media media : allMedia) {
+            scored.add(new ScoredMedia(media, calculateGenreSimilarityScore(media, commonGenres), calculatePopularityScore(media)));
+        }
+        scored.sort(Comparator.comparingDouble(ScoredMedia::score).reversed().thenComparing(Comparator.comparingDouble(ScoredMedia::tieBreaker).reversed()));
+
+        return scored.stream().limit(limit).map(ScoredMedia::media).collect(Collectors.toList());
+    }
+
+    //computes each score once and sorts descending, equal scores keep their input order
+    private List<Media> rankByScore(List<Media> candidates, ToDoubleFunction<Media> scorer, int limit) {
+        List<ScoredMedia> scored = new ArrayList<>(candidates.size());
+        for (Media media : candidates) {
+            scored.add(new ScoredMedia(media, scorer.applyAsDouble(media), 0.0));
+        }
+        scored.sort(Comparator.comparingDouble(ScoredMedia::score).reversed());
 
-            if (genreCompare != 0) return genreCompare;
+        return scored.stream().limit(limit).map(ScoredMedia::media).collect(Collectors.toList());
+    }
 
-            return Double.compare(calculatePopularityScore(m2), calculatePopularityScore(m1));
-        }).limit(limit).collect(Collectors.toList());
+    private record ScoredMedia(Media media, double score, double tieBreaker) {
     }
 }
\ No newline at end of file
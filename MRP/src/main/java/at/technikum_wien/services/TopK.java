@@ -0,0 +1,99 @@
+package at.technikum_wien.services;
+
+import java.util.Arrays;
+
+//best k (score, index) pairs without boxing: both packed into one long, kept in a min-heap whose root is the weakest
+//long order == score order, equal scores -> lower index first
+final class TopK {
+    private final long[] heap;
+    private int size;
+
+    TopK(int k) {
+        this.heap = new long[Math.max(0, k)];
+    }
+
+    void offer(float score, int index) {
+        long packed = pack(score, index);
+        if (size < heap.length) {
+            heap[size] = packed;
+            siftUp(size++);
+        } else if (size > 0 && packed > heap[0]) {
+            heap[0] = packed;
+            siftDown();
+        }
+    }
+
+    //packed pairs, best first
+    long[] bestFirst() {
+        long[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            long value = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = value;
+        }
+        return sorted;
+    }
+
+    int[] indexesBestFirst() {
+        long[] best = bestFirst();
+        int[] indexes = new int[best.length];
+        for (int i = 0; i < best.length; i++) {
+            indexes[i] = unpackIndex(best[i]);
+        }
+        return indexes;
+    }
+
+    //negative floats sort backwards by their bits -> flip everything but the sign
+    static long pack(float score, int index) {
+        int bits = Float.floatToIntBits(score);
+        int ordered = bits >= 0 ? bits : bits ^ Integer.MAX_VALUE;
+        return ((long) ordered << 32) | (Integer.MAX_VALUE - index);
+    }
+
+    static int unpackIndex(long packed) {
+        return Integer.MAX_VALUE - (int) packed;
+    }
+
+    static float unpackScore(long packed) {
+        int ordered = (int) (packed >>> 32);
+        return Float.intBitsToFloat(ordered >= 0 ? ordered : ordered ^ Integer.MAX_VALUE);
+    }
+
+    //HELPERS
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown() {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(smallest, index);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long value = heap[a];
+        heap[a] = heap[b];
+        heap[b] = value;
+    }
+}
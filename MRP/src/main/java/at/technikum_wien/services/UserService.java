@@ -3,17 +3,23 @@ package at.technikum_wien.services;
 import at.technikum_wien.models.entities.User;
 import at.technikum_wien.database.repositories.UserRepository;
 import at.technikum_wien.database.repositories.TokenRepository;
+import at.technikum_wien.models.interfaces.IActivityListener;
 import at.technikum_wien.security.PasswordHasher;
 
 public class UserService {
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
+    private final ActivityPublisher activityPublisher = new ActivityPublisher();
 
     public UserService(UserRepository userRepository, TokenRepository tokenRepository) {
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
     }
 
+    public void addListener(IActivityListener listener) {
+        activityPublisher.addListener(listener);
+    }
+
     public User registerUser(String username, String password) {
         //check if user exists
         User existingUser = userRepository.getByName(username);
@@ -24,7 +30,11 @@ public class UserService {
         //create new user
         String hashedPassword = PasswordHasher.hashPassword(password);
         User newUser = new User(username, hashedPassword);
-        return userRepository.save(newUser);
+        User savedUser = userRepository.save(newUser);
+        if (savedUser != null) {
+            activityPublisher.publish(listener -> listener.onUserRegistered(savedUser));
+        }
+        return savedUser;
     }
 
     public LoginResult loginUser(String username, String password) {
@@ -38,6 +48,12 @@ public class UserService {
             throw new SecurityException("Invalid username or password");
         }
 
+        //hash made with an older (cheaper) cost -> upgrade it without making the user wait
+        if (PasswordHasher.needsRehash(user.getPasswordHash())) {
+            int userId = user.getId();
+            PasswordHasher.rehashInBackground(password, newHash -> userRepository.updatePasswordHash(userId, newHash));
+        }
+
         String token = tokenRepository.createToken(user.getId(), user.getUsername());
         return new LoginResult(token, user.getId());
     }
@@ -45,6 +61,13 @@ public class UserService {
     public record LoginResult(String token, int userId) {
     }
 
+    public boolean logoutUser(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new SecurityException("Authentication required");
+        }
+        return tokenRepository.deleteToken(token);
+    }
+
     public User updateUser(User user) {
         //check if username is changed & if it's already taken
         User existingUser = userRepository.getById(user.getId());
@@ -0,0 +1,28 @@
+-- secondary indexes for the repository access paths, schema.sql only declares primary keys
+
+-- RatingRepository.getAllRatingsByUser / getRatingByUserAndMedia (ORDER BY created_at DESC)
+CREATE INDEX IF NOT EXISTS idx_ratings_user_created ON ratings (user_id, created_at DESC);
+
+-- RatingRepository.getAllRatingsByMedia, per-media aggregates
+CREATE INDEX IF NOT EXISTS idx_ratings_media_created ON ratings (media_id, created_at DESC);
+
+-- LeaderboardRepository.getTrendingGenres (last 7 days range scan)
+CREATE INDEX IF NOT EXISTS idx_ratings_created ON ratings (created_at);
+
+-- FavoriteRepository.getFavoriteCountForMedia, the primary key leads with user_id
+CREATE INDEX IF NOT EXISTS idx_favorites_media ON favorites (media_id);
+
+-- like counts per rating, the primary key leads with user_id
+CREATE INDEX IF NOT EXISTS idx_rating_likes_rating ON rating_likes (rating_id);
+
+-- genre lookups by LOWER(name) in MediaRepository
+CREATE INDEX IF NOT EXISTS idx_genres_lower_name ON genres (LOWER(name));
+
+-- genre -> media direction of the link table, the primary key leads with media_id
+CREATE INDEX IF NOT EXISTS idx_media_genres_genre ON media_genres (genre_id);
+
+-- media by creator
+CREATE INDEX IF NOT EXISTS idx_media_creator ON media (creator_id);
+
+-- TokenRepository: existing valid token per user, cleanup of expired tokens
+CREATE INDEX IF NOT EXISTS idx_tokens_user_expires ON tokens (user_id, expires_at);
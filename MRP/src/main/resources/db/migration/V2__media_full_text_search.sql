@@ -0,0 +1,10 @@
+-- full-text search over title (weight A) and description (weight B), maintained by PostgreSQL on every write
+-- MediaRepository.searchMedia matches it with websearch_to_tsquery and orders by ts_rank
+ALTER TABLE media
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('english', COALESCE(title, '')), 'A') ||
+            setweight(to_tsvector('english', COALESCE(description, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_media_search_vector ON media USING GIN (search_vector);
@@ -0,0 +1,8 @@
+-- keyset pagination of a user's ratings compares (created_at, id) row values, a NULL created_at would drop the row
+-- from every page after the first -> backfill explicit NULLs (oldest possible) and forbid them from now on
+-- COALESCE in the query would do the same but could no longer use idx_ratings_user_created
+UPDATE ratings SET created_at = TIMESTAMP '1970-01-01 00:00:00' WHERE created_at IS NULL;
+
+ALTER TABLE ratings
+    ALTER COLUMN created_at SET DEFAULT now(),
+    ALTER COLUMN created_at SET NOT NULL;
@@ -0,0 +1,173 @@
+package at.technikum_wien.database;
+
+import at.technikum_wien.models.execeptions.DataAccessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+
+    private final List<Connection> physicalConnections = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool createPool(int maxSize, Duration acquireTimeout, Duration validationInterval) {
+        PoolConfig config = new PoolConfig(0, maxSize, acquireTimeout, Duration.ofMinutes(5), validationInterval, Duration.ofMinutes(1), Duration.ofMinutes(1), false);
+        return new ConnectionPool(() -> {
+            Connection connection = mock(Connection.class);
+            try {
+                when(connection.getAutoCommit()).thenReturn(true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            physicalConnections.add(connection);
+            return connection;
+        }, config);
+    }
+
+    @Test
+    void borrow_AfterClose_ReusesPhysicalConnection() throws SQLException {
+        //arrange
+        pool = createPool(2, Duration.ofSeconds(1), Duration.ofMinutes(1));
+
+        //act
+        try (Connection first = pool.borrow()) {
+            assertFalse(first.isClosed());
+        }
+        try (Connection second = pool.borrow()) {
+            assertNotNull(second);
+        }
+
+        //assert
+        assertEquals(1, physicalConnections.size());
+        verify(physicalConnections.get(0), never()).close();
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.active());
+        assertEquals(1, stats.idle());
+        assertEquals(2, stats.acquireLatency().getCount());
+    }
+
+    @Test
+    void close_WithUsageListener_ReportsCallerAndHoldTime() throws SQLException {
+        //arrange
+        pool = createPool(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        List<String> callers = new ArrayList<>();
+        pool.setUsageListener((caller, heldNanos) -> {
+            assertTrue(heldNanos >= 0);
+            callers.add(caller);
+        });
+
+        //act
+        pool.borrow().close();
+
+        //assert
+        assertEquals(List.of("other"), callers); //not borrowed from a repository
+    }
+
+    @Test
+    void borrow_PoolExhausted_TimesOut() {
+        //arrange
+        pool = createPool(1, Duration.ofMillis(50), Duration.ofMinutes(1));
+        Connection held = pool.borrow();
+
+        //act & assert
+        DataAccessException exception = assertThrows(DataAccessException.class, () -> pool.borrow());
+        assertTrue(exception.getMessage().contains("Timed out"));
+        assertEquals(1, pool.getStats().acquireTimeouts());
+        assertEquals(1, pool.getStats().active());
+        assertNotNull(held);
+    }
+
+    @Test
+    void borrow_WaiterGetsConnectionWhenReleased() throws Exception {
+        //arrange
+        pool = createPool(1, Duration.ofSeconds(5), Duration.ofMinutes(1));
+        Connection held = pool.borrow();
+
+        //act
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                held.close();
+            } catch (Exception ignored) {
+            }
+        });
+        releaser.start();
+        try (Connection next = pool.borrow()) {
+            //assert
+            assertNotNull(next);
+        }
+        releaser.join();
+        assertEquals(1, physicalConnections.size());
+    }
+
+    @Test
+    void close_Twice_OnlyReturnsOnce() throws SQLException {
+        //arrange
+        pool = createPool(2, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        Connection connection = pool.borrow();
+
+        //act
+        connection.close();
+        connection.close();
+
+        //assert
+        assertTrue(connection.isClosed());
+        assertEquals(1, pool.getStats().idle());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    void borrow_StaleConnectionFailsValidation_OpensNewOne() throws SQLException {
+        //arrange - validation interval of zero means every borrow is validated
+        pool = createPool(2, Duration.ofSeconds(1), Duration.ZERO);
+        pool.borrow().close();
+        when(physicalConnections.get(0).isValid(anyInt())).thenReturn(false);
+
+        //act
+        try (Connection connection = pool.borrow()) {
+            assertNotNull(connection);
+        }
+
+        //assert
+        assertEquals(2, physicalConnections.size());
+        verify(physicalConnections.get(0)).close();
+        assertEquals(1, pool.getStats().destroyed());
+    }
+
+    @Test
+    void close_WithOpenTransaction_RollsBack() throws SQLException {
+        //arrange
+        pool = createPool(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        Connection connection = pool.borrow();
+        when(physicalConnections.get(0).getAutoCommit()).thenReturn(false);
+
+        //act
+        connection.close();
+
+        //assert
+        verify(physicalConnections.get(0)).rollback();
+        verify(physicalConnections.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    void poolConfig_Defaults_NoStackTracePerBorrow() {
+        //act & assert
+        assertFalse(PoolConfig.defaults().leakTraces());
+        assertFalse(PoolConfig.fromSystemProperties().leakTraces());
+    }
+}
@@ -0,0 +1,104 @@
+package at.technikum_wien.database;
+
+import at.technikum_wien.models.entities.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Rating load(int id) {
+        loads.incrementAndGet();
+        return id < 0 ? null : new Rating(id, 10, 20, 4, "comment " + id, false, null);
+    }
+
+    @Test
+    void get_RepeatedLookup_LoadsOnceAndReturnsCopies() {
+        //arrange
+        EntityCache<Rating> cache = new EntityCache<>("ratings", 100, Duration.ofMinutes(1), Rating::copy, now::get);
+
+        //act
+        Rating first = cache.get(1, this::load);
+        first.setStars(1); //caller mutates its instance
+        Rating second = cache.get(1, this::load);
+
+        //assert
+        assertEquals(1, loads.get());
+        assertEquals(4, second.getStars());
+        assertNotSame(first, second);
+        EntityCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRatio());
+    }
+
+    @Test
+    void get_AfterInvalidateOrTtl_LoadsAgain() {
+        //arrange
+        EntityCache<Rating> cache = new EntityCache<>("ratings", 100, Duration.ofSeconds(10), Rating::copy, now::get);
+        cache.get(1, this::load);
+
+        //act
+        cache.invalidate(1);
+        cache.get(1, this::load);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.get(1, this::load);
+
+        //assert
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_MissingEntity_IsNotCached() {
+        //arrange
+        EntityCache<Rating> cache = new EntityCache<>("ratings", 100, Duration.ofMinutes(1), Rating::copy, now::get);
+
+        //act
+        assertNull(cache.get(-1, this::load));
+        assertNull(cache.get(-1, this::load));
+
+        //assert
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void get_ScanOverManyIds_KeepsFrequentlyUsedEntry() {
+        //arrange
+        EntityCache<Rating> cache = new EntityCache<>("ratings", 10, Duration.ofMinutes(1), Rating::copy, now::get);
+        cache.get(1, this::load);
+        cache.get(1, this::load); //second hit -> protected segment
+
+        //act
+        for (int id = 100; id < 200; id++) {
+            cache.get(id, this::load);
+        }
+        int loadsBefore = loads.get();
+        cache.get(1, this::load);
+
+        //assert
+        assertEquals(loadsBefore, loads.get());
+        assertTrue(cache.getStats().size() <= 10);
+        assertTrue(cache.getStats().evictions() > 0);
+    }
+
+    @Test
+    void invalidateIf_MatchingEntries_AreDropped() {
+        //arrange
+        EntityCache<Rating> cache = new EntityCache<>("ratings", 100, Duration.ofMinutes(1), Rating::copy, now::get);
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        //act
+        cache.invalidateIf(rating -> rating.getId() == 2);
+
+        //assert
+        assertEquals(1, cache.getStats().size());
+    }
+}
@@ -0,0 +1,98 @@
+package at.technikum_wien.database;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//runs the real schema + migrations and checks the planner picks the shipped indexes
+//seq scans are switched off so the tiny test tables don't make a full scan look cheaper
+@Testcontainers(disabledWithoutDocker = true)
+class IndexUsageTest {
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(Files.readString(Path.of("database/schema.sql")));
+        }
+        new MigrationRunner().migrate(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+            stmt.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (conn != null) {
+            conn.close();
+        }
+    }
+
+    private String explain(String sql, Object... params) throws Exception {
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    @Test
+    void migrate_SecondRun_AppliesNothing() {
+        assertEquals(0, new MigrationRunner().migrate(conn));
+    }
+
+    @Test
+    void ratingsByUser_UsesIndex() throws Exception {
+        assertTrue(explain("SELECT * FROM ratings WHERE user_id = ? ORDER BY created_at DESC", 1).contains("idx_ratings_user_created"));
+    }
+
+    @Test
+    void ratingsByMedia_UsesIndex() throws Exception {
+        assertTrue(explain("SELECT * FROM ratings WHERE media_id = ? ORDER BY created_at DESC", 1).contains("idx_ratings_media_created"));
+    }
+
+    @Test
+    void recentRatings_UsesIndex() throws Exception {
+        assertTrue(explain("SELECT * FROM ratings WHERE created_at >= NOW() - INTERVAL '7 days'").contains("idx_ratings_created"));
+    }
+
+    @Test
+    void favoriteCount_UsesIndex() throws Exception {
+        assertTrue(explain("SELECT COUNT(*) FROM favorites WHERE media_id = ?", 1).contains("idx_favorites_media"));
+    }
+
+    @Test
+    void genreByName_UsesIndex() throws Exception {
+        assertTrue(explain("SELECT genre_id FROM genres WHERE LOWER(name) = LOWER(?)", "Action").contains("idx_genres_lower_name"));
+    }
+
+    @Test
+    void mediaFullTextSearch_UsesGinIndex() throws Exception {
+        assertTrue(explain("SELECT id FROM media m WHERE m.search_vector @@ websearch_to_tsquery('english', ?)", "dream heist").contains("idx_media_search_vector"));
+    }
+}
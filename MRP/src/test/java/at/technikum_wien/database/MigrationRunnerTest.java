@@ -0,0 +1,44 @@
+package at.technikum_wien.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationRunnerTest {
+
+    @Test
+    void shippedMigrations_AreFoundAndOrdered() {
+        //act
+        List<MigrationRunner.Migration> migrations = new MigrationRunner().getMigrations();
+
+        //assert
+        assertFalse(migrations.isEmpty());
+        assertEquals(1, migrations.get(0).version());
+        assertEquals("access path indexes", migrations.get(0).description());
+        assertTrue(migrations.get(0).sql().contains("idx_ratings_user_created"));
+        assertEquals(2, migrations.get(1).version());
+        assertTrue(migrations.get(1).sql().contains("idx_media_search_vector"));
+        assertEquals(3, migrations.get(2).version());
+        assertTrue(migrations.get(2).sql().contains("SET NOT NULL"));
+    }
+
+    @Test
+    void parse_InvalidFileName_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> MigrationRunner.Migration.parse("indexes.sql", ""));
+    }
+
+    @Test
+    void parse_SameScript_SameChecksum() {
+        //act
+        MigrationRunner.Migration first = MigrationRunner.Migration.parse("V3__x.sql", "CREATE INDEX a ON b (c);");
+        MigrationRunner.Migration second = MigrationRunner.Migration.parse("V3__x.sql", "CREATE INDEX a ON b (c);");
+        MigrationRunner.Migration changed = MigrationRunner.Migration.parse("V3__x.sql", "CREATE INDEX a ON b (d);");
+
+        //assert
+        assertEquals(3, first.version());
+        assertEquals(first.checksum(), second.checksum());
+        assertNotEquals(first.checksum(), changed.checksum());
+    }
+}
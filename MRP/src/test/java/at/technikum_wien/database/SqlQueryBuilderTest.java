@@ -0,0 +1,55 @@
+package at.technikum_wien.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlQueryBuilderTest {
+
+    @Test
+    void toSql_NoConditions_OnlySelect() {
+        //act
+        SqlQueryBuilder query = new SqlQueryBuilder("SELECT * FROM media m");
+
+        //assert
+        assertEquals("SELECT * FROM media m", query.toSql());
+        assertTrue(query.getParameters().isEmpty());
+    }
+
+    @Test
+    void toSql_ConditionsOrderAndPage_KeepsParameterOrder() {
+        //act
+        SqlQueryBuilder query = new SqlQueryBuilder("SELECT * FROM media m")
+                .where("m.title ILIKE ?", "%x%")
+                .where("m.release_year = ?", 2010)
+                .orderBy("LOWER(m.title)")
+                .orderBy("m.id")
+                .limit(10)
+                .offset(20);
+
+        //assert
+        assertEquals("SELECT * FROM media m WHERE m.title ILIKE ? AND m.release_year = ? ORDER BY LOWER(m.title), m.id LIMIT ? OFFSET ?", query.toSql());
+        assertEquals(List.of("%x%", 2010, 10, 20), query.getParameters());
+    }
+
+    @Test
+    void orderBy_WithValues_BoundAfterConditionsBeforePage() {
+        //act
+        SqlQueryBuilder query = new SqlQueryBuilder("SELECT * FROM media m")
+                .where("m.search_vector @@ websearch_to_tsquery('english', ?)", "dream")
+                .orderBy("ts_rank(m.search_vector, websearch_to_tsquery('english', ?)) DESC", "dream")
+                .orderBy("m.id")
+                .limit(5);
+
+        //assert
+        assertTrue(query.toSql().endsWith("ORDER BY ts_rank(m.search_vector, websearch_to_tsquery('english', ?)) DESC, m.id LIMIT ?"));
+        assertEquals(List.of("dream", "dream", 5), query.getParameters());
+    }
+
+    @Test
+    void likeContains_EscapesWildcards() {
+        assertEquals("%100\\%\\_a\\\\b%", SqlQueryBuilder.likeContains("100%_a\\b"));
+    }
+}
@@ -0,0 +1,81 @@
+package at.technikum_wien.database.repositories;
+
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.models.entities.Media;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class MediaRepositoryGenreTest {
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final GenreRepository genreRepository = new GenreRepository();
+    private static final MediaRepository mediaRepository = new MediaRepository(genreRepository);
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Connection conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()); Statement stmt = conn.createStatement()) {
+            stmt.execute(Files.readString(Path.of("database/schema.sql")));
+            stmt.execute("INSERT INTO users (username, password_hash) VALUES ('creator', 'x')");
+        }
+        DatabaseManager.INSTANCE.overrideForTests(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        DatabaseManager.INSTANCE.shutdown();
+    }
+
+    private Media createMedia(List<String> genres) {
+        return new Media(0, "movie", "Genre Test", "desc", 2020, 12, 1, genres);
+    }
+
+    @Test
+    void save_ReusesExistingGenresCaseInsensitiveAndCreatesNewOnes() {
+        //act
+        Media saved = mediaRepository.save(createMedia(List.of("ACTION", "drama", "Brand New Genre", "brand new genre ")));
+
+        //assert
+        Media loaded = mediaRepository.getById(saved.getId());
+        Set<String> genres = new HashSet<>(loaded.getGenres());
+        assertEquals(Set.of("Action", "Drama", "brand new genre"), genres);
+        assertEquals(genreRepository.getId("action"), genreRepository.getId("Action"));
+        assertNotNull(genreRepository.getId("BRAND NEW GENRE"));
+    }
+
+    @Test
+    void save_Update_ReplacesLinksAsASet() {
+        //arrange
+        Media saved = mediaRepository.save(createMedia(List.of("Action", "Comedy", "Horror")));
+
+        //act
+        saved.setGenres(List.of("comedy", "Western"));
+        mediaRepository.save(saved);
+
+        //assert
+        assertEquals(Set.of("Comedy", "Western"), new HashSet<>(mediaRepository.getById(saved.getId()).getGenres()));
+
+        //act - no genres at all
+        saved.setGenres(List.of());
+        mediaRepository.save(saved);
+
+        //assert
+        assertTrue(mediaRepository.getById(saved.getId()).getGenres().isEmpty());
+    }
+}
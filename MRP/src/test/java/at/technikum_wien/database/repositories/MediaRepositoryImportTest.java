@@ -0,0 +1,93 @@
+package at.technikum_wien.database.repositories;
+
+import at.technikum_wien.database.DatabaseManager;
+import at.technikum_wien.database.MigrationRunner;
+import at.technikum_wien.models.entities.Media;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class MediaRepositoryImportTest {
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final GenreRepository genreRepository = new GenreRepository();
+    private static final MediaRepository mediaRepository = new MediaRepository(genreRepository);
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        try (Connection conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()); Statement stmt = conn.createStatement()) {
+            stmt.execute(Files.readString(Path.of("database/schema.sql")));
+            stmt.execute("INSERT INTO users (username, password_hash) VALUES ('creator', 'x')");
+            stmt.execute("INSERT INTO genres (name) VALUES ('Action')");
+            new MigrationRunner().migrate(conn);
+        }
+        DatabaseManager.INSTANCE.overrideForTests(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        DatabaseManager.INSTANCE.shutdown();
+    }
+
+    @Test
+    void importMedia_EscapedTextAndGenres_RoundTrip() {
+        //arrange
+        List<Media> rows = List.of(
+                new Media(0, "movie", "Tab\tand \\N", "line one\nline two \\ end", 2010, 12, 1, List.of("action", "quote \" genre")),
+                new Media(0, "game", "No Description", null, 2018, 0, 1, List.of()));
+        assertNull(genreRepository.getId("quote \" genre")); //dictionary loaded before the import
+
+        //act
+        int imported = mediaRepository.importMedia(rows.iterator());
+
+        //assert
+        assertEquals(2, imported);
+        List<Media> all = mediaRepository.getAllMedia();
+        Media first = all.stream().filter(media -> media.getTitle().startsWith("Tab")).findFirst().orElseThrow();
+        assertEquals("Tab\tand \\N", first.getTitle());
+        assertEquals("line one\nline two \\ end", first.getDescription());
+        assertEquals(Set.of("Action", "quote \" genre"), new HashSet<>(first.getGenres())); //existing genre reused
+        assertNotNull(genreRepository.getId("quote \" genre")); //created by the import, known without a reload
+        assertNull(all.stream().filter(media -> media.getType().equals("game")).findFirst().orElseThrow().getDescription());
+
+        //the sequence moved on -> a normal insert does not collide with the imported ids
+        Media saved = mediaRepository.save(new Media(0, "series", "After Import", "x", 2020, 0, 1, List.of()));
+        assertNotNull(saved);
+        assertTrue(saved.getId() > first.getId());
+    }
+
+    @Test
+    void importMedia_FailingRow_ImportsNothing() {
+        //arrange
+        int before = mediaRepository.getAllMedia().size();
+        List<Media> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Media(0, "movie", "Bulk " + i, "x", 2000, 0, 1, List.of("drama")));
+        }
+        rows.add(new Media(0, "book", "Not A Media Type", "x", 2000, 0, 1, List.of())); //violates the CHECK constraint
+        Iterator<Media> iterator = rows.iterator();
+
+        //act & assert
+        assertThrows(RuntimeException.class, () -> mediaRepository.importMedia(iterator));
+        assertEquals(before, mediaRepository.getAllMedia().size());
+        assertNull(genreRepository.getId("drama")); //rolled back with the import
+    }
+}
@@ -0,0 +1,58 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InstrumentedHandlerTest {
+
+    @Test
+    void routeTemplate_NumericSegments_BecomeIdPlaceholders() {
+        //act & assert
+        assertEquals("/api/media/{id}/rate", InstrumentedHandler.routeTemplate("/api/media/42/rate"));
+        assertEquals("/api/users/{id}/ratings", InstrumentedHandler.routeTemplate("/api/users/7/ratings"));
+        assertEquals("/api/leaderboard/top-users", InstrumentedHandler.routeTemplate("/api/leaderboard/top-users"));
+        assertEquals("/api/media/{id}/", InstrumentedHandler.routeTemplate("/api/media/1/"));
+    }
+
+    @Test
+    void handle_DelegateThrows_RecordsErrorAndRethrows() {
+        //arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestMethod()).thenReturn("PUT");
+        when(exchange.getRequestURI()).thenReturn(URI.create("/api/ratings/5"));
+        InstrumentedHandler handler = new InstrumentedHandler(ex -> {
+            throw new IOException("broken pipe");
+        }, registry);
+
+        //act & assert
+        assertThrows(IOException.class, () -> handler.handle(exchange));
+        MetricsRegistry.RequestSnapshot snapshot = registry.getRequestSnapshot("PUT", "/api/ratings/{id}");
+        assertEquals(1, snapshot.latency().getCount());
+        assertEquals(1, snapshot.errors());
+    }
+
+    @Test
+    void handle_NotFound_RecordedAsUnmatchedRoute() throws IOException {
+        //arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getResponseCode()).thenReturn(404);
+        InstrumentedHandler handler = new InstrumentedHandler(ex -> {
+        }, registry);
+
+        //act
+        handler.handle(exchange);
+
+        //assert
+        assertNotNull(registry.getRequestSnapshot("GET", MetricsRegistry.UNMATCHED_ROUTE));
+    }
+}
@@ -0,0 +1,117 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JsonUtilTest {
+
+    @Test
+    void ratingListToJson_WithCreatedAt_WritesIsoDates() {
+        //arrange
+        Rating rating = new Rating(1, 2, 3, 4, "Nice", true, LocalDateTime.of(2025, 1, 2, 3, 4, 5));
+
+        //act
+        String json = JsonUtil.ratingListToJson(List.of(rating));
+
+        //assert
+        assertTrue(json.contains("\"created_at\":\"2025-01-02T03:04:05\""), json);
+        assertTrue(json.contains("\"comment\":\"Nice\""), json);
+    }
+
+    @Test
+    void mediaListToJson_WritesAllMedia() throws Exception {
+        //arrange
+        Media media = new Media(7, "movie", "Inception", "Dreams", 2010, 12, 1, List.of("sci-fi"));
+
+        //act
+        String json = JsonUtil.mediaListToJson(List.of(media, media));
+
+        //assert
+        assertTrue(json.startsWith("[{"));
+        assertEquals(2, json.split("\"title\":\"Inception\"", -1).length - 1);
+    }
+
+    @Test
+    void parseJsonToMap_ReadsNestedValues() throws Exception {
+        //act
+        Map<String, Object> map = JsonUtil.parseJsonToMap("{\"stars\": 5, \"genres\": [\"a\", \"b\"]}");
+
+        //assert
+        assertEquals(5, map.get("stars"));
+        assertEquals(List.of("a", "b"), map.get("genres"));
+    }
+
+    //Jackson must not flush before close, otherwise every small response would lose its Content-Length
+    @Test
+    void writeObject_SmallValue_SentWithContentLength() throws Exception {
+        //arrange
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers requestHeaders = new Headers();
+        requestHeaders.add("Accept-Encoding", "gzip");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(body);
+
+        //act
+        JsonUtil.writeObject(exchange, 200, Map.of("message", "ok"));
+
+        //assert
+        verify(exchange).sendResponseHeaders(200, body.size());
+        assertEquals("{\"message\":\"ok\"}", body.toString());
+    }
+
+    //bigger than the JSON buffer -> committed once the buffer is full and streamed from there (chunked)
+    @Test
+    void writeMediaList_LargerThanBuffer_StreamedWithoutContentLength() throws Exception {
+        //arrange
+        HttpExchange exchange = mock(HttpExchange.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(body);
+        Media media = new Media(7, "movie", "Inception", "x".repeat(1000), 2010, 12, 1, List.of("sci-fi"));
+        List<Media> mediaList = Collections.nCopies(200, media);
+
+        //act
+        JsonUtil.writeMediaList(exchange, 200, mediaList);
+
+        //assert
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals(JsonUtil.mediaListToJson(mediaList), body.toString());
+    }
+
+    //a failing serialization must leave the exchange untouched, so the handler can still send a 500
+    @Test
+    void writeObject_SerializationFails_NothingSent() throws Exception {
+        //arrange
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        List<Object> values = List.of(Map.of("padding", "x".repeat(4096)), new Unserializable());
+
+        //act + assert
+        assertThrows(IOException.class, () -> JsonUtil.writeObject(exchange, 200, values));
+        verify(exchange, never()).sendResponseHeaders(anyInt(), anyLong());
+        verify(exchange, never()).getResponseBody();
+    }
+
+    private static class Unserializable {
+        public String getName() {
+            throw new IllegalStateException("boom");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaImportResult;
+import at.technikum_wien.models.enums.ImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaImportReaderTest {
+
+    private MediaImportReader reader(ImportFormat format, String body) {
+        return new MediaImportReader(new BufferedReader(new StringReader(body)), format, 7);
+    }
+
+    private List<Media> readAll(MediaImportReader reader) {
+        List<Media> media = new ArrayList<>();
+        reader.forEachRemaining(media::add);
+        return media;
+    }
+
+    @Test
+    void ndjson_ValidAndInvalidLines_SkipsAndReportsBadOnes() {
+        //arrange
+        String body = """
+                {"type": "Movie", "title": "Inception", "releaseYear": 2010, "ageRestriction": "12", "genres": ["Sci-Fi", " sci-fi ", "Action"]}
+
+                {"mediaType": "game", "title": "GRIS"}
+                not json
+                {"type": "book", "title": "Dune"}
+                {"type": "series", "title": "  "}
+                {"type": "movie", "title": "Tenet", "releaseYear": "soon"}
+                """;
+        MediaImportReader reader = reader(ImportFormat.NDJSON, body);
+
+        //act
+        List<Media> media = readAll(reader);
+
+        //assert
+        assertEquals(List.of("Inception", "GRIS"), media.stream().map(Media::getTitle).toList());
+        assertEquals("movie", media.get(0).getType());
+        assertEquals(12, media.get(0).getAge_restriction());
+        assertEquals(List.of("sci-fi", "action"), media.get(0).getGenres());
+        assertEquals(7, media.get(1).getCreator_id());
+        assertEquals(4, reader.getFailedCount());
+        assertEquals(List.of(4, 5, 6, 7), reader.getErrors().stream().map(MediaImportResult.RowError::line).toList());
+    }
+
+    @Test
+    void csv_QuotedFields_MayContainCommasQuotesAndLineBreaks() {
+        //arrange
+        String body = "Title,Type,Description,ReleaseYear,Genres\n"
+                + "\"Knives Out\",movie,\"A \"\"whodunit\"\", with twists\",2019,Crime;Comedy\n"
+                + "Dark,series,\"line one\nline two\",,Drama\n"
+                + "Broken,movie\n"
+                + "GRIS,game,,2018,\n";
+        MediaImportReader reader = reader(ImportFormat.CSV, body);
+
+        //act
+        List<Media> media = readAll(reader);
+
+        //assert
+        assertEquals(3, media.size());
+        assertEquals("A \"whodunit\", with twists", media.get(0).getDescription());
+        assertEquals(List.of("crime", "comedy"), media.get(0).getGenres());
+        assertEquals("line one\nline two", media.get(1).getDescription());
+        assertEquals(0, media.get(1).getRelease_year());
+        assertTrue(media.get(2).getGenres().isEmpty());
+        assertEquals(List.of(new MediaImportResult.RowError(5, "Expected 5 fields but found 2")), reader.getErrors());
+    }
+
+    @Test
+    void csv_HeaderWithoutTitle_RejectsWholeFile() {
+        //arrange
+        MediaImportReader reader = reader(ImportFormat.CSV, "name,type\nInception,movie\n");
+
+        //act
+        List<Media> media = readAll(reader);
+
+        //assert
+        assertTrue(media.isEmpty());
+        assertEquals(1, reader.getFailedCount());
+        assertEquals(1, reader.getErrors().get(0).line());
+    }
+
+    @Test
+    void ndjson_GenreTooLong_RejectsOnlyThatRecord() {
+        //arrange
+        String body = "{\"type\": \"movie\", \"title\": \"Heat\", \"genres\": [\"crime\", \"" + "x".repeat(51) + "\"]}\n"
+                + "{\"type\": \"movie\", \"title\": \"Up\", \"genres\": \"" + "y".repeat(50) + "\"}\n";
+        MediaImportReader reader = reader(ImportFormat.NDJSON, body);
+
+        //act
+        List<Media> media = readAll(reader);
+
+        //assert
+        assertEquals(List.of("Up"), media.stream().map(Media::getTitle).toList());
+        assertEquals(1, reader.getFailedCount());
+        assertEquals(1, reader.getErrors().get(0).line());
+    }
+
+    @Test
+    void errors_AreCappedButAllCounted() {
+        //arrange
+        String body = "{\"type\": \"movie\"}\n".repeat(MediaImportReader.MAX_REPORTED_ERRORS + 20);
+        MediaImportReader reader = reader(ImportFormat.NDJSON, body);
+
+        //act
+        List<Media> media = readAll(reader);
+
+        //assert
+        assertTrue(media.isEmpty());
+        assertEquals(MediaImportReader.MAX_REPORTED_ERRORS + 20, reader.getFailedCount());
+        assertEquals(MediaImportReader.MAX_REPORTED_ERRORS, reader.getErrors().size());
+    }
+
+    @Test
+    void importFormat_FromContentType() {
+        assertEquals(ImportFormat.CSV, ImportFormat.fromContentType("text/csv; charset=utf-8"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromContentType("application/x-ndjson"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromContentType(null));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.fromContentType("application/xml"));
+    }
+}
@@ -0,0 +1,82 @@
+package at.technikum_wien.handlers.util;
+
+import at.technikum_wien.models.entities.Rating;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NdjsonWriterTest {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Headers headers = new Headers();
+    private HttpExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        exchange = mock(HttpExchange.class);
+        when(exchange.getRequestHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+        when(exchange.getResponseBody()).thenReturn(body);
+    }
+
+    private String[] lines() {
+        return body.toString(StandardCharsets.UTF_8).split("\n", -1);
+    }
+
+    @Test
+    void write_Rows_OneDocumentPerLineHeadersWithFirstRow() throws IOException {
+        //arrange
+        NdjsonWriter writer = new NdjsonWriter(exchange);
+        verify(exchange, never()).sendResponseHeaders(anyInt(), anyLong());
+
+        //act
+        writer.write(new Rating(1, 2, 3, 4, "nice", true, LocalDateTime.of(2025, 1, 1, 12, 0)));
+        String afterFirstRow = body.toString(StandardCharsets.UTF_8); //flushed right away
+        writer.write(Map.of("id", 2));
+        writer.close();
+
+        //assert
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals(NdjsonWriter.CONTENT_TYPE, headers.getFirst("Content-Type"));
+        assertTrue(afterFirstRow.endsWith("\n"));
+        String[] lines = lines();
+        assertEquals(3, lines.length); //two rows + nothing after the last line break
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"created_at\":\"2025-01-01T12:00:00\""));
+        assertEquals("{\"id\":2}", lines[1]);
+        assertEquals("", lines[2]);
+        assertEquals(2, writer.getRows());
+    }
+
+    @Test
+    void close_NoRows_EmptyOkResponse() throws IOException {
+        //act
+        new NdjsonWriter(exchange).close();
+
+        //assert
+        verify(exchange).sendResponseHeaders(200, -1); //Content-Length: 0
+        assertEquals(0, body.size());
+    }
+
+    @Test
+    void abort_AfterRows_EndsWithErrorLine() throws IOException {
+        //arrange
+        NdjsonWriter writer = new NdjsonWriter(exchange);
+        writer.write(Map.of("id", 1));
+
+        //act
+        writer.abort("Export aborted after 1 rows");
+
+        //assert
+        String[] lines = lines();
+        assertEquals("{\"error\": \"Export aborted after 1 rows\"}", lines[1]);
+    }
+}
@@ -0,0 +1,39 @@
+package at.technikum_wien.handlers.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryParamsTest {
+
+    @Test
+    void parse_NullOrEmpty_ReturnsEmptyMap() {
+        //act & assert
+        assertTrue(QueryParams.parse(null).isEmpty());
+        assertTrue(QueryParams.parse("").isEmpty());
+    }
+
+    @Test
+    void parse_MixedParams_SplitsOnFirstEquals() {
+        //act
+        Map<String, String> params = QueryParams.parse("title=inception&flag&&cursor=abc=&limit=");
+
+        //assert
+        assertEquals("inception", params.get("title"));
+        assertEquals("", params.get("flag"));
+        assertEquals("abc=", params.get("cursor"));
+        assertEquals("", params.get("limit"));
+        assertEquals(4, params.size());
+    }
+
+    @Test
+    void parse_DuplicateKey_FirstValueWins() {
+        //act
+        Map<String, String> params = QueryParams.parse("genre=drama&genre=comedy");
+
+        //assert
+        assertEquals("drama", params.get("genre"));
+    }
+}
@@ -0,0 +1,134 @@
+package at.technikum_wien.handlers.util;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResponseWriterTest {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private HttpExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        exchange = mock(HttpExchange.class);
+        when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+        when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+        when(exchange.getResponseBody()).thenReturn(body);
+    }
+
+    private static byte[] json(int bytes) {
+        StringBuilder json = new StringBuilder("[");
+        while (json.length() < bytes - 1) {
+            json.append("{\"title\":\"The Dark Knight\"},");
+        }
+        json.setLength(bytes - 1);
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] gunzip() throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void send_LargeBodyGzipAccepted_CompressedAndCounted() throws IOException {
+        //arrange
+        requestHeaders.add("Accept-Encoding", "gzip, deflate, br");
+        byte[] payload = json(64 * 1024);
+        long savedBefore = ResponseWriter.getStats().bytesSaved();
+
+        //act
+        ResponseWriter.send(exchange, 200, "application/json", payload);
+
+        //assert
+        assertEquals("gzip", responseHeaders.getFirst("Content-Encoding"));
+        assertEquals("Accept-Encoding", responseHeaders.getFirst("Vary"));
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertArrayEquals(payload, gunzip());
+        assertTrue(body.size() < payload.length / 10);
+        assertEquals(payload.length - body.size(), ResponseWriter.getStats().bytesSaved() - savedBefore);
+    }
+
+    @Test
+    void send_SmallBody_NotCompressedKeepsContentLength() throws IOException {
+        //arrange
+        requestHeaders.add("Accept-Encoding", "gzip");
+        byte[] payload = json(ResponseWriter.MIN_BYTES - 1);
+
+        //act
+        ResponseWriter.send(exchange, 201, "application/json", payload);
+
+        //assert
+        assertNull(responseHeaders.getFirst("Content-Encoding"));
+        assertNull(responseHeaders.getFirst("Vary"));
+        verify(exchange).sendResponseHeaders(201, payload.length);
+        assertArrayEquals(payload, body.toByteArray());
+    }
+
+    @Test
+    void send_LargeBodyWithoutAcceptEncoding_SentAsIs() throws IOException {
+        //arrange
+        byte[] payload = json(16 * 1024);
+
+        //act
+        ResponseWriter.send(exchange, 200, "application/json", payload);
+
+        //assert
+        assertNull(responseHeaders.getFirst("Content-Encoding"));
+        assertEquals("Accept-Encoding", responseHeaders.getFirst("Vary"));
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertArrayEquals(payload, body.toByteArray());
+    }
+
+    @Test
+    void open_FlushBeforeThreshold_StreamsCompressedPieces() throws IOException {
+        //arrange
+        requestHeaders.add("Accept-Encoding", "gzip");
+        byte[] first = "{\"id\":1}\n".getBytes(StandardCharsets.UTF_8);
+
+        //act
+        OutputStream os = ResponseWriter.open(exchange, 200, NdjsonWriter.CONTENT_TYPE);
+        os.write(first);
+        os.flush();
+        int afterFlush = body.size(); //gzip header + sync-flushed first row
+        for (int i = 0; i < 100; i++) {
+            os.write(first);
+        }
+        os.close();
+
+        //assert
+        assertTrue(afterFlush > 10);
+        assertEquals("gzip", responseHeaders.getFirst("Content-Encoding"));
+        assertEquals(101 * first.length, gunzip().length);
+    }
+
+    @Test
+    void acceptsGzip_QualityValuesAndWildcard() {
+        assertTrue(ResponseWriter.acceptsGzip(headers("gzip;q=0.8, identity")));
+        assertTrue(ResponseWriter.acceptsGzip(headers("*")));
+        assertFalse(ResponseWriter.acceptsGzip(headers("gzip;q=0, *")));
+        assertFalse(ResponseWriter.acceptsGzip(headers("br, identity")));
+        assertFalse(ResponseWriter.acceptsGzip(new Headers()));
+    }
+
+    private static Headers headers(String acceptEncoding) {
+        Headers headers = new Headers();
+        headers.add("Accept-Encoding", acceptEncoding);
+        return headers;
+    }
+}
@@ -0,0 +1,80 @@
+package at.technikum_wien.handlers.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+    private final List<String> calls = new ArrayList<>();
+
+    private Router router() {
+        return new Router()
+                .add("GET", "/api/users/login", (exchange, params) -> calls.add("login"))
+                .add("GET", "/api/users/{id:int}/profile", (exchange, params) -> calls.add("profile " + params.getInt("id")))
+                .add("PUT", "/api/users/{id:int}/profile", (exchange, params) -> calls.add("update " + params.getInt("id")))
+                .add("GET", "/api/media/{id:int}/rate", (exchange, params) -> calls.add("rate " + params.getInt("id")))
+                .add("GET", "/api/tags/{name}", (exchange, params) -> calls.add("tag " + params.getString("name")));
+    }
+
+    @Test
+    void resolve_TypedParameter_ParsesIntWithoutRegex() throws Exception {
+        //act
+        Router.Match match = router().resolve("GET", "/api/media/42/rate");
+        match.route().handle(null, match.params());
+
+        //assert
+        assertEquals(Router.Status.FOUND, match.status());
+        assertEquals("/api/media/{id}/rate", match.template());
+        assertEquals(List.of("rate 42"), calls);
+    }
+
+    @Test
+    void resolve_LiteralAndParameter_LiteralWins() throws Exception {
+        //arrange
+        Router router = router();
+
+        //act
+        Router.Match login = router.resolve("GET", "/api/users/login");
+        Router.Match profile = router.resolve("GET", "/api/users/7/profile");
+        Router.Match tag = router.resolve("GET", "/api/tags/drama");
+        login.route().handle(null, login.params());
+        profile.route().handle(null, profile.params());
+        tag.route().handle(null, tag.params());
+
+        //assert
+        assertEquals(List.of("login", "profile 7", "tag drama"), calls);
+    }
+
+    @Test
+    void resolve_WrongMethod_ReturnsMethodNotAllowedWithAllowHeader() {
+        //act
+        Router.Match match = router().resolve("DELETE", "/api/users/7/profile");
+
+        //assert
+        assertEquals(Router.Status.METHOD_NOT_ALLOWED, match.status());
+        assertEquals("GET, PUT", match.allowHeader());
+    }
+
+    @Test
+    void resolve_UnknownOrMalformedPaths_ReturnNotFound() {
+        //arrange
+        Router router = router();
+
+        //act & assert
+        assertEquals(Router.Status.NOT_FOUND, router.resolve("GET", "/api/media/abc/rate").status());
+        assertEquals(Router.Status.NOT_FOUND, router.resolve("GET", "/api/media/99999999999/rate").status()); //int overflow
+        assertEquals(Router.Status.NOT_FOUND, router.resolve("GET", "/api/media/1/rate/").status());
+        assertEquals(Router.Status.NOT_FOUND, router.resolve("GET", "/api/users").status());
+        assertEquals(Router.Status.NOT_FOUND, router.resolve("GET", "/nope").status());
+    }
+
+    @Test
+    void add_DuplicateRoute_Throws() {
+        //act & assert
+        assertThrows(IllegalArgumentException.class, () -> router().add("GET", "/api/users/login", (exchange, params) -> {
+        }));
+    }
+}
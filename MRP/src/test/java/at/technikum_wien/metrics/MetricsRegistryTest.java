@@ -0,0 +1,71 @@
+package at.technikum_wien.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void recordRequest_ServerError_CountsAsError() {
+        //arrange
+        MetricsRegistry registry = new MetricsRegistry();
+
+        //act
+        registry.recordRequest("GET", "/api/media/{id}", 200, 2_000_000);
+        registry.recordRequest("GET", "/api/media/{id}", 500, 4_000_000);
+        registry.recordRequest("GET", "/api/media/{id}", 404, 1_000_000);
+
+        //assert
+        MetricsRegistry.RequestSnapshot snapshot = registry.getRequestSnapshot("GET", "/api/media/{id}");
+        assertEquals(3, snapshot.latency().getCount());
+        assertEquals(1, snapshot.errors());
+    }
+
+    @Test
+    void scrape_RecordedSeries_WritesPrometheusText() {
+        //arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordRequest("POST", "/api/media/{id}/rate", 201, 3_000_000); //3ms
+        registry.recordJdbc("MediaRepository.getById", 500_000);
+        registry.gauge("mrp_test_gauge", "A test gauge", () -> 7);
+
+        //act
+        String text = registry.scrape();
+
+        //assert
+        assertTrue(text.contains("# TYPE mrp_http_request_duration_seconds histogram"), text);
+        assertTrue(text.contains("mrp_http_requests_total{method=\"POST\",route=\"/api/media/{id}/rate\"} 1"), text);
+        assertTrue(text.contains("mrp_http_request_duration_seconds_bucket{method=\"POST\",route=\"/api/media/{id}/rate\",le=\"0.001\"} 0"), text);
+        assertTrue(text.contains("mrp_http_request_duration_seconds_bucket{method=\"POST\",route=\"/api/media/{id}/rate\",le=\"0.005\"} 1"), text);
+        assertTrue(text.contains("mrp_http_request_duration_seconds_bucket{method=\"POST\",route=\"/api/media/{id}/rate\",le=\"+Inf\"} 1"), text);
+        assertTrue(text.contains("mrp_jdbc_duration_seconds_count{repository=\"MediaRepository\",method=\"getById\"} 1"), text);
+        assertTrue(text.contains("mrp_test_gauge 7"), text);
+    }
+
+    @Test
+    void scrape_UnavailableGauge_IsSkipped() {
+        //arrange
+        MetricsRegistry registry = new MetricsRegistry();
+        AtomicInteger reads = new AtomicInteger();
+        registry.gauge("mrp_missing", "Not there yet", () -> {
+            reads.incrementAndGet();
+            return Double.NaN;
+        });
+
+        //act
+        String text = registry.scrape();
+
+        //assert
+        assertEquals(1, reads.get());
+        assertFalse(text.contains("mrp_missing"), text);
+    }
+
+    @Test
+    void escape_QuotesAndBackslashes_AreEscaped() {
+        //act & assert
+        assertEquals("a\\\"b\\\\c\\n", MetricsRegistry.escape("a\"b\\c\n"));
+    }
+}
@@ -0,0 +1,106 @@
+package at.technikum_wien.security;
+
+import at.technikum_wien.models.execeptions.HashingOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    //cost 10 takes 20ms, every step doubles
+    private static long fakeTiming(int cost) {
+        return Duration.ofMillis(20).toNanos() << (cost - 10);
+    }
+
+    @Test
+    void calibrateCost_TargetBetweenSteps_PicksHighestCostWithinTarget() {
+        //act
+        int cost = PasswordHasher.calibrateCost(Duration.ofMillis(100), 10, 16, PasswordHasherTest::fakeTiming);
+
+        //assert
+        assertEquals(12, cost); //80ms fits, 160ms does not
+    }
+
+    //hashes were made with cost 12 before calibration, a slow host must not end up below that
+    @Test
+    void minCost_Default_NotBelowBaselineCost() {
+        assertTrue(PasswordHasher.MIN_COST >= 12);
+    }
+
+    @Test
+    void calibrateCost_FastOrSlowMachine_ClampedToBounds() {
+        //act & assert
+        assertEquals(10, PasswordHasher.calibrateCost(Duration.ofMillis(5), 10, 16, PasswordHasherTest::fakeTiming));
+        assertEquals(16, PasswordHasher.calibrateCost(Duration.ofSeconds(60), 10, 16, PasswordHasherTest::fakeTiming));
+    }
+
+    @Test
+    void needsRehash_LowerCostHash_ReturnsTrue() {
+        //act & assert
+        assertEquals(12, PasswordHasher.costOf("$2a$12$abcdefghijklmnopqrstuv"));
+        assertTrue(PasswordHasher.needsRehash("$2a$04$abcdefghijklmnopqrstuv"));
+        assertFalse(PasswordHasher.needsRehash("$2a$31$abcdefghijklmnopqrstuv"));
+        assertFalse(PasswordHasher.needsRehash("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void hashPassword_RoundTrip_VerifiesOnlyCorrectPassword() {
+        //act
+        String hash = PasswordHasher.hashPassword("password123");
+
+        //assert
+        assertTrue(PasswordHasher.checkPassword("password123", hash));
+        assertFalse(PasswordHasher.checkPassword("wrong", hash));
+    }
+
+    @Test
+    void execute_QueueFull_RejectsWithOverloadException() throws Exception {
+        //arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try (HashingExecutor executor = new HashingExecutor(1, 1, Duration.ofSeconds(5))) {
+            Thread blocker = Thread.ofVirtual().start(() -> executor.execute(() -> {
+                started.countDown();
+                release.await();
+                return null;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread queued = Thread.ofVirtual().start(() -> executor.execute(() -> null));
+            while (executor.getStats(12).queueDepth() < 1) {
+                Thread.onSpinWait();
+            }
+
+            //act & assert
+            assertThrows(HashingOverloadedException.class, () -> executor.execute(() -> "rejected"));
+            assertEquals(1, executor.getStats(12).rejected());
+
+            release.countDown();
+            blocker.join();
+            queued.join();
+            assertEquals(2, executor.getStats(12).completed());
+        }
+    }
+
+    @Test
+    void execute_Timeout_CountedSeparatelyFromRejections() throws Exception {
+        //arrange
+        CountDownLatch release = new CountDownLatch(1);
+        try (HashingExecutor executor = new HashingExecutor(1, 1, Duration.ofMillis(50))) {
+
+            //act
+            assertThrows(HashingOverloadedException.class, () -> executor.execute(() -> {
+                release.await();
+                return null;
+            }));
+            release.countDown();
+
+            //assert
+            assertEquals(1, executor.getStats(12).timedOut());
+            assertEquals(0, executor.getStats(12).rejected());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package at.technikum_wien.security;
+
+import at.technikum_wien.models.entities.Token;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private MutableClock clock;
+    private Map<String, Token> database;
+    private int loads;
+    private List<Map<String, LocalDateTime>> flushedBatches;
+    private TokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+        database = new HashMap<>();
+        loads = 0;
+        flushedBatches = new ArrayList<>();
+        cache = new TokenCache(token -> {
+            loads++;
+            return database.get(token);
+        }, flushedBatches::add, 3, Duration.ofMinutes(5), null, clock);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    @Test
+    void getUserId_RepeatedLookups_HitDatabaseOnce() {
+        //arrange
+        database.put("Maria-mrpToken", new Token("Maria-mrpToken", 1, now().plusHours(24)));
+
+        //act
+        Integer first = cache.getUserId("Maria-mrpToken");
+        Integer second = cache.getUserId("Maria-mrpToken");
+
+        //assert
+        assertEquals(1, first);
+        assertEquals(1, second);
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void getUserId_UnknownToken_ReturnsNull() {
+        //act & assert
+        assertNull(cache.getUserId("nope"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getUserId_TokenExpiresWhileCached_ReturnsNull() {
+        //arrange
+        database.put("t", new Token("t", 1, now().plusMinutes(1)));
+        cache.getUserId("t");
+
+        //act
+        clock.advance(Duration.ofMinutes(2));
+
+        //assert
+        assertNull(cache.getUserId("t"));
+    }
+
+    @Test
+    void getUserId_AfterMaxAge_ReloadsFromDatabase() {
+        //arrange
+        database.put("t", new Token("t", 1, now().plusHours(24)));
+        cache.getUserId("t");
+        database.remove("t"); //e.g. deleted by another server instance
+
+        //act
+        clock.advance(Duration.ofMinutes(6));
+
+        //assert
+        assertNull(cache.getUserId("t"));
+        assertEquals(2, loads);
+    }
+
+    @Test
+    void invalidate_RemovesTokenAndPendingTouch() {
+        //arrange
+        database.put("t", new Token("t", 1, now().plusHours(24)));
+        cache.getUserId("t");
+        database.remove("t"); //logout deleted the row
+
+        //act
+        cache.invalidate("t");
+
+        //assert
+        assertNull(cache.getUserId("t"));
+        assertEquals(0, cache.pendingTouchCount());
+    }
+
+    @Test
+    void flush_CoalescesTouchesIntoOneBatch() {
+        //arrange
+        database.put("a", new Token("a", 1, now().plusHours(24)));
+        database.put("b", new Token("b", 2, now().plusHours(24)));
+        cache.getUserId("a");
+        clock.advance(Duration.ofSeconds(5));
+        cache.getUserId("a");
+        cache.getUserId("b");
+
+        //act
+        cache.flush();
+        cache.flush(); //nothing new -> no second batch
+
+        //assert
+        assertEquals(1, flushedBatches.size());
+        Map<String, LocalDateTime> batch = flushedBatches.get(0);
+        assertEquals(2, batch.size());
+        assertEquals(now(), batch.get("a")); //latest touch wins
+        assertEquals(0, cache.pendingTouchCount());
+    }
+
+    @Test
+    void flush_WriterFails_KeepsTouchesForNextRound() {
+        //arrange
+        TokenCache failing = new TokenCache(token -> new Token(token, 1, now().plusHours(1)), batch -> {
+            throw new IllegalStateException("db down");
+        }, 10, Duration.ofMinutes(5), null, clock);
+        failing.getUserId("a");
+
+        //act & assert
+        assertThrows(IllegalStateException.class, failing::flush);
+        assertEquals(1, failing.pendingTouchCount());
+    }
+
+    @Test
+    void getUserId_CacheFull_EvictsSoonestExpiring() {
+        //arrange
+        database.put("short", new Token("short", 1, now().plusMinutes(10)));
+        database.put("mid", new Token("mid", 2, now().plusHours(1)));
+        database.put("long", new Token("long", 3, now().plusHours(2)));
+        database.put("new", new Token("new", 4, now().plusHours(3)));
+        cache.getUserId("short");
+        cache.getUserId("mid");
+        cache.getUserId("long");
+
+        //act
+        cache.getUserId("new");
+
+        //assert
+        assertEquals(3, cache.size());
+        cache.getUserId("short");
+        assertEquals(5, loads); //"short" had to be loaded again
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
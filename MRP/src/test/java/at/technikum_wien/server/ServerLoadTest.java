@@ -0,0 +1,116 @@
+package at.technikum_wien.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//every request sleeps like a slow leaderboard query, so wall time shows how many run side by side
+class ServerLoadTest {
+    private static final int CLIENTS = 10;
+    private static final long REQUEST_MILLIS = 100;
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            Server.stop(server);
+        }
+    }
+
+    private long runLoad(ServerConfig config) throws Exception {
+        server = Server.createHttpServer(config);
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(REQUEST_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/slow");
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Test
+    void virtualThreads_ConcurrentClients_ServedInParallel() throws Exception {
+        //act
+        long elapsed = runLoad(new ServerConfig(0, ExecutionMode.VIRTUAL, 0, 4, 0));
+
+        //assert - serial execution would need CLIENTS * REQUEST_MILLIS
+        assertTrue(elapsed < CLIENTS * REQUEST_MILLIS / 2, "took " + elapsed + "ms");
+    }
+
+    @Test
+    void pooledThreads_ConcurrentClients_ScaleWithPoolSize() throws Exception {
+        //act
+        long elapsed = runLoad(new ServerConfig(0, ExecutionMode.POOLED, 0, CLIENTS, 0));
+
+        //assert
+        assertTrue(elapsed < CLIENTS * REQUEST_MILLIS / 2, "took " + elapsed + "ms");
+    }
+
+    @Test
+    void singleThread_ConcurrentClients_ServedOneAfterAnother() throws Exception {
+        //act
+        long elapsed = runLoad(new ServerConfig(0, ExecutionMode.SINGLE, 0, 1, 0));
+
+        //assert
+        assertTrue(elapsed >= CLIENTS * REQUEST_MILLIS, "took " + elapsed + "ms");
+    }
+
+    @Test
+    void concurrencyLimit_CapsRequestsInFlight() throws Exception {
+        //act - two slots for ten clients -> at least five rounds
+        long elapsed = runLoad(new ServerConfig(0, ExecutionMode.VIRTUAL, 0, 4, 2));
+
+        //assert
+        assertTrue(elapsed >= (CLIENTS / 2) * REQUEST_MILLIS, "took " + elapsed + "ms");
+    }
+
+    @Test
+    void fromArgs_ParsesOptions() {
+        //act
+        ServerConfig config = ServerConfig.fromArgs(new String[]{"--mode=pooled", "--port=9090", "--backlog=64", "--threads=8", "--max-concurrent=100"});
+
+        //assert
+        assertEquals(ExecutionMode.POOLED, config.mode());
+        assertEquals(9090, config.port());
+        assertEquals(64, config.backlog());
+        assertEquals(8, config.poolThreads());
+        assertEquals(100, config.maxConcurrentRequests());
+    }
+
+    @Test
+    void fromArgs_UnknownMode_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArgs(new String[]{"--mode=turbo"}));
+    }
+}
@@ -0,0 +1,155 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Interaction;
+import at.technikum_wien.models.entities.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollaborativeFilteringEngineTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Interaction> database = new ArrayList<>();
+
+    private CollaborativeFilteringEngine createEngine() {
+        CollaborativeFilteringEngine engine = new CollaborativeFilteringEngine(() -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(database);
+        }, null);
+        engine.rebuild();
+        return engine;
+    }
+
+    private void rated(int userId, int mediaId, int stars) {
+        database.add(new Interaction(userId, mediaId, stars, false));
+    }
+
+    @Test
+    void recommend_CoLikedMedia_RankedBySimilarityWithoutOwnMedia() {
+        //arrange - 10 and 20 are liked together, 30 by fans of 10 only, 40 by somebody else entirely
+        rated(1, 10, 5);
+        rated(1, 20, 5);
+        rated(2, 10, 5);
+        rated(2, 20, 4);
+        rated(3, 10, 5);
+        rated(3, 30, 5);
+        rated(4, 40, 5);
+        rated(5, 10, 5);
+        CollaborativeFilteringEngine engine = createEngine();
+
+        //act
+        List<Integer> recommendations = engine.recommend(5, 10);
+
+        //assert
+        assertEquals(List.of(20, 30), recommendations);
+        assertEquals(1, loads.get());
+        assertEquals(List.of(), engine.recommend(99, 10)); //no profile
+    }
+
+    @Test
+    void recommend_LowRatingsAndFavorites_WeightedAccordingly() {
+        //arrange - 1 star says nothing positive, a favorite counts like 5 stars
+        rated(1, 10, 1);
+        rated(1, 20, 5);
+        database.add(new Interaction(2, 30, 0, true));
+        database.add(new Interaction(2, 40, 0, true));
+        rated(3, 10, 1);
+        rated(3, 30, 5);
+        CollaborativeFilteringEngine engine = createEngine();
+
+        //act
+        List<Integer> recommendations = engine.recommend(3, 10);
+
+        //assert
+        assertEquals(List.of(40), recommendations); //10 and 20 never co-occur positively, 10 is rated anyway
+    }
+
+    @Test
+    void onRatingCreated_AfterBuild_UsedBeforeNextRebuild() {
+        //arrange
+        rated(1, 10, 5);
+        rated(1, 20, 5);
+        rated(2, 20, 5);
+        rated(2, 30, 5);
+        CollaborativeFilteringEngine engine = createEngine();
+        assertEquals(List.of(), engine.recommend(3, 10));
+
+        //act
+        engine.onRatingCreated(new Rating(10, 3, 5, null));
+        List<Integer> afterRating = engine.recommend(3, 10);
+        engine.onFavoriteAdded(3, 20);
+        List<Integer> afterFavorite = engine.recommend(3, 10);
+        engine.onRatingDeleted(new Rating(10, 3, 5, null));
+        engine.onFavoriteRemoved(3, 20);
+
+        //assert
+        assertEquals(List.of(20), afterRating);
+        assertEquals(List.of(30), afterFavorite); //20 is the user's own now
+        assertEquals(List.of(), engine.recommend(3, 10));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void rebuild_NeighborsCappedPerMedia() {
+        //arrange - user 1 rated 1..20, everybody else one of them + media 100
+        for (int mediaId = 1; mediaId <= 20; mediaId++) {
+            rated(1, mediaId, 5);
+            rated(100 + mediaId, mediaId, 5);
+            rated(100 + mediaId, 100, 5);
+        }
+        CollaborativeFilteringEngine engine = new CollaborativeFilteringEngine(() -> database, null, 5);
+
+        //act
+        engine.rebuild();
+
+        //assert
+        assertEquals(21, engine.size());
+        assertEquals(21 * 5, engine.neighborCount());
+        assertEquals(21, engine.profileCount());
+    }
+
+    @Test
+    void recommend_BeforeFirstBuild_EmptyWithoutBuildingOnCaller() {
+        //arrange
+        rated(1, 10, 5);
+        rated(1, 20, 5);
+        rated(2, 10, 5);
+        CollaborativeFilteringEngine engine = new CollaborativeFilteringEngine(() -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(database);
+        }, null);
+
+        //act
+        List<Integer> recommendations = engine.recommend(2, 10);
+
+        //assert
+        assertEquals(List.of(), recommendations);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void rebuild_EventsDuringLoad_NotOverwrittenBySnapshot() {
+        //arrange - user 3 rates 10 while the rebuild is loading, after the snapshot was taken
+        rated(1, 10, 5);
+        rated(1, 20, 5);
+        rated(2, 20, 5);
+        rated(2, 30, 5);
+        CollaborativeFilteringEngine[] holder = new CollaborativeFilteringEngine[1];
+        CollaborativeFilteringEngine engine = new CollaborativeFilteringEngine(() -> {
+            List<Interaction> snapshot = new ArrayList<>(database);
+            holder[0].onRatingCreated(new Rating(10, 3, 5, null));
+            return snapshot;
+        }, null);
+        holder[0] = engine;
+
+        //act
+        engine.rebuild();
+
+        //assert
+        assertEquals(List.of(20), engine.recommend(3, 10));
+        assertEquals(3, engine.profileCount()); //users 1, 2 from the snapshot + 3 from the replayed event
+    }
+}
@@ -0,0 +1,56 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.database.RowSink;
+import at.technikum_wien.database.repositories.MediaRepository;
+import at.technikum_wien.database.repositories.RatingRepository;
+import at.technikum_wien.models.entities.Rating;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportRatings_PassesRowsAndFetchSizeThrough() throws IOException {
+        //arrange
+        ExportService exportService = new ExportService(mediaRepository, ratingRepository, 250);
+        when(ratingRepository.exportAll(any(), eq(250))).thenAnswer(invocation -> {
+            RowSink<Rating> sink = invocation.getArgument(0);
+            sink.accept(new Rating(1, 2, 5, null));
+            sink.accept(new Rating(1, 3, 4, null));
+            return 2L;
+        });
+        List<Rating> received = new ArrayList<>();
+
+        //act
+        long count = exportService.exportRatings(received::add);
+
+        //assert
+        assertEquals(2, count);
+        assertEquals(2, received.size());
+        verify(mediaRepository, never()).exportAll(any(), anyInt());
+    }
+
+    @Test
+    void constructor_InvalidFetchSize_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ExportService(mediaRepository, ratingRepository, 0));
+    }
+}
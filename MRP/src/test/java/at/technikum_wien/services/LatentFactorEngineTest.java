@@ -0,0 +1,97 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.RatingMatrix;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatentFactorEngineTest {
+    private final MatrixFactorizationTrainer trainer = new MatrixFactorizationTrainer(1);
+
+    @AfterEach
+    void tearDown() {
+        trainer.close();
+    }
+
+    //users 1-20 like media 1-10 and dislike 11-20, users 21-40 the other way round; user 1 has not seen media 9 and 10
+    private static RatingMatrix ratings() {
+        RatingMatrix ratings = new RatingMatrix(16);
+        for (int user = 1; user <= 40; user++) {
+            for (int mediaId = 1; mediaId <= 20; mediaId++) {
+                if (user == 1 && (mediaId == 9 || mediaId == 10)) {
+                    continue;
+                }
+                boolean likes = (user <= 20) == (mediaId <= 10);
+                ratings.add(user, mediaId, likes ? 5 : 1);
+            }
+        }
+        ratings.add(41, 1, 5); //short history
+        return ratings;
+    }
+
+    private LatentFactorEngine createEngine() {
+        return new LatentFactorEngine(LatentFactorEngineTest::ratings, trainer, new MatrixFactorizationTrainer.Settings(4, 10, 0.05f, 3), 10, null);
+    }
+
+    @Test
+    void recommend_LongHistory_UnseenMediaOfOwnTasteFirst() {
+        //arrange
+        LatentFactorEngine engine = createEngine();
+        engine.train();
+
+        //act
+        List<Integer> recommendations = engine.recommend(1, 2);
+
+        //assert
+        assertEquals(2, recommendations.size());
+        assertTrue(recommendations.containsAll(List.of(9, 10)), recommendations.toString());
+    }
+
+    @Test
+    void recommend_NotTrainedOrShortHistory_Empty() {
+        //arrange
+        LatentFactorEngine engine = createEngine();
+
+        //act + assert
+        assertEquals(List.of(), engine.recommend(1, 5)); //nothing trained yet, requests never trigger training
+        engine.train();
+        assertEquals(List.of(), engine.recommend(41, 5));
+        assertEquals(List.of(), engine.recommend(99, 5));
+    }
+
+    @Test
+    void onRatingCreated_AfterTraining_MediaExcludedUntilRetrain() {
+        //arrange
+        LatentFactorEngine engine = createEngine();
+        engine.train();
+
+        //act
+        engine.onRatingCreated(new Rating(9, 1, 5, "great"));
+        List<Integer> recommendations = engine.recommend(1, 1);
+
+        //assert
+        assertEquals(List.of(10), recommendations);
+    }
+
+    @Test
+    void train_RatingDuringLoad_StaysExcludedAfterSwap() {
+        //arrange - user 1 rates media 9 after the loader read its snapshot
+        LatentFactorEngine[] holder = new LatentFactorEngine[1];
+        LatentFactorEngine engine = new LatentFactorEngine(() -> {
+            RatingMatrix snapshot = ratings();
+            holder[0].onRatingCreated(new Rating(9, 1, 5, "great"));
+            return snapshot;
+        }, trainer, new MatrixFactorizationTrainer.Settings(4, 10, 0.05f, 3), 10, null);
+        holder[0] = engine;
+
+        //act
+        engine.train();
+
+        //assert
+        assertEquals(List.of(10), engine.recommend(1, 1));
+    }
+}
@@ -0,0 +1,96 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.services.LeaderboardCache.CachedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final LeaderboardCache cache = new LeaderboardCache(Duration.ofSeconds(30), 16, now::get);
+
+    private byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void get_AfterPut_ReturnsHitUntilTtlExpires() {
+        //arrange
+        cache.put("top-users?limit=10", body("[]"), cache.currentVersion());
+
+        //act
+        CachedResponse hit = cache.get("top-users?limit=10");
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        CachedResponse expired = cache.get("top-users?limit=10");
+
+        //assert
+        assertNotNull(hit);
+        assertNull(expired);
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void writeEvent_InvalidatesEntries() {
+        //arrange
+        cache.put("trending-genres", body("[\"Action\"]"), cache.currentVersion());
+
+        //act
+        cache.onFavoriteAdded(1, 2);
+
+        //assert
+        assertNull(cache.get("trending-genres"));
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void put_WriteDuringLoad_EntryIsAlreadyStale() {
+        //arrange - version read before the load, a rating arrives while loading
+        long version = cache.currentVersion();
+        cache.onRatingDeleted(null);
+
+        //act
+        cache.put("summary", body("{}"), version);
+
+        //assert
+        assertNull(cache.get("summary"));
+    }
+
+    @Test
+    void etag_DependsOnContentAndMatchesIfNoneMatch() {
+        //act
+        CachedResponse first = cache.put("a", body("[1]"), cache.currentVersion());
+        CachedResponse same = LeaderboardCache.uncached(body("[1]"));
+        CachedResponse other = LeaderboardCache.uncached(body("[2]"));
+
+        //assert
+        assertEquals(first.etag(), same.etag());
+        assertNotEquals(first.etag(), other.etag());
+        assertTrue(first.matches("\"x\", " + first.etag()));
+        assertTrue(first.matches("W/" + first.etag()));
+        assertFalse(first.matches(other.etag()));
+        assertFalse(first.matches(null));
+    }
+
+    @Test
+    void put_Full_EvictsOnlyTheOldestEntry() {
+        //arrange
+        for (int limit = 1; limit <= 16; limit++) {
+            cache.put("top-users?limit=" + limit, body("[]"), cache.currentVersion());
+            now.addAndGet(Duration.ofSeconds(1).toNanos());
+        }
+
+        //act
+        cache.put("trending-genres", body("[]"), cache.currentVersion());
+
+        //assert
+        assertNull(cache.get("top-users?limit=1"));
+        assertNotNull(cache.get("top-users?limit=2"));
+        assertNotNull(cache.get("trending-genres"));
+        assertEquals(16, cache.getStats().get("entries"));
+    }
+}
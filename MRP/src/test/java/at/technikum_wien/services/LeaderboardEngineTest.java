@@ -0,0 +1,141 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.LeaderboardEntry;
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardEngineTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<LeaderboardEntry> database = new ArrayList<>();
+
+    private LeaderboardEngine createEngine() {
+        return new LeaderboardEngine(() -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(database);
+        }, null);
+    }
+
+    private LeaderboardEntry createEntry(int userId, String username, int ratings, int favorites, int media) {
+        return new LeaderboardEntry(userId, username, ratings, favorites, media, ratings * 2 + favorites + media * 3);
+    }
+
+    private Media createMedia(int id, int creatorId) {
+        Media media = new Media();
+        media.setId(id);
+        media.setCreator_id(creatorId);
+        return media;
+    }
+
+    @Test
+    void getTopUsers_OrderedByScoreThenUserId() {
+        //arrange
+        database.add(createEntry(1, "alice", 1, 0, 0)); //2
+        database.add(createEntry(2, "bob", 0, 0, 1));   //3
+        database.add(createEntry(3, "carol", 0, 2, 0)); //2
+        LeaderboardEngine engine = createEngine();
+
+        //act
+        List<LeaderboardEntry> result = engine.getTopUsers(2);
+
+        //assert
+        assertEquals(2, result.size());
+        assertEquals("bob", result.get(0).getUsername());
+        assertEquals("alice", result.get(1).getUsername());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void events_MoveUsersWithoutReloading() {
+        //arrange
+        database.add(createEntry(1, "alice", 0, 0, 1));
+        database.add(createEntry(2, "bob", 0, 0, 0));
+        LeaderboardEngine engine = createEngine();
+        engine.getTopUsers(10);
+
+        //act - bob: 2 ratings + 1 favorite = 5 > alice's 3
+        engine.onRatingCreated(new Rating(10, 2, 5, null));
+        engine.onRatingCreated(new Rating(11, 2, 4, null));
+        engine.onFavoriteAdded(2, 10);
+
+        //assert
+        List<LeaderboardEntry> result = engine.getTopUsers(10);
+        assertEquals(2, result.get(0).getUserId());
+        assertEquals(5, result.get(0).getActivityScore());
+        assertEquals(2, result.get(0).getRatingCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void mediaAndUserEvents_UpdateRanking() {
+        //arrange
+        database.add(createEntry(1, "alice", 1, 0, 0));
+        LeaderboardEngine engine = createEngine();
+        engine.getTopUsers(10);
+
+        User newUser = new User("dave", "hash");
+        newUser.setId(4);
+
+        //act
+        engine.onUserRegistered(newUser);
+        engine.onMediaCreated(createMedia(20, 4));
+        engine.onMediaCreated(createMedia(21, 1));
+        engine.onMediaDeleted(createMedia(21, 1));
+
+        //assert
+        List<LeaderboardEntry> result = engine.getTopUsers(10);
+        assertEquals(2, result.size());
+        assertEquals("dave", result.get(0).getUsername());
+        assertEquals(3, result.get(0).getActivityScore());
+        assertEquals(2, result.get(1).getActivityScore());
+    }
+
+    @Test
+    void reconcile_ReplacesDriftedCounters() {
+        //arrange
+        database.add(createEntry(1, "alice", 1, 0, 0));
+        LeaderboardEngine engine = createEngine();
+        engine.getTopUsers(10);
+        engine.onFavoriteAdded(1, 5);
+        engine.onFavoriteAdded(1, 6);
+
+        //act
+        engine.reconcile();
+
+        //assert
+        assertEquals(2, engine.getTopUsers(1).get(0).getActivityScore());
+    }
+
+    @Test
+    void reconcile_EventsDuringLoad_ReplayedOntoLoadedCounters() {
+        //arrange - while the second load runs, alice rates something and bob registers
+        database.add(createEntry(1, "alice", 1, 0, 0));
+        User bob = new User("bob", "hash");
+        bob.setId(2);
+        LeaderboardEngine[] engine = new LeaderboardEngine[1];
+        engine[0] = new LeaderboardEngine(() -> {
+            if (loads.incrementAndGet() == 2) {
+                engine[0].onRatingCreated(new Rating(5, 1, 4, null));
+                engine[0].onUserRegistered(bob);
+            }
+            return new ArrayList<>(database);
+        }, null);
+        engine[0].getTopUsers(10);
+
+        //act
+        engine[0].reconcile();
+
+        //assert
+        List<LeaderboardEntry> result = engine[0].getTopUsers(10);
+        assertEquals(2, result.size());
+        assertEquals(4, result.get(0).getActivityScore());
+        assertEquals("bob", result.get(1).getUsername());
+    }
+}
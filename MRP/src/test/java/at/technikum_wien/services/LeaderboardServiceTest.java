@@ -4,12 +4,16 @@ import at.technikum_wien.database.repositories.LeaderboardRepository;
 import at.technikum_wien.models.entities.LeaderboardEntry;
 import at.technikum_wien.models.entities.TopRatedMedia;
 import at.technikum_wien.models.entities.MostLikedRating;
+import at.technikum_wien.models.entities.LeaderboardSummary;
+import at.technikum_wien.models.execeptions.DataAccessException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -478,4 +482,76 @@ class LeaderboardServiceTest {
         assertEquals(9, result.size());
         verify(leaderboardRepository).getTrendingGenres();
     }
-}
\ No newline at end of file
+
+    //getSummary
+    @Test
+    void getSummary_AllSectionsLoaded_ReturnsCompleteSummary() {
+        //arrange
+        when(leaderboardRepository.getMostActiveUsers(eq(10), any(Duration.class))).thenReturn(List.of(createLeaderboardEntry(1, "user", 10)));
+        when(leaderboardRepository.getTopRatedMedia(eq(10), any(Duration.class))).thenReturn(List.of(createTopRatedMedia(1, "Movie", 4.5)));
+        when(leaderboardRepository.getMostLikedRatings(eq(10), any(Duration.class))).thenReturn(List.of());
+        when(leaderboardRepository.getTrendingGenres(any(Duration.class))).thenReturn(List.of("Action"));
+
+        //act
+        LeaderboardSummary summary = leaderboardService.getSummary(10);
+
+        //assert
+        assertFalse(summary.isPartial());
+        assertEquals(1, summary.getTopUsers().size());
+        assertEquals(1, summary.getTopRatedMedia().size());
+        assertEquals(List.of("Action"), summary.getTrendingGenres());
+        verify(leaderboardRepository).getTopRatedMedia(10, LeaderboardService.DEFAULT_SECTION_TIMEOUT);
+        verify(leaderboardRepository, never()).getTopRatedMedia(10);
+    }
+
+    @Test
+    void getSummary_SlowSections_RunConcurrently() {
+        //arrange - every section takes 200ms
+        when(leaderboardRepository.getMostActiveUsers(eq(10), any(Duration.class))).thenAnswer(invocation -> sleepAndReturn(200, List.of()));
+        when(leaderboardRepository.getTopRatedMedia(eq(10), any(Duration.class))).thenAnswer(invocation -> sleepAndReturn(200, List.of()));
+        when(leaderboardRepository.getMostLikedRatings(eq(10), any(Duration.class))).thenAnswer(invocation -> sleepAndReturn(200, List.of()));
+        when(leaderboardRepository.getTrendingGenres(any(Duration.class))).thenAnswer(invocation -> sleepAndReturn(200, List.of()));
+
+        //act
+        long start = System.nanoTime();
+        LeaderboardSummary summary = leaderboardService.getSummary(10, Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        //assert - sequential would be 800ms
+        assertFalse(summary.isPartial());
+        assertTrue(elapsedMillis < 600, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void getSummary_SectionTimesOutOrFails_ReturnsPartialSummary() {
+        //arrange
+        when(leaderboardRepository.getMostActiveUsers(eq(10), any(Duration.class))).thenReturn(List.of(createLeaderboardEntry(1, "user", 10)));
+        when(leaderboardRepository.getTopRatedMedia(eq(10), any(Duration.class))).thenThrow(new DataAccessException("boom", new SQLException("canceling statement due to statement timeout")));
+        when(leaderboardRepository.getMostLikedRatings(eq(10), any(Duration.class))).thenReturn(List.of());
+        when(leaderboardRepository.getTrendingGenres(any(Duration.class))).thenAnswer(invocation -> sleepAndReturn(2000, List.of("Action")));
+
+        //act
+        LeaderboardSummary summary = leaderboardService.getSummary(10, Duration.ofMillis(200));
+
+        //assert
+        assertTrue(summary.isPartial());
+        assertEquals(List.of("topRatedMedia", "trendingGenres"), summary.getMissingSections());
+        assertEquals(1, summary.getTopUsers().size());
+        assertTrue(summary.getTrendingGenres().isEmpty());
+    }
+
+    private static <T> T sleepAndReturn(long millis, T value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+
+    @Test
+    void normalizeLimit_OutOfRangeLimits_AllMapToDefault() {
+        //act & assert
+        assertEquals(20, LeaderboardService.normalizeLimit(0));
+        assertEquals(20, LeaderboardService.normalizeLimit(-1));
+        assertEquals(20, LeaderboardService.normalizeLimit(101));
+        assertEquals(20, LeaderboardService.normalizeLimit(999999));
+        assertEquals(100, LeaderboardService.normalizeLimit(100));
+    }
+}
@@ -0,0 +1,91 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.RatingMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixFactorizationTrainerTest {
+    private static final MatrixFactorizationTrainer.Settings SETTINGS = new MatrixFactorizationTrainer.Settings(4, 15, 0.05f, 7);
+
+    //two tastes: even users love even media and dislike odd ones, odd users the other way round; 80% of the cells are rated
+    private static RatingMatrix twoTastes(int users, int media, RatingMatrix heldOut) {
+        SplittableRandom random = new SplittableRandom(1);
+        RatingMatrix ratings = new RatingMatrix(16);
+        for (int user = 1; user <= users; user++) {
+            for (int mediaId = 1; mediaId <= media; mediaId++) {
+                int stars = (user % 2 == mediaId % 2) ? 5 : 1;
+                if (random.nextInt(5) > 0) {
+                    ratings.add(user, mediaId, stars);
+                } else if (heldOut != null) {
+                    heldOut.add(user, mediaId, stars);
+                }
+            }
+        }
+        return ratings;
+    }
+
+    @Test
+    void train_LowRankRatings_PredictsHeldOutRatings() {
+        //arrange
+        RatingMatrix heldOut = new RatingMatrix(16);
+        RatingMatrix ratings = twoTastes(60, 40, heldOut);
+
+        //act
+        LatentFactorModel model;
+        try (MatrixFactorizationTrainer trainer = new MatrixFactorizationTrainer(2)) {
+            model = trainer.train(ratings, SETTINGS);
+        }
+
+        //assert
+        assertEquals(60, model.userCount());
+        assertEquals(40, model.mediaCount());
+        assertTrue(model.getTrainingRmse() < 0.5, "training rmse " + model.getTrainingRmse());
+        assertTrue(model.rmse(heldOut) < 0.5, "held-out rmse " + model.rmse(heldOut));
+        assertTrue(model.predict(2, 4) > model.predict(2, 3));
+        assertTrue(Float.isNaN(model.predict(99, 4)));
+    }
+
+    @Test
+    void train_DifferentParallelism_SameModel() {
+        //arrange - every row is solved independently from the same inputs, the split must not matter
+        RatingMatrix ratings = twoTastes(600, 50, null);
+
+        //act
+        LatentFactorModel sequential;
+        LatentFactorModel parallel;
+        try (MatrixFactorizationTrainer one = new MatrixFactorizationTrainer(1); MatrixFactorizationTrainer four = new MatrixFactorizationTrainer(4)) {
+            sequential = one.train(ratings, SETTINGS);
+            parallel = four.train(ratings, SETTINGS);
+        }
+
+        //assert
+        assertEquals(sequential.getTrainingRmse(), parallel.getTrainingRmse());
+        for (int user = 1; user <= 600; user += 37) {
+            assertEquals(sequential.predict(user, 7), parallel.predict(user, 7));
+        }
+    }
+
+    @Test
+    void train_NoRatings_EmptyModel() {
+        //act
+        LatentFactorModel model;
+        try (MatrixFactorizationTrainer trainer = new MatrixFactorizationTrainer(1)) {
+            model = trainer.train(new RatingMatrix(16), SETTINGS);
+        }
+
+        //assert
+        assertEquals(0, model.userCount());
+        assertEquals(0, model.historyLength(1));
+        assertArrayEquals(new int[0], model.recommend(1, new int[0], 10));
+    }
+
+    @Test
+    void settings_InvalidValues_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new MatrixFactorizationTrainer.Settings(0, 10, 0.05f, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixFactorizationTrainer.Settings(8, 0, 0.05f, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MatrixFactorizationTrainer.Settings(8, 10, 0f, 1));
+    }
+}
@@ -0,0 +1,156 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaSearchIndexTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Media> database = new ArrayList<>(List.of(
+            new Media(1, "movie", "Inception", "A thief steals secrets through dream sharing", 2010, 12, 1, List.of("Sci-Fi", "Action")),
+            new Media(2, "movie", "The Dark Knight", "Batman faces the Joker in Gotham", 2008, 16, 1, List.of("Action")),
+            new Media(3, "series", "Dreamland", "A small town story", 2019, 0, 2, List.of("Drama")),
+            new Media(4, "game", "Knightfall", "Medieval dream of a knight", 2021, 18, 2, List.of("Action"))));
+
+    private MediaSearchIndex createIndex() {
+        return new MediaSearchIndex(() -> {
+            loads.incrementAndGet();
+            return database;
+        }, null);
+    }
+
+    private List<Integer> ids(List<Media> media) {
+        return media.stream().map(Media::getId).toList();
+    }
+
+    private MediaSearchCriteria text(String title, String query) {
+        return new MediaSearchCriteria(title, query, null, null, null, null, null, 20, 0);
+    }
+
+    @Test
+    void search_Title_RanksWholeWordsBeforePartialMatches() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        List<Media> result = index.search(text("knight", null));
+
+        //assert
+        assertEquals(List.of(2, 4), ids(result)); //"knight" is a word in 2, only part of "knightfall" in 4
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void search_TitleShorterThanTrigram_MatchesInsideWordsLikeSql() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        List<Media> result = index.search(text("kn", null));
+
+        //assert
+        assertEquals(List.of(2, 4), ids(result)); //"Knight" and "Knightfall", as ILIKE '%kn%' would
+    }
+
+    @Test
+    void search_Query_MatchesDescriptionsButPrefersTitles() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        List<Media> result = index.search(text(null, "dream"));
+
+        //assert
+        assertEquals(List.of(3, 1, 4), ids(result)); //partial title hit beats description hits, then by id
+        assertTrue(index.search(text("dream", null)).stream().allMatch(media -> media.getId() == 3));
+    }
+
+    @Test
+    void search_SeveralWords_AllMustMatch() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        List<Media> result = index.search(text(null, "dark gotham"));
+        List<Media> none = index.search(text(null, "dark inception"));
+
+        //assert
+        assertEquals(List.of(2), ids(result));
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void search_Filters_AreAppliedToCandidates() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        List<Media> games = index.search(new MediaSearchCriteria(null, "knight", null, "GAME", null, null, null, 20, 0));
+        List<Media> forTeens = index.search(new MediaSearchCriteria(null, "dream", "action", null, null, 16, null, 20, 0));
+        List<Media> paged = index.search(new MediaSearchCriteria(null, "dream", null, null, null, null, "releaseYear", 1, 1));
+
+        //assert
+        assertEquals(List.of(4), ids(games));
+        assertEquals(List.of(1), ids(forTeens));
+        assertEquals(List.of(3), ids(paged)); //2021, 2019, 2010 -> second page of size one
+    }
+
+    @Test
+    void mediaEvents_KeepIndexInSync() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+        index.search(text("knight", null));
+        Media renamed = new Media(2, "movie", "Batman Begins", "Origin story", 2005, 12, 1, List.of("Action"));
+
+        //act
+        index.onMediaCreated(new Media(5, "movie", "Knight and Day", "Spy comedy", 2010, 12, 3, List.of("Comedy")));
+        index.onMediaUpdated(renamed);
+        index.onMediaDeleted(database.get(3));
+
+        //assert
+        assertEquals(List.of(5), ids(index.search(text("knight", null))));
+        assertEquals(List.of(2), ids(index.search(text("begins", null))));
+        assertEquals(4, index.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void search_ReturnsCopies() {
+        //arrange
+        MediaSearchIndex index = createIndex();
+
+        //act
+        index.search(text("inception", null)).get(0).setTitle("changed");
+
+        //assert
+        assertEquals("Inception", index.search(text("inception", null)).get(0).getTitle());
+    }
+
+    @Test
+    void reload_WritesDuringLoad_ReplayedOntoNewIndex() {
+        //arrange - while the reload reads its snapshot, media 5 is created and media 1 deleted
+        MediaSearchIndex[] holder = new MediaSearchIndex[1];
+        MediaSearchIndex index = new MediaSearchIndex(() -> {
+            List<Media> snapshot = new ArrayList<>(database);
+            holder[0].onMediaCreated(new Media(5, "movie", "Dream Catcher", null, 2003, 16, 1, List.of("Horror")));
+            holder[0].onMediaDeleted(database.get(0));
+            return snapshot;
+        }, null);
+        holder[0] = index;
+
+        //act
+        index.reload();
+
+        //assert
+        List<Integer> found = ids(index.search(text(null, "dream")));
+        assertTrue(found.contains(5), found.toString());
+        assertFalse(found.contains(1), found.toString()); //Inception matches "dream" in its description
+        assertEquals(4, index.size());
+    }
+}
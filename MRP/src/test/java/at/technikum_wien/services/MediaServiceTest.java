@@ -1,13 +1,18 @@
 package at.technikum_wien.services;
 
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.MediaSearchCriteria;
+import at.technikum_wien.models.entities.Page;
 import at.technikum_wien.database.repositories.MediaRepository;
+import at.technikum_wien.models.enums.SearchMode;
+import at.technikum_wien.models.interfaces.IActivityListener;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -63,10 +68,11 @@ class MediaServiceTest {
         testMediaList = Arrays.asList(media1, media2, media3, media4);
     }
 
+    //filtering itself happens in SQL now, the service only builds the criteria
     @Test
-    void searchMedia_FilterByTitle_ReturnsMatchingMedia() {
+    void searchMedia_FilterByTitle_PassesTitleToRepository() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of(testMediaList.get(0)));
 
         //act
         List<Media> result = mediaService.searchMedia("knight", null, null, null, null, null);
@@ -74,123 +80,162 @@ class MediaServiceTest {
         //assert
         assertEquals(1, result.size());
         assertEquals("The Dark Knight", result.get(0).getTitle());
+        verify(mediaRepository).searchMedia(argThat(criteria ->
+                "knight".equals(criteria.title()) &&
+                        criteria.genre() == null &&
+                        criteria.mediaType() == null &&
+                        criteria.releaseYear() == null &&
+                        criteria.ageRestriction() == null
+        ));
+        verify(mediaRepository, never()).getAllMedia();
     }
 
     @Test
-    void searchMedia_FilterByTitle_IsCaseInsensitive() {
+    void searchMedia_MultipleFilters_CombinedIntoOneCriteria() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(testMediaList);
 
         //act
-        List<Media> result = mediaService.searchMedia("DARK", null, null, null, null, null);
+        List<Media> result = mediaService.searchMedia("the", "Action", "movie", 2008, 16, "title");
 
         //assert
-        assertEquals(1, result.size());
-        assertEquals("The Dark Knight", result.get(0).getTitle());
+        assertEquals(testMediaList, result);
+        verify(mediaRepository).searchMedia(new MediaSearchCriteria("the", "Action", "movie", 2008, 16, "title", MediaService.DEFAULT_PAGE_SIZE, 0));
     }
 
     @Test
-    void searchMedia_FilterByTitle_PartialMatch() {
+    void searchMedia_WithPage_PassesLimitAndOffset() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of());
 
         //act
-        List<Media> result = mediaService.searchMedia("The", null, null, null, null, null);
+        mediaService.searchMedia(null, null, "game", null, null, null, 10, 20);
 
         //assert
-        assertEquals(2, result.size()); //both movies have a "the" in the name
+        verify(mediaRepository).searchMedia(argThat(criteria -> criteria.limit() == 10 && criteria.offset() == 20 && "game".equals(criteria.mediaType())));
     }
 
     @Test
-    void searchMedia_FilterByGenre_ReturnsMatchingMedia() {
+    void searchMedia_LimitAboveMaximum_IsCapped() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of());
 
         //act
-        List<Media> result = mediaService.searchMedia(null, "Action", null, null, null, null);
+        mediaService.searchMedia(null, null, null, null, null, null, 100_000, null);
 
         //assert
-        assertEquals(2, result.size()); //both movies have "Action" genre
-        assertTrue(result.stream().anyMatch(m -> m.getTitle().equals("The Dark Knight")));
-        assertTrue(result.stream().anyMatch(m -> m.getTitle().equals("Inception")));
+        verify(mediaRepository).searchMedia(argThat(criteria -> criteria.limit() == MediaService.MAX_PAGE_SIZE && criteria.offset() == 0));
     }
 
     @Test
-    void searchMedia_FilterByGenre_IsCaseInsensitive() {
+    void searchMedia_InvalidPage_FallsBackToDefaults() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of());
 
         //act
-        List<Media> result = mediaService.searchMedia(null, "ACTION", null, null, null, null);
+        mediaService.searchMedia(null, null, null, null, 12, "releaseYear", 0, -5);
 
         //assert
-        assertEquals(2, result.size());
+        verify(mediaRepository).searchMedia(argThat(criteria ->
+                criteria.limit() == MediaService.DEFAULT_PAGE_SIZE &&
+                        criteria.offset() == 0 &&
+                        criteria.ageRestriction() == 12 &&
+                        "releaseYear".equals(criteria.sortBy())
+        ));
+    }
+
+    @Test
+    void searchMediaCriteria_InvalidLimit_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new MediaSearchCriteria(null, null, null, null, null, null, 0, 0));
     }
 
     @Test
-    void searchMedia_FilterByMediaType_ReturnsMatchingMedia() {
+    void searchMedia_WithIndex_TextGoesToIndexFiltersToRepository() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        MediaSearchIndex searchIndex = new MediaSearchIndex(() -> testMediaList, null);
+        MediaService indexedService = new MediaService(mediaRepository, searchIndex);
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of());
 
         //act
-        List<Media> result = mediaService.searchMedia(null, null, "game", null, null, null);
+        List<Media> byText = indexedService.searchMedia(null, "the", null, null, "movie", null, null, null, null, null);
+        indexedService.searchMedia(null, null, null, null, "game", null, null, null, null, null);
 
         //assert
-        assertEquals(1, result.size());
-        assertEquals("The Witcher 3", result.get(0).getTitle());
+        assertEquals(List.of(1), byText.stream().map(Media::getId).toList()); //"The Witcher 3" is a game
+        verify(mediaRepository).searchMedia(argThat(criteria -> "game".equals(criteria.mediaType()) && !criteria.hasText()));
+        verify(mediaRepository, never()).getById(anyInt());
     }
 
     @Test
-    void searchMedia_FilterByReleaseYear_ExactMatch() {
+    void searchMedia_FullTextMode_BypassesIndex() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        MediaService indexedService = new MediaService(mediaRepository, new MediaSearchIndex(() -> testMediaList, null));
+        when(mediaRepository.searchMedia(any(MediaSearchCriteria.class))).thenReturn(List.of(testMediaList.get(1)));
 
         //act
-        List<Media> result = mediaService.searchMedia(null, null, null, 2010, null, null);
+        List<Media> result = indexedService.searchMedia(null, "dream heist", SearchMode.FULLTEXT, "action", null, null, null, null, null, null);
 
         //assert
-        assertEquals(1, result.size());
-        assertEquals("Inception", result.get(0).getTitle());
+        assertEquals(List.of(testMediaList.get(1)), result);
+        verify(mediaRepository).searchMedia(argThat(criteria -> "dream heist".equals(criteria.query()) && "action".equals(criteria.genre())));
+        verify(mediaRepository, never()).getAllMedia(); //index never loaded
     }
 
     @Test
-    void searchMedia_FilterByAgeRestriction_LessOrEqual() {
+    void importMedia_PublishesOneEventForTheBatch() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        List<Integer> events = new ArrayList<>();
+        mediaService.addListener(new IActivityListener() {
+            @Override
+            public void onMediaImported(int creatorId, int count) {
+                events.add(count);
+            }
+        });
+        when(mediaRepository.importMedia(any())).thenReturn(1500).thenReturn(0);
 
-        //act - age 12 should return media with age restriction 12 and 0
-        List<Media> result = mediaService.searchMedia(null, null, null, null, 12, null);
+        //act
+        int imported = mediaService.importMedia(testMediaList.iterator(), 7);
+        mediaService.importMedia(List.<Media>of().iterator(), 7);
 
         //assert
-        assertEquals(2, result.size()); //Toy Story (0) & Inception (12)
-        assertTrue(result.stream().anyMatch(m -> m.getTitle().equals("Inception")));
-        assertTrue(result.stream().anyMatch(m -> m.getTitle().equals("Toy Story")));
-        assertFalse(result.stream().anyMatch(m -> m.getAge_restriction() > 12));
+        assertEquals(1500, imported);
+        assertEquals(List.of(1500), events); //nothing imported -> no event
     }
 
+    //KEYSET PAGINATION
     @Test
-    void searchMedia_FilterByAgeRestriction_ZeroReturnsOnlyZeroRated() {
-        //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+    void getMediaPage_MoreRowsThanPageSize_ReturnsNextCursor() {
+        //arrange - repository returns pageSize + 1 rows
+        when(mediaRepository.getMediaPage(0, 3)).thenReturn(testMediaList.subList(0, 3));
 
         //act
-        List<Media> result = mediaService.searchMedia(null, null, null, null, 0, null);
+        Page<Media> page = mediaService.getMediaPage(null, 2);
 
         //assert
-        assertEquals(1, result.size()); //all media have age restriction >= 0
+        assertEquals(2, page.items().size());
+        assertTrue(page.hasNext());
+        assertEquals(Pagination.encodeCursor(2), page.nextCursor());
     }
 
     @Test
-    void searchMedia_MultipleFilters_CombinedCorrectly() {
+    void getMediaPage_WithCursor_ContinuesAfterLastId() {
         //arrange
-        when(mediaRepository.getAllMedia()).thenReturn(testMediaList);
+        String cursor = Pagination.encodeCursor(2);
+        when(mediaRepository.getMediaPage(2, 3)).thenReturn(testMediaList.subList(2, 4));
 
-        //act - Action movies from 2008 or later
-        List<Media> result = mediaService.searchMedia(null, "Action", "movie", 2008, null, null);
+        //act
+        Page<Media> page = mediaService.getMediaPage(cursor, 2);
 
-        //assert
-        assertEquals(1, result.size());
-        assertEquals("The Dark Knight", result.get(0).getTitle());
-        //Inception is filtered out because it's 2010 (> 2008)
+        //assert - last page
+        assertEquals(2, page.items().size());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getMediaPage_InvalidCursor_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> mediaService.getMediaPage("not a cursor!", 10));
+        assertThrows(IllegalArgumentException.class, () -> mediaService.getMediaPage(Pagination.encodeCursor("abc"), 10));
+        verifyNoInteractions(mediaRepository);
     }
-}
\ No newline at end of file
+}
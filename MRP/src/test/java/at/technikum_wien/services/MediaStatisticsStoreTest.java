@@ -0,0 +1,128 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.MediaStatistics;
+import at.technikum_wien.models.entities.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaStatisticsStoreTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Map<Integer, MediaStatistics> database = new HashMap<>();
+
+    private MediaStatisticsStore createStore() {
+        return new MediaStatisticsStore(() -> {
+            loads.incrementAndGet();
+            return new HashMap<>(database);
+        }, null);
+    }
+
+    private Rating createRating(int mediaId, int stars) {
+        return new Rating(mediaId, 2, stars, null);
+    }
+
+    @Test
+    void get_LoadsOnceInBulk() {
+        //arrange
+        database.put(1, new MediaStatistics(1, 2, 9, 1, 0));
+        database.put(2, new MediaStatistics(2, 0, 0, 3, 0));
+        MediaStatisticsStore store = createStore();
+
+        //act
+        double first = store.popularityScore(1);
+        double second = store.popularityScore(2);
+        double unknown = store.popularityScore(99);
+
+        //assert
+        assertEquals(9.5, first);
+        assertEquals(3.0, second); //no ratings -> favorites only
+        assertEquals(0.0, unknown);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void ratingEvents_UpdateCountersIncrementally() {
+        //arrange
+        database.put(1, new MediaStatistics(1, 1, 3, 0, 0));
+        MediaStatisticsStore store = createStore();
+        store.get(1);
+
+        //act
+        store.onRatingCreated(createRating(1, 5));
+        store.onRatingUpdated(createRating(1, 4), 3);
+        Rating deleted = createRating(1, 4);
+        store.onRatingLiked(deleted, 3);
+        store.onFavoriteAdded(3, 1);
+
+        //assert
+        MediaStatistics stats = store.get(1);
+        assertEquals(2, stats.ratingCount());
+        assertEquals(9, stats.starSum());
+        assertEquals(1, stats.favoriteCount());
+        assertEquals(1, stats.likeCount());
+        assertEquals(4.5, stats.averageRating());
+
+        store.onRatingDeleted(deleted);
+        store.onFavoriteRemoved(3, 1);
+        assertEquals(1, store.get(1).ratingCount());
+        assertEquals(5, store.get(1).starSum());
+        assertEquals(0, store.get(1).favoriteCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void eventsBeforeFirstLoad_AreLeftToTheLoad() {
+        //arrange
+        MediaStatisticsStore store = createStore();
+
+        //act - event arrives first, the database already contains the rating
+        store.onRatingCreated(createRating(1, 5));
+        database.put(1, new MediaStatistics(1, 1, 5, 0, 0));
+
+        //assert - not counted twice
+        assertEquals(1, store.get(1).ratingCount());
+    }
+
+    @Test
+    void reload_ReplacesDriftedCountersAndDropsDeletedMedia() {
+        //arrange
+        database.put(1, new MediaStatistics(1, 1, 5, 0, 0));
+        database.put(2, new MediaStatistics(2, 1, 2, 0, 0));
+        MediaStatisticsStore store = createStore();
+        store.get(1);
+        store.onFavoriteAdded(3, 1);
+        database.remove(2);
+
+        //act
+        store.reload();
+
+        //assert
+        assertEquals(0, store.get(1).favoriteCount());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void reload_EventsDuringLoad_ReplayedOntoSnapshot() {
+        //arrange - the second load sees a favorite arrive while its query runs, the snapshot does not contain it
+        database.put(1, new MediaStatistics(1, 1, 5, 0, 0));
+        MediaStatisticsStore[] store = new MediaStatisticsStore[1];
+        store[0] = new MediaStatisticsStore(() -> {
+            if (loads.incrementAndGet() == 2) {
+                store[0].onFavoriteAdded(3, 1);
+            }
+            return new HashMap<>(database);
+        }, null);
+        store[0].get(1);
+
+        //act
+        store[0].reload();
+
+        //assert
+        assertEquals(1, store[0].get(1).favoriteCount());
+        assertEquals(1, store[0].get(1).ratingCount());
+    }
+}
@@ -5,7 +5,9 @@ import at.technikum_wien.database.repositories.MediaRepository;
 import at.technikum_wien.database.repositories.UserRepository;
 import at.technikum_wien.models.entities.Rating;
 import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Page;
 import at.technikum_wien.models.entities.User;
+import at.technikum_wien.models.execeptions.InvalidCursorException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -816,4 +818,36 @@ class RatingServiceTest {
 
         assertEquals("Rating not found with ID: " + ratingId, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    //getRatingsByUserPage
+    @Test
+    void getRatingsByUserPage_FollowsCursorByCreatedAtAndId() {
+        //arrange
+        int userId = 1;
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 10, 12, 0, 0, 123_456_000);
+        Rating newest = new Rating(7, 1, userId, 5, null, true, createdAt.plusDays(1));
+        Rating second = new Rating(5, 2, userId, 4, null, true, createdAt);
+        Rating third = new Rating(3, 3, userId, 3, null, true, createdAt.minusDays(1));
+        when(ratingRepository.getRatingsByUserPage(userId, null, 0, 3)).thenReturn(List.of(newest, second, third));
+        when(ratingRepository.getRatingsByUserPage(userId, createdAt, 5, 3)).thenReturn(List.of(third));
+
+        //act
+        Page<Rating> first = ratingService.getRatingsByUserPage(userId, null, 2);
+        Page<Rating> next = ratingService.getRatingsByUserPage(userId, first.nextCursor(), 2);
+
+        //assert
+        assertEquals(List.of(newest, second), first.items());
+        assertEquals(List.of(third), next.items());
+        assertFalse(next.hasNext());
+    }
+
+    @Test
+    void getRatingsByUserPage_CursorWithoutTimestamp_ThrowsInvalidCursor() {
+        //arrange
+        String cursor = Pagination.encodeCursor("null", 5);
+
+        //act & assert
+        assertThrows(InvalidCursorException.class, () -> ratingService.getRatingsByUserPage(1, cursor, 2));
+        verifyNoInteractions(ratingRepository);
+    }
+}
@@ -0,0 +1,181 @@
+package at.technikum_wien.services;
+
+import at.technikum_wien.models.entities.Media;
+import at.technikum_wien.models.entities.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final Queue<Runnable> refreshes = new ArrayDeque<>(); //run by the test -> background work is explicit
+    private final RecommendationCache cache = new RecommendationCache(Duration.ofMinutes(10), 16, refreshes::add, now::get);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private Media media(int id) {
+        Media media = new Media();
+        media.setId(id);
+        return media;
+    }
+
+    //every computation returns the next media id, so a served list tells which computation it came from
+    private Supplier<List<Media>> loader() {
+        return () -> List.of(media(computations.incrementAndGet()));
+    }
+
+    private void runRefreshes() {
+        while (!refreshes.isEmpty()) {
+            refreshes.poll().run();
+        }
+    }
+
+    @Test
+    void get_SameKeyTwice_ComputedOnce() {
+        //act
+        List<Media> first = cache.get(1, "genre", 10, loader());
+        List<Media> second = cache.get(1, "genre", 10, loader());
+        List<Media> otherLimit = cache.get(1, "genre", 5, loader());
+
+        //assert
+        assertEquals(1, first.get(0).getId());
+        assertSame(first, second);
+        assertEquals(2, otherLimit.get(0).getId());
+        assertEquals(2, computations.get());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(2, cache.getStats().misses());
+    }
+
+    @Test
+    void onRatingCreated_ServesStaleListAndRefreshesInBackground() {
+        //arrange
+        cache.get(1, "genre", 10, loader());
+        cache.get(2, "genre", 10, loader());
+
+        //act
+        cache.onRatingCreated(new Rating(7, 1, 5, "great"));
+        List<Media> stale = cache.get(1, "genre", 10, loader());
+        cache.get(1, "genre", 10, loader()); //refresh already queued
+        int computedBeforeRefresh = computations.get();
+        runRefreshes();
+        List<Media> refreshed = cache.get(1, "genre", 10, loader());
+        List<Media> otherUser = cache.get(2, "genre", 10, loader());
+
+        //assert
+        assertEquals(1, stale.get(0).getId());
+        assertEquals(2, computedBeforeRefresh);
+        assertEquals(3, refreshed.get(0).getId());
+        assertEquals(2, otherUser.get(0).getId()); //not affected
+        assertEquals(2, cache.getStats().staleHits());
+        assertEquals(1, cache.getStats().refreshes());
+    }
+
+    @Test
+    void get_InvalidatedDuringComputation_ResultStaysStale() {
+        //arrange - the user rates something while their list is being computed
+        Supplier<List<Media>> racingLoader = () -> {
+            cache.onFavoriteAdded(1, 42);
+            return List.of(media(computations.incrementAndGet()));
+        };
+
+        //act
+        cache.get(1, "content", 10, racingLoader);
+        cache.get(1, "content", 10, loader());
+
+        //assert
+        assertEquals(1, cache.getStats().staleHits());
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void invalidateUser_BeforeFirstLoad_DoesNotAffectLaterLoads() {
+        //arrange - nothing cached and nothing loading for the user -> the invalidation leaves nothing behind
+        cache.invalidateUser(1);
+        cache.get(1, "genre", 10, loader());
+
+        //act
+        List<Media> second = cache.get(1, "genre", 10, loader());
+
+        //assert
+        assertEquals(1, second.get(0).getId());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(0, cache.getStats().staleHits());
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void invalidateUser_AfterCacheRanFull_StillReachesNewEntries() {
+        //arrange - 16 users fill the cache, the 17th starts it over
+        for (int userId = 1; userId <= 17; userId++) {
+            cache.get(userId, "genre", 10, loader());
+        }
+
+        //act
+        cache.invalidateUser(17);
+        cache.get(17, "genre", 10, loader());
+
+        //assert
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getStats().staleHits());
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void get_TtlExpired_ServesStaleListAndRefreshes() {
+        //arrange
+        cache.get(1, "genre", 10, loader());
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        //act
+        List<Media> stale = cache.get(1, "genre", 10, loader());
+        runRefreshes();
+        List<Media> refreshed = cache.get(1, "genre", 10, loader());
+
+        //assert
+        assertEquals(1, stale.get(0).getId());
+        assertEquals(2, refreshed.get(0).getId());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void refresh_LoaderFails_KeepsServingStaleList() {
+        //arrange
+        cache.get(1, "genre", 10, loader());
+        cache.invalidateUser(1);
+
+        //act
+        cache.get(1, "genre", 10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        runRefreshes();
+        List<Media> afterFailure = cache.get(1, "genre", 10, loader());
+        runRefreshes();
+
+        //assert
+        assertEquals(1, afterFailure.get(0).getId());
+        assertEquals(2, cache.get(1, "genre", 10, loader()).get(0).getId());
+    }
+
+    @Test
+    void onMediaDeleted_DropsAllEntries() {
+        //arrange
+        cache.get(1, "genre", 10, loader());
+        cache.get(2, "genre", 10, loader());
+
+        //act
+        cache.onMediaDeleted(media(1));
+        List<Media> recomputed = cache.get(1, "genre", 10, loader());
+
+        //assert
+        assertEquals(3, recomputed.get(0).getId()); //computed on the caller, no stale list to serve
+        assertTrue(refreshes.isEmpty());
+        assertEquals(1, cache.size());
+    }
+}
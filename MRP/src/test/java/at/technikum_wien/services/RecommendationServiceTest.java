@@ -2,9 +2,10 @@ package at.technikum_wien.services;
 
 import at.technikum_wien.database.repositories.MediaRepository;
 import at.technikum_wien.database.repositories.RatingRepository;
-import at.technikum_wien.database.repositories.FavoriteRepository;
+import at.technikum_wien.models.entities.Interaction;
 import at.technikum_wien.models.entities.Media;
 import at.technikum_wien.models.entities.Rating;
+import at.technikum_wien.models.entities.RatingMatrix;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -26,7 +27,7 @@ class RecommendationServiceTest {
     private RatingRepository ratingRepository;
 
     @Mock
-    private FavoriteRepository favoriteRepository;
+    private MediaStatisticsStore statisticsStore;
 
     @InjectMocks
     private RecommendationService recommendationService;
@@ -75,16 +76,8 @@ class RecommendationServiceTest {
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
 
-        //mock getById calls in calculateFavoriteGenres
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia1);
-        when(mediaRepository.getById(102)).thenReturn(ratedMedia2);
-
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Arrays.asList(
-                createRating(10, 201, 2, 4),
-                createRating(11, 202, 3, 3)
-        ));
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(10);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(12.0);
 
         //act
         List<Media> result = recommendationService.getGenreBasedRecommendations(userId, limit);
@@ -98,6 +91,9 @@ class RecommendationServiceTest {
 
         verify(ratingRepository).getAllRatingsByUser(userId);
         verify(mediaRepository).getAllMedia();
+        //rated media are resolved from the loaded list, not one query each
+        verify(mediaRepository, never()).getById(anyInt());
+        verify(ratingRepository, never()).getAllRatingsByMedia(anyInt());
     }
 
     @Test
@@ -123,16 +119,8 @@ class RecommendationServiceTest {
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
 
-        //mock getById for rated media
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia1);
-        when(mediaRepository.getById(102)).thenReturn(ratedMedia2);
-
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Arrays.asList(
-                createRating(10, 201, 2, 4),
-                createRating(11, 202, 3, 5)
-        ));
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(5);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(11.5);
 
         //act
         List<Media> result = recommendationService.getGenreBasedRecommendations(userId, limit);
@@ -161,11 +149,9 @@ class RecommendationServiceTest {
 
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia);
 
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Collections.emptyList());
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(0);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(0.0);
 
         //act
         List<Media> result = recommendationService.getGenreBasedRecommendations(userId, limit);
@@ -201,17 +187,8 @@ class RecommendationServiceTest {
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
 
-        //mock getById calls
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia1);
-        when(mediaRepository.getById(102)).thenReturn(ratedMedia2);
-
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Arrays.asList(
-                createRating(10, 201, 2, 4),
-                createRating(11, 202, 3, 3),
-                createRating(12, 203, 4, 5)
-        ));
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(5);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(14.5);
 
         //act
         List<Media> result = recommendationService.getContentBasedRecommendations(userId, limit);
@@ -239,12 +216,7 @@ class RecommendationServiceTest {
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
 
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Arrays.asList(
-                createRating(10, 1, 2, 5),
-                createRating(11, 2, 3, 4),
-                createRating(12, 3, 4, 3)
-        ));
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(10);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(17.0);
 
         //act
         List<Media> result = recommendationService.getContentBasedRecommendations(userId, limit);
@@ -277,12 +249,9 @@ class RecommendationServiceTest {
 
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia1);
-        when(mediaRepository.getById(102)).thenReturn(ratedMedia2);
 
         //mock popularity calculations (simplified)
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Collections.emptyList());
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(0);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(0.0);
 
         //act
         List<Media> result = recommendationService.getContentBasedRecommendations(userId, limit);
@@ -314,12 +283,9 @@ class RecommendationServiceTest {
 
         when(ratingRepository.getAllRatingsByUser(userId)).thenReturn(userRatings);
         when(mediaRepository.getAllMedia()).thenReturn(allMedia);
-        when(mediaRepository.getById(101)).thenReturn(ratedMedia1);
-        when(mediaRepository.getById(102)).thenReturn(ratedMedia2);
 
         //mock popularity calculations
-        when(ratingRepository.getAllRatingsByMedia(anyInt())).thenReturn(Collections.emptyList());
-        when(favoriteRepository.getFavoriteCountForMedia(anyInt())).thenReturn(0);
+        when(statisticsStore.popularityScore(anyInt())).thenReturn(0.0);
 
         //act
         List<Media> result = recommendationService.getContentBasedRecommendations(userId, limit);
@@ -346,4 +312,64 @@ class RecommendationServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getCollaborativeRecommendations_ResolvesModelResultsAndSkipsDeletedMedia() {
+        //arrange
+        List<Interaction> interactions = List.of(
+                new Interaction(1, 101, 5, false), new Interaction(1, 102, 5, false), new Interaction(1, 103, 5, false),
+                new Interaction(2, 101, 5, false));
+        CollaborativeFilteringEngine engine = new CollaborativeFilteringEngine(() -> interactions, null);
+        engine.rebuild();
+        RecommendationService service = new RecommendationService(mediaRepository, ratingRepository, statisticsStore, engine);
+        Media media = createMedia(102, "Heat", List.of("crime"), "movie", 16);
+        when(mediaRepository.getById(102)).thenReturn(media);
+        when(mediaRepository.getById(103)).thenReturn(null);
+
+        //act
+        List<Media> result = service.getCollaborativeRecommendations(2, 5);
+
+        //assert
+        assertEquals(List.of(media), result);
+        verify(mediaRepository, never()).getAllMedia();
+    }
+
+    @Test
+    void getCollaborativeRecommendations_NoInteractions_FallsBackToPopularMedia() {
+        //arrange
+        RecommendationService service = new RecommendationService(mediaRepository, ratingRepository, statisticsStore, new CollaborativeFilteringEngine(List::of, null));
+        Media popular = createMedia(1, "Popular", List.of("drama"), "movie", 0);
+        Media niche = createMedia(2, "Niche", List.of("drama"), "movie", 0);
+        when(mediaRepository.getAllMedia()).thenReturn(List.of(niche, popular));
+        when(statisticsStore.popularityScore(1)).thenReturn(40.0);
+        when(statisticsStore.popularityScore(2)).thenReturn(3.0);
+
+        //act
+        List<Media> result = service.getCollaborativeRecommendations(7, 1);
+
+        //assert
+        assertEquals(List.of(popular), result);
+    }
+
+    @Test
+    void getLatentFactorRecommendations_ModelNotTrained_FallsBackToCollaborative() {
+        //arrange
+        List<Interaction> interactions = List.of(
+                new Interaction(1, 101, 5, false), new Interaction(1, 102, 5, false),
+                new Interaction(2, 101, 5, false));
+        try (MatrixFactorizationTrainer trainer = new MatrixFactorizationTrainer(1)) {
+            LatentFactorEngine latentEngine = new LatentFactorEngine(() -> new RatingMatrix(0), trainer, new MatrixFactorizationTrainer.Settings(4, 5, 0.05f, 1), 10, null);
+            CollaborativeFilteringEngine collaborativeEngine = new CollaborativeFilteringEngine(() -> interactions, null);
+            collaborativeEngine.rebuild();
+            RecommendationService service = new RecommendationService(mediaRepository, ratingRepository, statisticsStore, collaborativeEngine, latentEngine);
+            Media media = createMedia(102, "Heat", List.of("crime"), "movie", 16);
+            when(mediaRepository.getById(102)).thenReturn(media);
+
+            //act
+            List<Media> result = service.getLatentFactorRecommendations(2, 5);
+
+            //assert
+            assertEquals(List.of(media), result);
+        }
+    }
+}
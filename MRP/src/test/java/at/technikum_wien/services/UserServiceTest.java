@@ -9,6 +9,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.function.Consumer;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -120,6 +122,34 @@ class UserServiceTest {
         }
     }
 
+    @Test
+    void loginUser_LegacyHash_RehashesInBackground() {
+        //arrange
+        User storedUser = new User("capri", "LEGACY_HASH");
+        storedUser.setId(42);
+
+        when(userRepository.getByName("capri")).thenReturn(storedUser);
+        when(tokenRepository.createToken(42, "capri")).thenReturn("capri-mrpToken");
+
+        try (MockedStatic<PasswordHasher> mockedHasher = mockStatic(PasswordHasher.class)) {
+            mockedHasher.when(() -> PasswordHasher.checkPassword("password123", "LEGACY_HASH")).thenReturn(true);
+            mockedHasher.when(() -> PasswordHasher.needsRehash("LEGACY_HASH")).thenReturn(true);
+            mockedHasher.when(() -> PasswordHasher.rehashInBackground(eq("password123"), any()))
+                    .thenAnswer(invocation -> {
+                        Consumer<String> writer = invocation.getArgument(1);
+                        writer.accept("NEW_HASH");
+                        return null;
+                    });
+
+            //act
+            UserService.LoginResult result = userService.loginUser("capri", "password123");
+
+            //assert
+            assertEquals("capri-mrpToken", result.token());
+            verify(userRepository).updatePasswordHash(42, "NEW_HASH");
+        }
+    }
+
     @Test
     void loginUser_NonExistentUser_ThrowsSecurityException() {
         //arrange
@@ -168,6 +198,27 @@ class UserServiceTest {
         assertEquals(456, result.userId());
     }
 
+    //LOGOUT TESTS
+    @Test
+    void logoutUser_ValidToken_DeletesToken() {
+        //arrange
+        when(tokenRepository.deleteToken("capri-mrpToken")).thenReturn(true);
+
+        //act
+        boolean result = userService.logoutUser("capri-mrpToken");
+
+        //assert
+        assertTrue(result);
+        verify(tokenRepository).deleteToken("capri-mrpToken");
+    }
+
+    @Test
+    void logoutUser_MissingToken_ThrowsSecurityException() {
+        //act & assert
+        assertThrows(SecurityException.class, () -> userService.logoutUser(null));
+        verify(tokenRepository, never()).deleteToken(any());
+    }
+
     //UPDATE TESTS
     @Test
     void updateUser_ValidUpdate_ReturnsUpdatedUser() {